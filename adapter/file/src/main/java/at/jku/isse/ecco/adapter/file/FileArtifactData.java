@@ -11,7 +11,6 @@ import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
-import java.util.Objects;
 
 public class FileArtifactData implements ArtifactData {
 
@@ -133,7 +132,7 @@ public class FileArtifactData implements ArtifactData {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(this.checksum);
+		return Arrays.hashCode(this.checksum);
 	}
 
 	@Override
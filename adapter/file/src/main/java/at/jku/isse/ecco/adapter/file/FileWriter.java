@@ -1,11 +1,12 @@
 package at.jku.isse.ecco.adapter.file;
 
 import at.jku.isse.ecco.service.listener.WriteListener;
-import at.jku.isse.ecco.adapter.ArtifactWriter;
+import at.jku.isse.ecco.adapter.StreamArtifactWriter;
 import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
 import at.jku.isse.ecco.tree.Node;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -14,7 +15,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
-public class FileWriter implements ArtifactWriter<Set<Node>, Path> {
+public class FileWriter implements StreamArtifactWriter {
 
 	public FileWriter() {
 
@@ -39,37 +40,25 @@ public class FileWriter implements ArtifactWriter<Set<Node>, Path> {
 			Path outputPath = base.resolve(pluginArtifact.getPath()); // TODO: this resolve might not be necessary as the artifact stores the relative path anyway.
 			output.add(outputPath);
 
-			if (node.getChildren().size() != 1) {
-				// TODO: ERROR? OR: write empty file.
-				try {
-					Files.write(outputPath, new byte[]{});
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			} else {
-				for (Node childNode : node.getChildren()) {
-					FileArtifactData fileArtifact = (FileArtifactData) childNode.getArtifact().getData(); // TODO: node type must have Type parameter for artifact type it contains?
-					try {
-						// Path path = Files.write(artifact.getPath(), artifact.getData());
-						Files.write(outputPath, fileArtifact.getData());
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-				}
-//				FileArtifactData fileArtifact = (FileArtifactData) node.getChildren().get(0).getArtifact().getData(); // TODO: node type must have Type parameter for artifact type it contains?
-//
-//				try {
-//					// Path path = Files.write(artifact.getPath(), artifact.getData());
-//					Files.write(outputPath, fileArtifact.getData());
-//				} catch (IOException e) {
-//					e.printStackTrace();
-//				}
+			try (OutputStream os = Files.newOutputStream(outputPath)) {
+				this.write(node, os);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
 		}
 
 		return output.toArray(new Path[output.size()]);
 	}
 
+	@Override
+	public void write(Node node, OutputStream outputStream) throws IOException {
+		// TODO: ERROR if the file node does not have exactly one child? for now an empty file is written.
+		if (node.getChildren().size() == 1) {
+			FileArtifactData fileArtifact = (FileArtifactData) node.getChildren().get(0).getArtifact().getData();
+			outputStream.write(fileArtifact.getData());
+		}
+	}
+
 	private Collection<WriteListener> listeners = new ArrayList<WriteListener>();
 
 	@Override
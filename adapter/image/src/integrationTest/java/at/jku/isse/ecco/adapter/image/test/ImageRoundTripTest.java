@@ -0,0 +1,118 @@
+package at.jku.isse.ecco.adapter.image.test;
+
+import at.jku.isse.ecco.adapter.image.AwtImageWriter;
+import at.jku.isse.ecco.adapter.image.ImageReader;
+import at.jku.isse.ecco.service.EccoService;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Reads images into tiles, composes them and writes them again. The images are 37x21 pixels, which is not a multiple of the tile size, so the tiles at the right and bottom edges are smaller.
+ */
+public class ImageRoundTripTest {
+
+	private static final int WIDTH = 37;
+	private static final int HEIGHT = 21;
+
+	private Path tempDir;
+
+	@BeforeMethod(alwaysRun = true)
+	public void setUp() throws IOException {
+		this.tempDir = Files.createTempDirectory("ecco-image-test");
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() throws IOException {
+		MoreFiles.deleteRecursively(this.tempDir, RecursiveDeleteOption.ALLOW_INSECURE);
+	}
+
+	@Test(groups = {"integration", "image"})
+	public void Image_Read_Write() throws IOException {
+		BufferedImage image = createImage(1);
+		Path inputDir = Files.createDirectories(this.tempDir.resolve("input"));
+		ImageIO.write(image, "png", inputDir.resolve("image.png").toFile());
+
+		ImageReader reader = new ImageReader(new MemEntityFactory());
+		reader.setTileSize(5);
+		Set<Node> nodes = new HashSet<>(reader.read(inputDir, new Path[]{Paths.get("image.png")}));
+
+		BufferedImage[] output = new AwtImageWriter().write(nodes);
+
+		Assert.assertEquals(output.length, 1);
+		assertEqualPixels(output[0], image);
+	}
+
+	@Test(groups = {"integration", "image"})
+	public void Image_Commit_Checkout() throws IOException {
+		// the second variant differs from the first one in a pixel of the bottom right edge tile and in a pixel of an inner tile
+		BufferedImage image1 = createImage(1);
+		BufferedImage image2 = createImage(1);
+		image2.setRGB(WIDTH - 1, HEIGHT - 1, 0xff123456);
+		image2.setRGB(3, 3, 0xff654321);
+
+		EccoService service = new EccoService(this.tempDir, this.tempDir.resolve("repo"));
+		service.init();
+		this.commit(service, "V1", "A.1", image1);
+		this.commit(service, "V2", "B.1", image2);
+
+		this.checkout(service, "C1", "A.1", image1);
+		this.checkout(service, "C2", "B.1", image2);
+
+		service.close();
+	}
+
+	private void commit(EccoService service, String name, String configuration, BufferedImage image) throws IOException {
+		Path variantDir = Files.createDirectories(this.tempDir.resolve(name));
+		ImageIO.write(image, "png", variantDir.resolve("image.png").toFile());
+		service.setBaseDir(variantDir);
+		service.commit(name, configuration);
+	}
+
+	private void checkout(EccoService service, String name, String configuration, BufferedImage expected) throws IOException {
+		Path checkoutDir = Files.createDirectories(this.tempDir.resolve(name));
+		service.setBaseDir(checkoutDir);
+		service.checkout(configuration);
+		assertEqualPixels(ImageIO.read(checkoutDir.resolve("image.png").toFile()), expected);
+	}
+
+	/**
+	 * Creates an image with opaque random colors, as fully transparent pixels are not distinguished when they are blended.
+	 */
+	private static BufferedImage createImage(long seed) {
+		Random random = new Random(seed);
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				image.setRGB(x, y, 0xff000000 | random.nextInt(0x1000000));
+			}
+		}
+		return image;
+	}
+
+	private static void assertEqualPixels(BufferedImage actual, BufferedImage expected) {
+		Assert.assertEquals(actual.getWidth(), expected.getWidth());
+		Assert.assertEquals(actual.getHeight(), expected.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				Assert.assertEquals(actual.getRGB(x, y), expected.getRGB(x, y), "pixel " + x + "," + y);
+			}
+		}
+	}
+
+}
@@ -11,6 +11,8 @@ public class ImageArtifactData implements ArtifactData {
 
 	private String type;
 
+	private transient int hash;
+
 	protected ImageArtifactData() {
 		this.values = null;
 		this.type = null;
@@ -38,16 +40,23 @@ public class ImageArtifactData implements ArtifactData {
 		if (getClass() != obj.getClass())
 			return false;
 		final ImageArtifactData other = (ImageArtifactData) obj;
-		return Arrays.equals(values, other.values);
+		return this.hashCode() == other.hashCode() && Objects.equals(this.type, other.type) && Arrays.equals(this.values, other.values);
 	}
 
+	/**
+	 * The hash is computed from the contents of the values array (not its identity) and cached, as tile artifacts hold the pixels of a whole tile.
+	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(values);
+		if (this.hash == 0)
+			this.hash = 31 * Arrays.hashCode(this.values) + Objects.hashCode(this.type);
+		return this.hash;
 	}
 
 	@Override
 	public String toString() {
+		if (ImageReader.TYPE_PIXELS.equals(this.type))
+			return this.type + "[" + this.values.length + "]";
 		return Arrays.toString(this.values);
 	}
 
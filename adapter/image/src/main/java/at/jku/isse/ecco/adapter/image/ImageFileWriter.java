@@ -1,7 +1,7 @@
 package at.jku.isse.ecco.adapter.image;
 
 import at.jku.isse.ecco.EccoException;
-import at.jku.isse.ecco.adapter.ArtifactWriter;
+import at.jku.isse.ecco.adapter.StreamArtifactWriter;
 import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
 import at.jku.isse.ecco.service.listener.WriteListener;
 import at.jku.isse.ecco.tree.Node;
@@ -9,6 +9,7 @@ import at.jku.isse.ecco.tree.Node;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,7 +18,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
-public class ImageFileWriter implements ArtifactWriter<Set<Node>, Path> {
+public class ImageFileWriter implements StreamArtifactWriter {
 
 	private int backgroundColor = 0x00ffffff;
 	private boolean enableBlending = true;
@@ -45,15 +46,8 @@ public class ImageFileWriter implements ArtifactWriter<Set<Node>, Path> {
 				Path outputPath = base.resolve(pluginArtifactData.getPath());
 				output.add(outputPath);
 
-				BufferedImage outputImage = ImageUtil.createBufferedImage(pluginNode, this.backgroundColor, this.enableBlending);
-
-				try {
-					if (!Files.exists(outputPath)) {
-						Files.createFile(outputPath);
-					}
-					String fileName = outputPath.getFileName().toString();
-					String fileType = fileName.substring(fileName.lastIndexOf(".") + 1, fileName.length());
-					ImageIO.write(outputImage, fileType, outputPath.toFile());
+				try (OutputStream os = Files.newOutputStream(outputPath)) {
+					this.write(pluginNode, os);
 				} catch (IOException e) {
 					e.printStackTrace();
 				}
@@ -63,6 +57,19 @@ public class ImageFileWriter implements ArtifactWriter<Set<Node>, Path> {
 		return output.toArray(new Path[output.size()]);
 	}
 
+	@Override
+	public void write(Node pluginNode, OutputStream outputStream) throws IOException {
+		if (!(pluginNode.getArtifact().getData() instanceof PluginArtifactData))
+			throw new EccoException("Top nodes must be plugin nodes!");
+		PluginArtifactData pluginArtifactData = (PluginArtifactData) pluginNode.getArtifact().getData();
+
+		BufferedImage outputImage = ImageUtil.createBufferedImage(pluginNode, this.backgroundColor, this.enableBlending);
+
+		String fileName = pluginArtifactData.getPath().getFileName().toString();
+		String fileType = fileName.substring(fileName.lastIndexOf(".") + 1);
+		ImageIO.write(outputImage, fileType, outputStream);
+	}
+
 	private Collection<WriteListener> listeners = new ArrayList<>();
 
 	@Override
@@ -23,6 +23,16 @@ public class ImageReader implements ArtifactReader<Path, Set<Node.Op>> {
 	public static final String TYPE_IMAGE = "IMAGE";
 	public static final String TYPE_POS = "POS";
 	public static final String TYPE_COLOR = "COLOR";
+	public static final String TYPE_TILE_ROW = "TILE_ROW";
+	public static final String TYPE_TILE = "TILE";
+	public static final String TYPE_PIXELS = "PIXELS";
+
+	/**
+	 * Default edge length of the square tiles an image is split into.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 16;
+
+	private int tileSize = DEFAULT_TILE_SIZE;
 
 	private final EntityFactory entityFactory;
 
@@ -38,6 +48,16 @@ public class ImageReader implements ArtifactReader<Path, Set<Node.Op>> {
 		return ImagePlugin.class.getName();
 	}
 
+	public int getTileSize() {
+		return this.tileSize;
+	}
+
+	public void setTileSize(int tileSize) {
+		if (tileSize < 1)
+			throw new EccoException("Tile size must be at least 1.");
+		this.tileSize = tileSize;
+	}
+
 	private static Map<Integer, String[]> prioritizedPatterns;
 
 	static {
@@ -90,47 +110,50 @@ public class ImageReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 		final Node.Op imageNode = this.entityFactory.createNode(this.entityFactory.createArtifact(imageArtifactData));
 
-		List<Node.Op> pixelNode = parsePixelData(image);
+		List<Node.Op> tileNodes = parseTiles(image);
 
-		pixelNode.forEach(imageNode::addChild);
+		tileNodes.forEach(imageNode::addChild);
 
 		return imageNode;
 	}
 
-	private int[] getPixel(BufferedImage image, int x, int y) {
+	/**
+	 * Splits the image into tiles of {@link #tileSize} pixels (smaller at the right and bottom edges). Every tile is a {@link #TYPE_TILE} node identified by its bounds {x, y, width, height}
+	 * with a single {@link #TYPE_PIXELS} child that holds the ARGB values of the tile. Tiles that are equal across variants are therefore shared, and tiles that differ end up with one
+	 * pixels child per distinct content, which the writers blend pixel by pixel (see {@link ImageUtil}). Tiles are grouped into {@link #TYPE_TILE_ROW} nodes {y, height} to keep the number
+	 * of children per node small.
+	 */
+	private List<Node.Op> parseTiles(final BufferedImage image) {
 		assert image != null;
-		assert x >= 0 && x < image.getWidth() : "Expected x to be in image range.";
-		assert y >= 0 && y < image.getHeight() : "Expected y to be in image range.";
 
-		int argb = image.getRGB(x, y);
+		final int width = image.getWidth();
+		final int height = image.getHeight();
 
-		return new int[]{(argb >> 24) & 0xff, // alpha
-				(argb >> 16) & 0xff, // red
-				(argb >> 8) & 0xff, // green
-				argb & 0xff // blue
-		};
-	}
+		List<Node.Op> nodes = new ArrayList<>();
+		for (int y = 0; y < height; y += this.tileSize) {
+			final int tileHeight = Math.min(this.tileSize, height - y);
 
-	private List<Node.Op> parsePixelData(final BufferedImage image) {
-		assert image != null;
+			final ImageArtifactData rowArtifactData = new ImageArtifactData(new int[]{y, tileHeight}, TYPE_TILE_ROW);
+			final Node.Op rowNode = this.entityFactory.createNode(this.entityFactory.createArtifact(rowArtifactData));
 
-		List<Node.Op> nodes = new ArrayList<>();
-		for (int y = 0; y < image.getHeight(); y++) {
-			for (int x = 0; x < image.getWidth(); x++) {
-				final int[] position = new int[]{x, y};
-				final ImageArtifactData posArtifactData = new ImageArtifactData(position, TYPE_POS);
+			for (int x = 0; x < width; x += this.tileSize) {
+				final int tileWidth = Math.min(this.tileSize, width - x);
+
+				final ImageArtifactData tileArtifactData = new ImageArtifactData(new int[]{x, y, tileWidth, tileHeight}, TYPE_TILE);
 
-				final int[] rgb = this.getPixel(image, x, y);
-				final ImageArtifactData colorArtifactData = new ImageArtifactData(rgb, TYPE_COLOR);
+				final int[] argb = image.getRGB(x, y, tileWidth, tileHeight, null, 0, tileWidth);
+				final ImageArtifactData pixelsArtifactData = new ImageArtifactData(argb, TYPE_PIXELS);
 
-				final Node.Op positionNode = this.entityFactory.createNode(this.entityFactory.createArtifact(posArtifactData));
+				final Node.Op tileNode = this.entityFactory.createNode(this.entityFactory.createArtifact(tileArtifactData));
 
-				final Node.Op colorNode = this.entityFactory.createNode(this.entityFactory.createArtifact(colorArtifactData));
+				final Node.Op pixelsNode = this.entityFactory.createNode(this.entityFactory.createArtifact(pixelsArtifactData));
 
-				positionNode.addChild(colorNode);
+				tileNode.addChild(pixelsNode);
 
-				nodes.add(positionNode);
+				rowNode.addChild(tileNode);
 			}
+
+			nodes.add(rowNode);
 		}
 
 		return nodes;
@@ -3,10 +3,13 @@ package at.jku.isse.ecco.adapter.image;
 import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.tree.Node;
 import javafx.scene.image.Image;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class ImageUtil {
 
@@ -15,179 +18,165 @@ public class ImageUtil {
 
 
 	protected static Image createImage(Node pluginNode, int backgroundColor, boolean enableBlending) {
-		Node imageNode = null;
-		for (Node node : pluginNode.getChildren()) {
-			if ((node.getArtifact().getData() instanceof ImageArtifactData) && ((ImageArtifactData) node.getArtifact().getData()).getType().equals(ImageReader.TYPE_IMAGE)) {
-				imageNode = node;
-			}
-		}
-		if (imageNode == null)
-			throw new EccoException("There must be exactly one image node!");
-		// ImageArtifact imageArtifact = (ImageArtifact) fileNode.getAllChildren().iterator().next().getArtifact();
-		ImageArtifactData imageArtifact = (ImageArtifactData) imageNode.getArtifact().getData();
+		ImageArtifactData imageArtifact = (ImageArtifactData) getImageNode(pluginNode).getArtifact().getData();
 		int width = imageArtifact.getValues()[0];
 		int height = imageArtifact.getValues()[1];
 
-		int defaultColor = 0;
-		{
-			int alpha = 128;
-			int red = 0;
-			int green = 255;
-			int blue = 0;
-			defaultColor = (blue & 0x000000ff) | ((green << 8) & 0x0000ff00) | ((red << 16) & 0x00ff0000) | ((alpha << 24) & 0xff000000);
-
-			defaultColor = backgroundColor;
-		}
+		int[] argb = createPixels(pluginNode, backgroundColor, enableBlending);
 
-		WritableImage outputImage = new WritableImage(width, height);
-		PixelWriter pixelWriter = outputImage.getPixelWriter();
+		return createImage(width, height, argb);
+	}
 
-		// TODO: include image metadata in artifacts, like type or color model
+	protected static BufferedImage createBufferedImage(Node pluginNode, int backgroundColor, boolean enableBlending) {
+		ImageArtifactData imageArtifact = (ImageArtifactData) getImageNode(pluginNode).getArtifact().getData();
+		int width = imageArtifact.getValues()[0];
+		int height = imageArtifact.getValues()[1];
 
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				//outputImage.setRGB(i, j, defaultColor);
-				pixelWriter.setArgb(i, j, defaultColor);
-			}
-		}
+		int[] argb = createPixels(pluginNode, backgroundColor, enableBlending);
 
-		for (Node posNode : imageNode.getChildren()) {
-			ImageArtifactData posArtifact = (ImageArtifactData) posNode.getArtifact().getData();
-			int x = posArtifact.getValues()[0];
-			int y = posArtifact.getValues()[1];
-
-			int color = 0;
-			if (posNode.getChildren().size() <= 0) {
-				//System.out.println("There is no color for pos (" + x + ", " + y + ").");
-				// color = 0;
-				color = defaultColor;
-			} else {
-				if (posNode.getChildren().size() > 1) {
-					//System.out.println("There is more than one color for pos (" + x + ", " + y + "). Picking the first one.");
-				}
+		// TODO: include image metadata in artifacts, like type or color model
+		BufferedImage outputImage = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+		outputImage.setRGB(0, 0, width, height, argb, 0, width);
 
-				int alpha = 0;
-				int red = 0;
-				int green = 0;
-				int blue = 0;
+		return outputImage;
+	}
 
-				int relevantChildren = 0;
-				for (Node colorNode : posNode.getChildren()) {
-					ImageArtifactData colorArtifact = (ImageArtifactData) colorNode.getArtifact().getData();
-					int pixelColor = (colorArtifact.getValues()[3] & 0x000000ff) | ((colorArtifact.getValues()[2] << 8) & 0x0000ff00) | ((colorArtifact.getValues()[1] << 16) & 0x00ff0000) | ((colorArtifact.getValues()[0] << 24) & 0xff000000);
+	/**
+	 * Creates an image of a single tile node, blending its pixels children if there is more than one.
+	 */
+	protected static Image createTileImage(Node tileNode, int backgroundColor, boolean enableBlending) {
+		ImageArtifactData tileArtifact = (ImageArtifactData) tileNode.getArtifact().getData();
+		int width = tileArtifact.getValues()[2];
+		int height = tileArtifact.getValues()[3];
 
-					// TODO: store the actual background color of the image as image metadata nodes in the artifact tree and make use of it here!
-					if (backgroundColor != pixelColor) {
-						relevantChildren++;
+		int[] argb = new int[width * height];
+		Arrays.fill(argb, backgroundColor);
+		drawTile(argb, width, height, tileNode, 0, 0, backgroundColor, enableBlending);
 
-						alpha += colorArtifact.getValues()[0];
-						red += colorArtifact.getValues()[1];
-						green += colorArtifact.getValues()[2];
-						blue += colorArtifact.getValues()[3];
-					}
+		return createImage(width, height, argb);
+	}
 
-					if (!enableBlending)
-						break;
-				}
 
-				if (enableBlending && relevantChildren > 0) {
-					alpha = alpha / relevantChildren;
-					red = red / relevantChildren;
-					green = green / relevantChildren;
-					blue = blue / relevantChildren;
-				}
+	private static Image createImage(int width, int height, int[] argb) {
+		WritableImage outputImage = new WritableImage(width, height);
+		outputImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argb, 0, width);
+		return outputImage;
+	}
 
-				color = 0;
-				color = (blue & 0x000000ff) | ((green << 8) & 0x0000ff00) | ((red << 16) & 0x00ff0000) | ((alpha << 24) & 0xff000000);
+	private static Node getImageNode(Node pluginNode) {
+		Node imageNode = null;
+		for (Node node : pluginNode.getChildren()) {
+			if ((node.getArtifact().getData() instanceof ImageArtifactData) && ((ImageArtifactData) node.getArtifact().getData()).getType().equals(ImageReader.TYPE_IMAGE)) {
+				imageNode = node;
 			}
-			//outputImage.setRGB(x, y, color);
-			pixelWriter.setArgb(x, y, color);
 		}
-
-		return outputImage;
+		if (imageNode == null)
+			throw new EccoException("There must be exactly one image node!");
+		return imageNode;
 	}
 
-
-	protected static BufferedImage createBufferedImage(Node pluginNode, int backgroundColor, boolean enableBlending) {
-		Node imageNode = (Node) pluginNode.getChildren().iterator().next();
-		// ImageArtifact imageArtifact = (ImageArtifact) fileNode.getAllChildren().iterator().next().getArtifact();
+	/**
+	 * Assembles the ARGB values of the image below the given plugin node, row by row. Both tile rows and the per pixel position nodes of repositories created before tiling are supported.
+	 */
+	private static int[] createPixels(Node pluginNode, int backgroundColor, boolean enableBlending) {
+		Node imageNode = getImageNode(pluginNode);
 		ImageArtifactData imageArtifact = (ImageArtifactData) imageNode.getArtifact().getData();
 		int width = imageArtifact.getValues()[0];
 		int height = imageArtifact.getValues()[1];
 
-		int defaultColor = 0;
-		{
-			int alpha = 128;
-			int red = 0;
-			int green = 255;
-			int blue = 0;
-			defaultColor = (blue & 0x000000ff) | ((green << 8) & 0x0000ff00) | ((red << 16) & 0x00ff0000) | ((alpha << 24) & 0xff000000);
-
-			defaultColor = backgroundColor;
+		int[] argb = new int[width * height];
+		Arrays.fill(argb, backgroundColor);
+
+		for (Node childNode : imageNode.getChildren()) {
+			ImageArtifactData childArtifact = (ImageArtifactData) childNode.getArtifact().getData();
+			if (ImageReader.TYPE_TILE_ROW.equals(childArtifact.getType())) {
+				for (Node tileNode : childNode.getChildren()) {
+					ImageArtifactData tileArtifact = (ImageArtifactData) tileNode.getArtifact().getData();
+					int x = tileArtifact.getValues()[0];
+					int y = tileArtifact.getValues()[1];
+					drawTile(argb, width, height, tileNode, x, y, backgroundColor, enableBlending);
+				}
+			} else if (ImageReader.TYPE_POS.equals(childArtifact.getType())) {
+				int x = childArtifact.getValues()[0];
+				int y = childArtifact.getValues()[1];
+				if (childNode.getChildren().size() <= 0)
+					continue;
+				int[] colors = new int[childNode.getChildren().size()];
+				int count = 0;
+				for (Node colorNode : childNode.getChildren()) {
+					int[] values = ((ImageArtifactData) colorNode.getArtifact().getData()).getValues();
+					colors[count++] = (values[3] & 0x000000ff) | ((values[2] << 8) & 0x0000ff00) | ((values[1] << 16) & 0x00ff0000) | ((values[0] << 24) & 0xff000000);
+				}
+				argb[y * width + x] = blend(colors, count, backgroundColor, enableBlending);
+			}
 		}
 
-		BufferedImage outputImage = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
-		// TODO: include image metadata in artifacts, like type or color model
+		return argb;
+	}
 
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				outputImage.setRGB(i, j, defaultColor);
+	/**
+	 * Draws the pixels children of a tile node at the given offset. A tile without pixels children keeps the background color. If variants differ in a tile it has several pixels children,
+	 * which are blended pixel by pixel, so pixels on which the variants agree are not affected.
+	 */
+	private static void drawTile(int[] argb, int width, int height, Node tileNode, int offsetX, int offsetY, int backgroundColor, boolean enableBlending) {
+		ImageArtifactData tileArtifact = (ImageArtifactData) tileNode.getArtifact().getData();
+		int tileWidth = tileArtifact.getValues()[2];
+		int tileHeight = tileArtifact.getValues()[3];
+
+		List<int[]> pixels = new ArrayList<>();
+		for (Node pixelsNode : tileNode.getChildren()) {
+			ImageArtifactData pixelsArtifact = (ImageArtifactData) pixelsNode.getArtifact().getData();
+			if (ImageReader.TYPE_PIXELS.equals(pixelsArtifact.getType()) && pixelsArtifact.getValues().length == tileWidth * tileHeight)
+				pixels.add(pixelsArtifact.getValues());
+		}
+		if (pixels.isEmpty())
+			return;
+
+		int[] colors = new int[pixels.size()];
+		for (int j = 0; j < tileHeight && offsetY + j < height; j++) {
+			for (int i = 0; i < tileWidth && offsetX + i < width; i++) {
+				for (int k = 0; k < colors.length; k++)
+					colors[k] = pixels.get(k)[j * tileWidth + i];
+				argb[(offsetY + j) * width + offsetX + i] = blend(colors, colors.length, backgroundColor, enableBlending);
 			}
 		}
+	}
 
-		for (Node posNode : imageNode.getChildren()) {
-			ImageArtifactData posArtifact = (ImageArtifactData) posNode.getArtifact().getData();
-			int x = posArtifact.getValues()[0];
-			int y = posArtifact.getValues()[1];
-
-			int color = 0;
-			if (posNode.getChildren().size() <= 0) {
-				//System.out.println("There is no color for pos (" + x + ", " + y + ").");
-				// color = 0;
-				color = defaultColor;
-			} else {
-				if (posNode.getChildren().size() > 1) {
-					//System.out.println("There is more than one color for pos (" + x + ", " + y + "). Picking the first one.");
-				}
-
-				int alpha = 0;
-				int red = 0;
-				int green = 0;
-				int blue = 0;
-
-				int relevantChildren = 0;
-				for (Node colorNode : posNode.getChildren()) {
-					ImageArtifactData colorArtifact = (ImageArtifactData) colorNode.getArtifact().getData();
-					int pixelColor = (colorArtifact.getValues()[3] & 0x000000ff) | ((colorArtifact.getValues()[2] << 8) & 0x0000ff00) | ((colorArtifact.getValues()[1] << 16) & 0x00ff0000) | ((colorArtifact.getValues()[0] << 24) & 0xff000000);
-
-					// TODO: store the actual background color of the image as image metadata nodes in the artifact tree and make use of it here!
-					if (backgroundColor != pixelColor) {
-						relevantChildren++;
-
-						alpha += colorArtifact.getValues()[0];
-						red += colorArtifact.getValues()[1];
-						green += colorArtifact.getValues()[2];
-						blue += colorArtifact.getValues()[3];
-					}
-
-					if (!enableBlending)
-						break;
-				}
+	/**
+	 * Blends the given colors channel by channel, ignoring colors equal to the background color. Without blending only the first color is considered.
+	 */
+	private static int blend(int[] colors, int count, int backgroundColor, boolean enableBlending) {
+		int alpha = 0;
+		int red = 0;
+		int green = 0;
+		int blue = 0;
+
+		int relevantChildren = 0;
+		for (int k = 0; k < count; k++) {
+			int pixelColor = colors[k];
+
+			// TODO: store the actual background color of the image as image metadata nodes in the artifact tree and make use of it here!
+			if (backgroundColor != pixelColor) {
+				relevantChildren++;
+
+				alpha += (pixelColor >>> 24) & 0xff;
+				red += (pixelColor >> 16) & 0xff;
+				green += (pixelColor >> 8) & 0xff;
+				blue += pixelColor & 0xff;
+			}
 
-				if (enableBlending && relevantChildren > 0) {
-					alpha = alpha / relevantChildren;
-					red = red / relevantChildren;
-					green = green / relevantChildren;
-					blue = blue / relevantChildren;
-				}
+			if (!enableBlending)
+				break;
+		}
 
-				color = 0;
-				color = (blue & 0x000000ff) | ((green << 8) & 0x0000ff00) | ((red << 16) & 0x00ff0000) | ((alpha << 24) & 0xff000000);
-			}
-			outputImage.setRGB(x, y, color);
+		if (enableBlending && relevantChildren > 0) {
+			alpha = alpha / relevantChildren;
+			red = red / relevantChildren;
+			green = green / relevantChildren;
+			blue = blue / relevantChildren;
 		}
 
-		return outputImage;
+		return (blue & 0x000000ff) | ((green << 8) & 0x0000ff00) | ((red << 16) & 0x00ff0000) | ((alpha << 24) & 0xff000000);
 	}
 
 }
@@ -68,6 +68,10 @@ public class ImageViewer extends BorderPane implements ArtifactViewer {
 				this.setCenter(null);
 				int[] colors = imageArtifactData.getValues();
 				this.setBackground(new Background(new BackgroundFill(new Color(colors[1] / 255.0, colors[2] / 255.0, colors[3] / 255.0, colors[0] / 255.0), null, null)));
+			} else if (imageArtifactData.getType().equals(ImageReader.TYPE_TILE)) {
+				this.setTop(null);
+				this.setCenter(new ImageView(ImageUtil.createTileImage(node, 0x00ffffff, true)));
+				this.setBackground(Background.EMPTY);
 			}
 		}
 	}
@@ -1,5 +1,6 @@
 package at.jku.isse.ecco.adapter.java;
 
+import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.adapter.ArtifactReader;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.dao.EntityFactory;
@@ -13,9 +14,15 @@ import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.FileASTRequestor;
 import org.eclipse.jdt.core.dom.IBinding;
 
+import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 public class JavaReader implements ArtifactReader<Path, Set<Node.Op>> {
@@ -40,24 +47,134 @@ public class JavaReader implements ArtifactReader<Path, Set<Node.Op>> {
         prioritizedPatterns.put(Integer.MAX_VALUE, new String[]{"**.java"});
     }
 
+    /**
+     * Default number of source files parsed by one parser instance.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 250;
+
+    private boolean resolveBindings = true;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public boolean isResolveBindings() {
+        return resolveBindings;
+    }
+
+    /**
+     * Sets whether bindings are resolved. Without bindings parsing is considerably faster, but no uses references are created between artifacts.
+     *
+     * @param resolveBindings True if bindings should be resolved.
+     */
+    public void setResolveBindings(boolean resolveBindings) {
+        this.resolveBindings = resolveBindings;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new EccoException("Batch size must be at least 1.");
+        this.batchSize = batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of batches that are parsed concurrently, each by its own parser instance.
+     *
+     * @param parallelism The maximum number of concurrently parsed batches.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new EccoException("Parallelism must be at least 1.");
+        this.parallelism = parallelism;
+    }
+
     @Override
     public Set<Node.Op> read(final Path base, Path[] input) {
-        Consumer<FileASTRequestor> fileASTRequestorConsumer = createNewParser(base, input);
+        final List<Path[]> batches = new ArrayList<>();
+        for (int i = 0; i < input.length; i += batchSize)
+            batches.add(Arrays.copyOfRange(input, i, Math.min(i + batchSize, input.length)));
+
+        final List<JDTFileAstRequestor> fileAstRequestors = parseBatches(base, batches);
+
+        resolveReferences(fileAstRequestors);
+
+        final Set<Node.Op> nodes = new LinkedHashSet<>();
+        for (JDTFileAstRequestor fileAstRequestor : fileAstRequestors)
+            nodes.addAll(fileAstRequestor.getNodes());
+        return nodes;
+    }
+
+    private JDTFileAstRequestor parseBatch(final Path base, Path[] batch) {
+        Consumer<FileASTRequestor> fileASTRequestorConsumer = createNewParser(base, batch);
         JDTFileAstRequestor fileAstRequestor = new JDTFileAstRequestor(entityFactory, base);
 
         fileASTRequestorConsumer.accept(fileAstRequestor);
 
-        resolveReferences(fileAstRequestor);
-        return fileAstRequestor.getNodes();
+        return fileAstRequestor;
     }
 
-    private void resolveReferences(JDTFileAstRequestor fileAstRequestor) {
-        final List<JDTFileAstRequestor.Pair> referencing = fileAstRequestor.getReferencing();
-        final Map<IBinding, Artifact.Op<JavaTreeArtifactData>> referenced = fileAstRequestor.getReferenced();
-        for (JDTFileAstRequestor.Pair pair : referencing) {
-            final Artifact.Op<JavaTreeArtifactData> reference = referenced.get(pair.getBinding());
-            if (reference != null) {
-                pair.getArtifact().addUses(reference);
+    /**
+     * Parses the given batches, concurrently if the parallelism allows it. The requestors are returned in the order of the batches.
+     */
+    private List<JDTFileAstRequestor> parseBatches(final Path base, List<Path[]> batches) {
+        final List<JDTFileAstRequestor> fileAstRequestors = new ArrayList<>(batches.size());
+        if (parallelism <= 1 || batches.size() <= 1) {
+            for (Path[] batch : batches)
+                fileAstRequestors.add(parseBatch(base, batch));
+            return fileAstRequestors;
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, batches.size()));
+        try {
+            List<Future<JDTFileAstRequestor>> futures = new ArrayList<>(batches.size());
+            for (Path[] batch : batches)
+                futures.add(executorService.submit(() -> parseBatch(base, batch)));
+            for (Future<JDTFileAstRequestor> future : futures)
+                fileAstRequestors.add(future.get());
+            return fileAstRequestors;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EccoException("Interrupted while parsing java files.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EccoException)
+                throw (EccoException) e.getCause();
+            throw new EccoException("Error parsing java files.", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Adds the uses references. Every batch has its own binding environment, so a binding is first looked up by identity in its own batch and otherwise by its key in all batches.
+     */
+    private void resolveReferences(List<JDTFileAstRequestor> fileAstRequestors) {
+        final Map<String, Artifact.Op<JavaTreeArtifactData>> referencedByKey = new HashMap<>();
+        if (fileAstRequestors.size() > 1) {
+            for (JDTFileAstRequestor fileAstRequestor : fileAstRequestors) {
+                for (Map.Entry<IBinding, Artifact.Op<JavaTreeArtifactData>> entry : fileAstRequestor.getReferenced().entrySet()) {
+                    final String key = entry.getKey().getKey();
+                    if (key != null)
+                        referencedByKey.putIfAbsent(key, entry.getValue());
+                }
+            }
+        }
+
+        for (JDTFileAstRequestor fileAstRequestor : fileAstRequestors) {
+            final List<JDTFileAstRequestor.Pair> referencing = fileAstRequestor.getReferencing();
+            final Map<IBinding, Artifact.Op<JavaTreeArtifactData>> referenced = fileAstRequestor.getReferenced();
+            for (JDTFileAstRequestor.Pair pair : referencing) {
+                Artifact.Op<JavaTreeArtifactData> reference = referenced.get(pair.getBinding());
+                if (reference == null && pair.getBinding() != null && pair.getBinding().getKey() != null)
+                    reference = referencedByKey.get(pair.getBinding().getKey());
+                if (reference != null) {
+                    pair.getArtifact().addUses(reference);
+                }
             }
         }
     }
@@ -84,31 +201,51 @@ public class JavaReader implements ArtifactReader<Path, Set<Node.Op>> {
     public static final String MAXIMUM_SUPPORTED_JAVA_VERSION = JavaCore.VERSION_1_8;
     public static final int AST_VERSION = AST.JLS9;
 
+    private static String[] classpathEntries;
+    private static Map<String, String> compilerOptions;
+
+    /**
+     * Returns the classpath entries of the binding environment. They are computed once and shared by all parsers and commits.
+     */
+    private static synchronized String[] getClasspathEntries() {
+        if (classpathEntries == null) {
+            classpathEntries = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                    .filter(entry -> !entry.isEmpty() && Files.exists(Paths.get(entry)))
+                    .toArray(String[]::new);
+        }
+        return classpathEntries;
+    }
+
+    private static synchronized Map<String, String> getCompilerOptions() {
+        if (compilerOptions == null) {
+            final Hashtable<String, String> options = JavaCore.getOptions();
+            options.put(JavaCore.COMPILER_COMPLIANCE, MAXIMUM_SUPPORTED_JAVA_VERSION);
+            options.put(JavaCore.COMPILER_SOURCE, MAXIMUM_SUPPORTED_JAVA_VERSION);
+            options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, MAXIMUM_SUPPORTED_JAVA_VERSION);
+            compilerOptions = Collections.unmodifiableMap(options);
+        }
+        return compilerOptions;
+    }
+
     public Consumer<FileASTRequestor> createNewParser(Path sourceFolderPath, Path[] sourceFiles) {
         String sourceFolder = sourceFolderPath.toString();
-        String[] classpath = new String[]{System.getProperty("java.class.path")};
 
         final ASTParser parser = ASTParser.newParser(AST_VERSION);
         //Configure parser
-        parser.setEnvironment(classpath, new String[]{sourceFolder}, new String[]{"UTF-8"}, true);
+        parser.setEnvironment(getClasspathEntries(), new String[]{sourceFolder}, new String[]{"UTF-8"}, true);
 
-        parser.setResolveBindings(true);
+        parser.setResolveBindings(resolveBindings);
         parser.setStatementsRecovery(true);
-        parser.setBindingsRecovery(true);
+        parser.setBindingsRecovery(resolveBindings);
 
         parser.setKind(ASTParser.K_COMPILATION_UNIT); // Always parse whole java files
 
-        final Hashtable<String, String> options = JavaCore.getOptions();
-        options.put(JavaCore.COMPILER_COMPLIANCE, MAXIMUM_SUPPORTED_JAVA_VERSION);
-        options.put(JavaCore.COMPILER_SOURCE, MAXIMUM_SUPPORTED_JAVA_VERSION);
-        options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, MAXIMUM_SUPPORTED_JAVA_VERSION);
+        parser.setCompilerOptions(new Hashtable<>(getCompilerOptions()));
 
-        parser.setCompilerOptions(options);
-
-        final String[] bindingKeys = Arrays.stream(sourceFiles)
+        final String[] bindingKeys = resolveBindings ? Arrays.stream(sourceFiles)
                 .map(Object::toString)
                 .map(BindingKey::createTypeBindingKey)
-                .toArray(String[]::new);
+                .toArray(String[]::new) : new String[0];
 
         sourceFolderPath = sourceFolderPath.toAbsolutePath();
 
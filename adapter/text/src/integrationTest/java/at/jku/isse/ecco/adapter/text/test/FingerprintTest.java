@@ -0,0 +1,32 @@
+package at.jku.isse.ecco.adapter.text.test;
+
+import at.jku.isse.ecco.adapter.text.LineBlockArtifactData;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.repository.Fingerprints;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+public class FingerprintTest {
+
+	@Test(groups = {"integration", "text"})
+	public void Fingerprint_Line_Block() {
+		// the blocks have the same string representation (first line and number of lines), but differ in a middle line
+		String fingerprint1 = fingerprint(new LineBlockArtifactData(new String[]{"first", "middle", "last"}));
+		String fingerprint2 = fingerprint(new LineBlockArtifactData(new String[]{"first", "changed", "last"}));
+
+		Assert.assertEquals(fingerprint(new LineBlockArtifactData(new String[]{"first", "middle", "last"})), fingerprint1);
+		Assert.assertNotEquals(fingerprint2, fingerprint1);
+	}
+
+	private static String fingerprint(LineBlockArtifactData data) {
+		MemEntityFactory entityFactory = new MemEntityFactory();
+		Node.Op node = entityFactory.createNode(data);
+		Association.Op association = entityFactory.createAssociation(Collections.singleton(node));
+		return Fingerprints.of(association);
+	}
+
+}
@@ -0,0 +1,138 @@
+package at.jku.isse.ecco.adapter.text.test;
+
+import at.jku.isse.ecco.adapter.dispatch.DispatchReader;
+import at.jku.isse.ecco.adapter.text.TextBlockPlugin;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.service.EccoService;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares commit time and memory of the line based text adapter (.txt files) with the block based text adapter (.log files) on large generated files with three variants.
+ * The line based adapter is only run on the small file, as aligning the partial order graphs of 10k or more line nodes does not finish in reasonable time and memory.
+ * The line based run and the large file are only in the benchmark group, which is not part of the integration test suite, as they take too long for it.
+ */
+public class TextBlockBenchmarkTest {
+
+	private static final Logger LOGGER = Logger.getLogger(TextBlockBenchmarkTest.class.getName());
+
+	private Path tempDir;
+
+	@BeforeMethod(alwaysRun = true)
+	public void setUp() throws IOException {
+		this.tempDir = Files.createTempDirectory("ecco-text-benchmark");
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void tearDown() throws IOException {
+		MoreFiles.deleteRecursively(this.tempDir, RecursiveDeleteOption.ALLOW_INSECURE);
+	}
+
+	@Test(groups = {"benchmark"})
+	public void Text_Line_Mode_2k_Benchmark() throws IOException {
+		this.benchmark("file.txt", 2000);
+	}
+
+	@Test(groups = {"integration", "text"})
+	public void Text_Block_Mode_2k_Benchmark() throws IOException {
+		this.benchmark("file.log", 2000);
+	}
+
+	@Test(groups = {"benchmark"})
+	public void Text_Block_Mode_100k_Benchmark() throws IOException {
+		this.benchmark("file.log", 100000);
+	}
+
+	private void benchmark(String fileName, int lines) throws IOException {
+		List<List<String>> variants = createVariants(lines);
+		Path repositoryDir = this.tempDir.resolve("repo");
+
+		EccoService service = new EccoService(this.tempDir, repositoryDir);
+		service.init();
+		service.close();
+
+		// block mode is opt-in, map .log files to the block plugin before all default patterns
+		Path adaptersFile = repositoryDir.resolve(DispatchReader.ADAPTERS_FILE_NAME);
+		List<String> adapterMappings = new ArrayList<>();
+		adapterMappings.add(TextBlockPlugin.class.getName() + ";**.log");
+		adapterMappings.addAll(Files.readAllLines(adaptersFile));
+		Files.write(adaptersFile, adapterMappings);
+		service.open();
+
+		System.gc();
+		long memoryBefore = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < variants.size(); i++) {
+			Path variantDir = Files.createDirectories(this.tempDir.resolve("V" + i));
+			Files.write(variantDir.resolve(fileName), variants.get(i));
+			service.setBaseDir(variantDir);
+			service.commit("V" + i, "f" + i + ".1");
+		}
+		long commitTime = System.currentTimeMillis() - start;
+		System.gc();
+		long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+
+		int artifacts = 0;
+		for (Association association : service.getRepository().getAssociations()) {
+			artifacts += association.getRootNode().countArtifacts();
+		}
+
+		LOGGER.info(fileName + ": " + lines + " lines, " + variants.size() + " variants, " + artifacts + " artifacts, commit time " + commitTime + "ms, retained memory " + (memoryAfter - memoryBefore) / (1024 * 1024) + "MB");
+
+		// every line is an artifact in line mode, blocks hold 32 lines on average and are only split around the differences in block mode
+		if (fileName.endsWith(".log"))
+			Assert.assertTrue(artifacts < lines / 4, "too many artifacts in block mode: " + artifacts);
+		else
+			Assert.assertTrue(artifacts >= lines, "too few artifacts in line mode: " + artifacts);
+
+		// check that every variant is checked out unchanged
+		for (int i = 0; i < variants.size(); i++) {
+			Path checkoutDir = Files.createDirectories(this.tempDir.resolve("C" + i));
+			service.setBaseDir(checkoutDir);
+			service.checkout("f" + i + ".1");
+			Assert.assertEquals(Files.readAllLines(checkoutDir.resolve(fileName)), variants.get(i));
+		}
+
+		service.close();
+	}
+
+	/**
+	 * Creates three variants of a generated file: the original, one with inserted lines and one with removed lines.
+	 */
+	private static List<List<String>> createVariants(int lines) {
+		Random random = new Random(42);
+		List<String> base = new ArrayList<>(lines);
+		for (int i = 0; i < lines; i++) {
+			base.add("line " + i + " value " + random.nextInt(1000));
+		}
+
+		List<String> inserted = new ArrayList<>(base);
+		for (int i = 0; i < 20; i++) {
+			inserted.add(random.nextInt(inserted.size()), "inserted line " + i);
+		}
+
+		List<String> removed = new ArrayList<>(base);
+		for (int i = 0; i < 20; i++) {
+			removed.remove(random.nextInt(removed.size()));
+		}
+
+		List<List<String>> variants = new ArrayList<>();
+		variants.add(base);
+		variants.add(inserted);
+		variants.add(removed);
+		return variants;
+	}
+
+}
@@ -0,0 +1,55 @@
+package at.jku.isse.ecco.adapter.text;
+
+import at.jku.isse.ecco.artifact.ArtifactData;
+
+import java.util.Arrays;
+
+/**
+ * A block of consecutive lines. Used instead of one {@link LineArtifactData} per line for large text files, see {@link TextBlockReader}.
+ */
+public class LineBlockArtifactData implements ArtifactData {
+
+	private String[] lines;
+
+	private transient int hash;
+
+	public LineBlockArtifactData(String[] lines) {
+		this.lines = lines;
+		this.hash = Arrays.hashCode(lines);
+	}
+
+	public String[] getLines() {
+		return this.lines;
+	}
+
+	public int getLineCount() {
+		return this.lines.length;
+	}
+
+	@Override
+	public String toString() {
+		if (this.lines.length == 0)
+			return "";
+		return this.lines[0] + (this.lines.length > 1 ? " [+" + (this.lines.length - 1) + " lines]" : "");
+	}
+
+	@Override
+	public int hashCode() {
+		if (this.hash == 0 && this.lines.length > 0)
+			this.hash = Arrays.hashCode(this.lines);
+		return this.hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		LineBlockArtifactData other = (LineBlockArtifactData) obj;
+		return this.hashCode() == other.hashCode() && Arrays.equals(this.lines, other.lines);
+	}
+
+}
@@ -0,0 +1,13 @@
+package at.jku.isse.ecco.adapter.text;
+
+/**
+ * Writer for text files read by the {@link TextBlockReader}.
+ */
+public class TextBlockFileWriter extends TextFileWriter {
+
+	@Override
+	public String getPluginId() {
+		return TextBlockPlugin.class.getName();
+	}
+
+}
@@ -0,0 +1,34 @@
+package at.jku.isse.ecco.adapter.text;
+
+import at.jku.isse.ecco.adapter.ArtifactReader;
+import at.jku.isse.ecco.adapter.ArtifactViewer;
+import at.jku.isse.ecco.adapter.ArtifactWriter;
+import at.jku.isse.ecco.tree.Node;
+import com.google.inject.AbstractModule;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+public class TextBlockModule extends AbstractModule {
+
+	@Override
+	protected void configure() {
+		final Multibinder<ArtifactReader<Path, Set<Node.Op>>> readerMultibinder = Multibinder.newSetBinder(binder(),
+				new TypeLiteral<ArtifactReader<Path, Set<Node.Op>>>() {
+				});
+		readerMultibinder.addBinding().to(TextBlockReader.class);
+
+		final Multibinder<ArtifactWriter<Set<Node>, Path>> writerMultibinder = Multibinder.newSetBinder(binder(),
+				new TypeLiteral<ArtifactWriter<Set<Node>, Path>>() {
+				});
+		writerMultibinder.addBinding().to(TextBlockFileWriter.class);
+
+		final Multibinder<ArtifactViewer> viewerMultibinder = Multibinder.newSetBinder(binder(),
+				new TypeLiteral<ArtifactViewer>() {
+				});
+		viewerMultibinder.addBinding().to(TextBlockViewer.class);
+	}
+
+}
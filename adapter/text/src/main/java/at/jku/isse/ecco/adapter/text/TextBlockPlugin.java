@@ -0,0 +1,33 @@
+package at.jku.isse.ecco.adapter.text;
+
+import at.jku.isse.ecco.adapter.ArtifactPlugin;
+import com.google.inject.Module;
+
+/**
+ * Plugin for large text files that are stored as blocks of lines instead of individual lines. See {@link TextBlockReader}.
+ */
+public class TextBlockPlugin extends ArtifactPlugin {
+
+	private TextBlockModule module = new TextBlockModule();
+
+	@Override
+	public String getPluginId() {
+		return TextBlockPlugin.class.getName();
+	}
+
+	@Override
+	public Module getModule() {
+		return this.module;
+	}
+
+	@Override
+	public String getName() {
+		return "TextBlockArtifactPlugin";
+	}
+
+	@Override
+	public String getDescription() {
+		return "Text Block Artifact Plugin";
+	}
+
+}
@@ -0,0 +1,154 @@
+package at.jku.isse.ecco.adapter.text;
+
+import at.jku.isse.ecco.adapter.ArtifactReader;
+import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.service.listener.ReadListener;
+import at.jku.isse.ecco.tree.Node;
+import com.google.inject.Inject;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reader for large text files that groups consecutive lines into blocks instead of creating one node per line.
+ * <p>
+ * Block boundaries are content defined: a block ends after a line whose (mixed) hash has its lowest bits set to zero, or when it reaches the maximum block size.
+ * Therefore, runs of lines that are identical in different variants result in identical blocks, and a change only splits the blocks around it.
+ * The line range of every block is stored in the {@link TextReader#PROPERTY_LINE_START} and {@link TextReader#PROPERTY_LINE_END} properties of its node.
+ * <p>
+ * The block size parameters must not be changed for an existing repository, as this would change all block boundaries.
+ */
+public class TextBlockReader implements ArtifactReader<Path, Set<Node.Op>> {
+
+	/**
+	 * Mask for the lowest bits of the line hash that must be zero for a line to end a block. Results in blocks of 32 lines on average.
+	 */
+	public static final int BOUNDARY_MASK = 0x1f;
+
+	/**
+	 * The maximum number of lines in a block.
+	 */
+	public static final int MAX_BLOCK_SIZE = 256;
+
+	private final EntityFactory entityFactory;
+
+	@Inject
+	public TextBlockReader(EntityFactory entityFactory) {
+		checkNotNull(entityFactory);
+
+		this.entityFactory = entityFactory;
+	}
+
+	@Override
+	public String getPluginId() {
+		return TextBlockPlugin.class.getName();
+	}
+
+	/**
+	 * Block mode is opt-in: files are only read in blocks if they are mapped to the {@link TextBlockPlugin} in the adapters file of the repository.
+	 * Claiming files by default would switch existing files to a different plugin and store them as entirely new artifacts on their next commit.
+	 */
+	@Override
+	public Map<Integer, String[]> getPrioritizedPatterns() {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public Set<Node.Op> read(Path[] input) {
+		return this.read(Paths.get("."), input);
+	}
+
+	@Override
+	public Set<Node.Op> read(Path base, Path[] input) {
+		Set<Node.Op> nodes = new HashSet<>();
+		for (Path path : input) {
+			Path resolvedPath = base.resolve(path);
+			Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
+			Node.Op pluginNode = this.entityFactory.createOrderedNode(pluginArtifact);
+			nodes.add(pluginNode);
+
+			try {
+				this.read(new FileReader(resolvedPath.toFile()), pluginNode);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+		}
+		return nodes;
+	}
+
+
+	@Override
+	public Set<Node.Op> read(Path path, InputStream is) {
+		Set<Node.Op> nodes = new HashSet<>();
+		Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
+		Node.Op pluginNode = this.entityFactory.createOrderedNode(pluginArtifact);
+		nodes.add(pluginNode);
+
+		try {
+			this.read(new InputStreamReader(is), pluginNode);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return nodes;
+	}
+
+	private void read(Reader reader, Node.Op pluginNode) throws IOException {
+		try (BufferedReader br = new BufferedReader(reader)) {
+			List<String> block = new ArrayList<>();
+			String line;
+			int i = 0;
+			while ((line = br.readLine()) != null) {
+				i++;
+				block.add(line);
+				if (isBoundary(line) || block.size() >= MAX_BLOCK_SIZE) {
+					this.addBlock(pluginNode, block, i);
+					block.clear();
+				}
+			}
+			if (!block.isEmpty())
+				this.addBlock(pluginNode, block, i);
+		}
+	}
+
+	private void addBlock(Node.Op pluginNode, List<String> block, int lastLine) {
+		Artifact.Op<LineBlockArtifactData> blockArtifact = this.entityFactory.createArtifact(new LineBlockArtifactData(block.toArray(new String[0])));
+		Node.Op blockNode = this.entityFactory.createNode(blockArtifact);
+		blockNode.putProperty(TextReader.PROPERTY_LINE_START, lastLine - block.size() + 1);
+		blockNode.putProperty(TextReader.PROPERTY_LINE_END, lastLine);
+		pluginNode.addChild(blockNode);
+	}
+
+	/**
+	 * Returns true if the given line ends a block. The string hash is stable across JVMs and is mixed so that its low bits depend on all characters.
+	 */
+	static boolean isBoundary(String line) {
+		int h = line.hashCode() ^ 0x9e3779b9;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return (h & BOUNDARY_MASK) == 0;
+	}
+
+
+	private Collection<ReadListener> listeners = new ArrayList<>();
+
+	@Override
+	public void addListener(ReadListener listener) {
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public void removeListener(ReadListener listener) {
+		this.listeners.remove(listener);
+	}
+
+}
@@ -0,0 +1,13 @@
+package at.jku.isse.ecco.adapter.text;
+
+/**
+ * Viewer for text files read by the {@link TextBlockReader}.
+ */
+public class TextBlockViewer extends TextViewer {
+
+	@Override
+	public String getPluginId() {
+		return TextBlockPlugin.class.getName();
+	}
+
+}
@@ -1,7 +1,7 @@
 package at.jku.isse.ecco.adapter.text;
 
 import at.jku.isse.ecco.EccoException;
-import at.jku.isse.ecco.adapter.ArtifactWriter;
+import at.jku.isse.ecco.adapter.StreamArtifactWriter;
 import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.artifact.ArtifactData;
@@ -10,6 +10,9 @@ import at.jku.isse.ecco.tree.Node;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -18,7 +21,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
-public class TextFileWriter implements ArtifactWriter<Set<Node>, Path> {
+public class TextFileWriter implements StreamArtifactWriter {
 
 	@Override
 	public String getPluginId() {
@@ -44,13 +47,8 @@ public class TextFileWriter implements ArtifactWriter<Set<Node>, Path> {
 			Path outputPath = base.resolve(pluginArtifactData.getPath());
 			output.add(outputPath);
 
-			try (BufferedWriter bw = Files.newBufferedWriter(outputPath)) {
-				for (Node lineNode : fileNode.getChildren()) {
-					LineArtifactData lineArtifactData = (LineArtifactData) lineNode.getArtifact().getData();
-
-					bw.write(lineArtifactData.getLine());
-					bw.newLine();
-				}
+			try (OutputStream os = Files.newOutputStream(outputPath)) {
+				this.write(fileNode, os);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -59,6 +57,24 @@ public class TextFileWriter implements ArtifactWriter<Set<Node>, Path> {
 		return output.toArray(new Path[0]);
 	}
 
+	@Override
+	public void write(Node fileNode, OutputStream outputStream) throws IOException {
+		BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		for (Node lineNode : fileNode.getChildren()) {
+			ArtifactData lineData = lineNode.getArtifact().getData();
+			if (lineData instanceof LineBlockArtifactData) {
+				for (String line : ((LineBlockArtifactData) lineData).getLines()) {
+					bw.write(line);
+					bw.newLine();
+				}
+			} else {
+				bw.write(((LineArtifactData) lineData).getLine());
+				bw.newLine();
+			}
+		}
+		bw.flush();
+	}
+
 	private Collection<WriteListener> listeners = new ArrayList<>();
 
 	@Override
@@ -1,6 +1,7 @@
 package at.jku.isse.ecco.adapter.text;
 
 import at.jku.isse.ecco.adapter.ArtifactWriter;
+import at.jku.isse.ecco.artifact.ArtifactData;
 import at.jku.isse.ecco.service.listener.WriteListener;
 import at.jku.isse.ecco.tree.Node;
 
@@ -29,10 +30,16 @@ public class TextStringWriter implements ArtifactWriter<Set<Node>, String> {
 		for (Node fileNode : input) {
 			StringBuilder sb = new StringBuilder();
 			for (Node lineNode : fileNode.getChildren()) {
-				LineArtifactData lineArtifactData = (LineArtifactData) lineNode.getArtifact().getData();
-
-				sb.append(lineArtifactData.getLine());
-				sb.append("\n");
+				ArtifactData lineData = lineNode.getArtifact().getData();
+				if (lineData instanceof LineBlockArtifactData) {
+					for (String line : ((LineBlockArtifactData) lineData).getLines()) {
+						sb.append(line);
+						sb.append("\n");
+					}
+				} else {
+					sb.append(((LineArtifactData) lineData).getLine());
+					sb.append("\n");
+				}
 			}
 			output.add(sb.toString());
 		}
@@ -67,6 +67,16 @@ public class TextViewer extends BorderPane implements ArtifactViewer {
 			textField.prefWidthProperty().bind(this.widthProperty());
 			textField.prefHeightProperty().bind(this.heightProperty());
 
+			this.setCenter(textField);
+		} else if (node.getArtifact().getData() instanceof LineBlockArtifactData) {
+			LineBlockArtifactData lineBlockArtifactData = (LineBlockArtifactData) node.getArtifact().getData();
+
+			TextArea textField = new TextArea();
+			textField.setText(String.join("\n", lineBlockArtifactData.getLines()));
+			textField.setEditable(false);
+			textField.prefWidthProperty().bind(this.widthProperty());
+			textField.prefHeightProperty().bind(this.heightProperty());
+
 			this.setCenter(textField);
 		}
 	}
@@ -18,6 +18,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 
 public class EccoUtil {
 
@@ -51,14 +52,51 @@ public class EccoUtil {
 	 * @return The copied tree.
 	 */
 	public static Node.Op deepCopyTree(Node.Op node, EntityFactory entityFactory) {
-		Node.Op node2 = EccoUtil.deepCopyTreeRec(node, entityFactory);
+		Node.Op node2 = EccoUtil.deepCopyTreeRec(node, entityFactory, null);
 
 		Trees.updateArtifactReferences(node2);
 
 		return node2;
 	}
 
-	private static Node.Op deepCopyTreeRec(Node.Op node, EntityFactory entityFactory) {
+	/**
+	 * Creates a deep copy of a tree like {@link #deepCopyTree(Node.Op, EntityFactory)}, but records the copied artifacts in the given map instead of setting them as replacing artifacts of the original artifacts.
+	 * This way the original tree is not changed at all (e.g. because it is shared with other threads). Trees whose artifacts reference each other must be copied using the same map.
+	 *
+	 * @param node          The tree to copy.
+	 * @param entityFactory The entity factory to use for creating tree nodes and other necessary objects for the copied tree.
+	 * @param copies        The copies (value) of the original artifacts (key) that were created so far. Should be an identity map.
+	 * @return The copied tree.
+	 */
+	public static Node.Op deepCopyTree(Node.Op node, EntityFactory entityFactory, Map<Artifact.Op<?>, Artifact.Op<?>> copies) {
+		Node.Op node2 = EccoUtil.deepCopyTreeRec(node, entityFactory, copies);
+
+		// sequence graphs were copied with the original artifacts as symbols
+		node2.traverse((Node.Op copiedNode) -> {
+			if (copiedNode.getArtifact() != null && copiedNode.getArtifact().getPartialOrderGraph() != null) {
+				for (PartialOrderGraph.Node.Op sequenceGraphNode : copiedNode.getArtifact().getPartialOrderGraph().collectNodes()) {
+					Artifact.Op<?> copy = sequenceGraphNode.getArtifact() != null ? copies.get(sequenceGraphNode.getArtifact()) : null;
+					if (copy != null) {
+						copy.setSequenceNumber(sequenceGraphNode.getArtifact().getSequenceNumber());
+						sequenceGraphNode.setArtifact(copy);
+					}
+				}
+			}
+		});
+
+		Trees.updateArtifactReferences(node2);
+
+		return node2;
+	}
+
+	/**
+	 * Returns the copy of the given artifact, which is either recorded in the given map or, if there is no map, set as replacing artifact of the given artifact.
+	 */
+	private static Artifact.Op<?> getCopy(Artifact.Op<?> artifact, Map<Artifact.Op<?>, Artifact.Op<?>> copies) {
+		return copies == null ? artifact.getReplacingArtifact() : copies.get(artifact);
+	}
+
+	private static Node.Op deepCopyTreeRec(Node.Op node, EntityFactory entityFactory, Map<Artifact.Op<?>, Artifact.Op<?>> copies) {
 		Node.Op node2 = entityFactory.createNode();
 
 		node2.setUnique(node.isUnique());
@@ -68,14 +106,17 @@ public class EccoUtil {
 			Artifact.Op<?> artifact2;
 
 			boolean firstMatch = false;
-			if (artifact.hasReplacingArtifact()) {
-				artifact2 = artifact.getReplacingArtifact();
+			if (getCopy(artifact, copies) != null) {
+				artifact2 = getCopy(artifact, copies);
 				while (artifact2.hasReplacingArtifact()) {
 					artifact2 = artifact2.getReplacingArtifact();
 				}
 			} else {
 				artifact2 = entityFactory.createArtifact(artifact.getData());
-				artifact.setReplacingArtifact(artifact2);
+				if (copies == null)
+					artifact.setReplacingArtifact(artifact2);
+				else
+					copies.put(artifact, artifact2);
 				firstMatch = true;
 			}
 
@@ -109,15 +150,15 @@ public class EccoUtil {
 //				ArtifactReference artifactReference2 = entityFactory.createArtifactReference(artifact2, artifactReference.getTarget(), artifactReference.getType());
 //				artifact2.addUses(artifactReference2);
 
-					if (artifactReference.getTarget().hasReplacingArtifact())
-						artifact2.addUses(artifactReference.getTarget().getReplacingArtifact(), artifactReference.getType());
+					if (getCopy(artifactReference.getTarget(), copies) != null)
+						artifact2.addUses(getCopy(artifactReference.getTarget(), copies), artifactReference.getType());
 				}
 				for (ArtifactReference.Op artifactReference : artifact.getUsedBy()) {
 //				ArtifactReference artifactReference2 = entityFactory.createArtifactReference(artifactReference.getSource(), artifact2, artifactReference.getType());
 //				artifact2.addUsedBy(artifactReference2);
 
-					if (artifactReference.getSource().hasReplacingArtifact())
-						artifactReference.getSource().getReplacingArtifact().addUses(artifact2, artifactReference.getType());
+					if (getCopy(artifactReference.getSource(), copies) != null)
+						getCopy(artifactReference.getSource(), copies).addUses(artifact2, artifactReference.getType());
 				}
 			}
 
@@ -126,7 +167,7 @@ public class EccoUtil {
 		}
 
 		for (Node.Op childNode : node.getChildren()) {
-			Node.Op childNode2 = EccoUtil.deepCopyTreeRec(childNode, entityFactory);
+			Node.Op childNode2 = EccoUtil.deepCopyTreeRec(childNode, entityFactory, copies);
 			node2.addChild(childNode2);
 			//childNode2.setParent(node2); // not necessary
 		}
@@ -137,7 +178,7 @@ public class EccoUtil {
 
 	public static String getSHA(Path path) {
 		try {
-			MessageDigest complete = MessageDigest.getInstance("SHA1");
+			MessageDigest complete = EccoUtil.createSHADigest();
 
 			try (InputStream fis = Files.newInputStream(path)) {
 				byte[] buffer = new byte[1024];
@@ -149,11 +190,35 @@ public class EccoUtil {
 					}
 				}
 			}
-			BigInteger bi = new BigInteger(1, complete.digest());
-			return bi.toString(16);
-		} catch (IOException | NoSuchAlgorithmException e) {
+			return EccoUtil.getSHA(complete);
+		} catch (IOException e) {
 			throw new EccoException("Could not compute hash for " + path, e);
 		}
 	}
 
+	/**
+	 * Creates a new message digest for the hash algorithm used by {@link #getSHA(Path)}.
+	 * Bytes can be fed into it while they are being written (e.g. via a {@link java.security.DigestOutputStream}) instead of reading them back from disk later.
+	 *
+	 * @return The new message digest.
+	 */
+	public static MessageDigest createSHADigest() {
+		try {
+			return MessageDigest.getInstance("SHA1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new EccoException("Could not create message digest.", e);
+		}
+	}
+
+	/**
+	 * Completes the given digest and returns the hash in the same format as {@link #getSHA(Path)}.
+	 *
+	 * @param digest The digest created via {@link #createSHADigest()}.
+	 * @return The hash string.
+	 */
+	public static String getSHA(MessageDigest digest) {
+		BigInteger bi = new BigInteger(1, digest.digest());
+		return bi.toString(16);
+	}
+
 }
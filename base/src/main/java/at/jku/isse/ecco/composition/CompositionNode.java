@@ -0,0 +1,19 @@
+package at.jku.isse.ecco.composition;
+
+import at.jku.isse.ecco.tree.Node;
+
+import java.util.List;
+
+/**
+ * A node of a composed artifact tree that merges the equal nodes of the composed associations.
+ */
+public interface CompositionNode extends Node {
+
+	/**
+	 * Returns the nodes (from the composed associations) that were merged into this node.
+	 *
+	 * @return The original nodes.
+	 */
+	public List<Node> getOrigNodes();
+
+}
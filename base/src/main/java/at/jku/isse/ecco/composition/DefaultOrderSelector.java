@@ -2,6 +2,8 @@ package at.jku.isse.ecco.composition;
 
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.pog.PartialOrderGraph;
+import org.eclipse.collections.api.map.primitive.MutableObjectIntMap;
+import org.eclipse.collections.impl.factory.primitive.ObjectIntMaps;
 
 import java.util.*;
 
@@ -12,7 +14,8 @@ import static com.google.common.base.Preconditions.checkArgument;
  */
 public class DefaultOrderSelector implements OrderSelector {
 
-	private Collection<Artifact<?>> uncertainOrder = new ArrayList<>();
+	// synchronized because lazily composed nodes of different files may be activated concurrently (e.g. during a parallel checkout)
+	private Collection<Artifact<?>> uncertainOrder = Collections.synchronizedList(new ArrayList<>());
 
 	/**
 	 * Returns a collection of ordered artifacts for which multiple possible orders of children existed and an arbitrary one was selected.
@@ -39,12 +42,20 @@ public class DefaultOrderSelector implements OrderSelector {
 //		if (node.getArtifact() == null || !node.getArtifact().isOrdered() || !node.getArtifact().isSequenced() || node.getArtifact().getPartialOrderGraph() == null)
 //			return null;
 
-		List<at.jku.isse.ecco.tree.Node> orderedChildren = new ArrayList<>();
+		List<? extends at.jku.isse.ecco.tree.Node> children = node.getChildren();
+		List<at.jku.isse.ecco.tree.Node> orderedChildren = new ArrayList<>(children.size());
 		PartialOrderGraph graph = node.getArtifact().getPartialOrderGraph();
 		boolean uncertainOrder = false;
 
-		Map<PartialOrderGraph.Node, Integer> pogNodesCounter = new HashMap<>();
-		Stack<PartialOrderGraph.Node> stack = new Stack<>();
+		// index children by artifact (the first child wins like in a linear search)
+		Map<Artifact<?>, at.jku.isse.ecco.tree.Node> childrenByArtifact = new HashMap<>(children.size() * 4 / 3 + 1);
+		for (at.jku.isse.ecco.tree.Node childNode : children) {
+			childrenByArtifact.putIfAbsent(childNode.getArtifact(), childNode);
+		}
+
+		// number of processed parents per node
+		MutableObjectIntMap<PartialOrderGraph.Node> pogNodesCounter = ObjectIntMaps.mutable.empty();
+		Deque<PartialOrderGraph.Node> stack = new ArrayDeque<>();
 		stack.push(graph.getHead());
 
 		// for every node in start match state ...
@@ -56,24 +67,25 @@ public class DefaultOrderSelector implements OrderSelector {
 				uncertainOrder = true;
 
 			// check if node is in input
-			for (at.jku.isse.ecco.tree.Node childNode : node.getChildren()) {
-				if (childNode.getArtifact().equals(pogNode.getArtifact())) {
+			if (pogNode.getArtifact() != null) {
+				at.jku.isse.ecco.tree.Node childNode = childrenByArtifact.get(pogNode.getArtifact());
+				if (childNode != null) {
 					// add node to order
 					orderedChildren.add(childNode);
-					break;
 				}
 			}
 
 			// add children of current node to match state
 			for (PartialOrderGraph.Node child : pogNode.getNext()) {
-				pogNodesCounter.putIfAbsent(child, 0);
-				int counter = pogNodesCounter.computeIfPresent(child, (op, integer) -> integer + 1);
+				int counter = pogNodesCounter.getIfAbsent(child, 0) + 1;
 				// check if all parents of the node have been processed
 				if (counter >= child.getPrevious().size()) {
 					// remove node from counters
 					pogNodesCounter.remove(child);
 					// push node onto stack
 					stack.push(child);
+				} else {
+					pogNodesCounter.put(child, counter);
 				}
 			}
 		}
@@ -0,0 +1,162 @@
+package at.jku.isse.ecco.composition;
+
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.tree.Node;
+import org.eclipse.collections.impl.factory.Maps;
+
+import java.util.*;
+
+/**
+ * A node of an eagerly composed artifact tree (see {@link EagerCompositionRootNode}).
+ * In contrast to a {@link LazyCompositionNode} its children are computed during composition and cannot be changed afterwards, so the tree can be traversed by multiple threads.
+ */
+public class EagerCompositionNode implements CompositionNode {
+
+	private final List<Node> origNodes;
+
+	private boolean unique;
+
+	private final Artifact<?> artifact;
+
+	private final Node parent;
+
+	private List<Node> children;
+
+
+	private transient Map<String, Object> properties;
+
+
+	protected EagerCompositionNode(Node parent, Artifact<?> artifact, boolean unique) {
+		this.origNodes = new ArrayList<>();
+		this.unique = unique;
+		this.artifact = artifact;
+		this.parent = parent;
+		this.children = Collections.emptyList();
+	}
+
+
+	/**
+	 * Computes the children of this node from the children of its original nodes and orders them, but does not compose the children themselves.
+	 *
+	 * @param orderSelector The order selector used for ordered artifacts.
+	 */
+	void composeChildren(OrderSelector orderSelector) {
+		// the union of the children of all original nodes, keyed by artifact (nodes are equal if their artifacts are equal) in the order they are first seen
+		int maxChildren = 0;
+		for (Node origNode : this.origNodes) {
+			maxChildren = Math.max(maxChildren, origNode.getChildren().size());
+		}
+		Map<Artifact<?>, EagerCompositionNode> allChildren = new LinkedHashMap<>(maxChildren * 4 / 3 + 1);
+
+		for (Node origNode : this.origNodes) {
+			for (Node origChildNode : origNode.getChildren()) {
+				EagerCompositionNode newChildNode = allChildren.get(origChildNode.getArtifact());
+				if (newChildNode == null) {
+					newChildNode = new EagerCompositionNode(this, origChildNode.getArtifact(), origChildNode.isUnique());
+					allChildren.put(origChildNode.getArtifact(), newChildNode);
+				}
+				newChildNode.origNodes.add(origChildNode);
+				if (origChildNode.isUnique())
+					newChildNode.unique = true;
+			}
+		}
+
+		this.children = Collections.unmodifiableList(new ArrayList<>(allChildren.values()));
+
+		// finally set the order of the children
+		if (orderSelector != null && this.artifact != null && this.artifact.isOrdered() && this.artifact.isSequenced() && this.artifact.getPartialOrderGraph() != null) {
+			this.children = Collections.unmodifiableList(new ArrayList<>(orderSelector.select(this)));
+		}
+	}
+
+	void addOrigNode(Node origNode) {
+		this.origNodes.add(origNode);
+	}
+
+	boolean hasOrigChildren() {
+		for (Node origNode : this.origNodes) {
+			if (!origNode.getChildren().isEmpty())
+				return true;
+		}
+		return false;
+	}
+
+
+	@Override
+	public List<Node> getOrigNodes() {
+		return Collections.unmodifiableList(this.origNodes);
+	}
+
+
+	@Override
+	public boolean isAtomic() {
+		if (this.artifact != null)
+			return this.artifact.isAtomic();
+		else
+			return false;
+	}
+
+	@Override
+	public boolean isUnique() {
+		return this.unique;
+	}
+
+	@Override
+	public Artifact<?> getArtifact() {
+		return this.artifact;
+	}
+
+	@Override
+	public Node getParent() {
+		return this.parent;
+	}
+
+	@Override
+	public List<? extends Node> getChildren() {
+		return this.children;
+	}
+
+	@Override
+	public Association getContainingAssociation() {
+		if (this.parent == null)
+			return null;
+		else
+			return this.parent.getContainingAssociation();
+	}
+
+
+	@Override
+	public synchronized Map<String, Object> getProperties() {
+		if (this.properties == null)
+			this.properties = Maps.mutable.empty();
+		return this.properties;
+	}
+
+
+	@Override
+	public int hashCode() {
+		return this.getArtifact() != null ? this.getArtifact().hashCode() : 0;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (other == null) return false;
+		if (!(other instanceof Node)) return false;
+
+		Node otherNode = (Node) other;
+
+		if (this.getArtifact() == null)
+			return otherNode.getArtifact() == null;
+
+		return this.getArtifact().equals(otherNode.getArtifact());
+	}
+
+
+	@Override
+	public String toString() {
+		return this.getNodeString();
+	}
+
+}
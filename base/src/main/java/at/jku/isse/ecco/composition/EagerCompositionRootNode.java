@@ -0,0 +1,121 @@
+package at.jku.isse.ecco.composition;
+
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The root node of an eagerly composed artifact tree. The whole tree is composed when the root node is created, in parallel for the children of unordered nodes (e.g. directories and files).
+ * The subtree of an ordered node (e.g. the contents of a file) is composed by a single task, as its order is selected from one sequence graph.
+ * Order warnings are collected by the order selector during composition (see {@link OrderSelector#getUncertainOrders()}).
+ * <p>
+ * Once created, the tree does not change anymore and can be traversed concurrently, e.g. by a writer that writes files in parallel.
+ */
+public class EagerCompositionRootNode extends EagerCompositionNode implements RootNode {
+
+	private final OrderSelector orderSelector;
+
+	public EagerCompositionRootNode(Collection<? extends Node> origNodes) {
+		this(origNodes, new DefaultOrderSelector(), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Composes the given nodes (usually the root nodes of associations).
+	 *
+	 * @param origNodes     The nodes to compose.
+	 * @param orderSelector The order selector used for ordered artifacts. It must be thread safe.
+	 * @param pool          The pool that runs the composition.
+	 */
+	public EagerCompositionRootNode(Collection<? extends Node> origNodes, OrderSelector orderSelector, ForkJoinPool pool) {
+		super(null, null, true);
+		checkNotNull(origNodes);
+		checkNotNull(orderSelector);
+		checkNotNull(pool);
+
+		this.orderSelector = orderSelector;
+		for (Node origNode : origNodes) {
+			this.addOrigNode(origNode);
+		}
+
+		pool.invoke(new ComposeTask(this, orderSelector));
+	}
+
+
+	public OrderSelector getOrderSelector() {
+		return this.orderSelector;
+	}
+
+
+	@Override
+	public boolean isUnique() {
+		return true;
+	}
+
+	@Override
+	public boolean isAtomic() {
+		return false;
+	}
+
+
+	@Override
+	public Association getContainingAssociation() {
+		return null;
+	}
+
+
+	@Override
+	public String toString() {
+		return "root";
+	}
+
+
+	/**
+	 * Composes a node and its subtree. The children of unordered nodes are composed by separate tasks.
+	 */
+	private static class ComposeTask extends RecursiveAction {
+		private final EagerCompositionNode node;
+		private final OrderSelector orderSelector;
+
+		private ComposeTask(EagerCompositionNode node, OrderSelector orderSelector) {
+			this.node = node;
+			this.orderSelector = orderSelector;
+		}
+
+		@Override
+		protected void compute() {
+			this.node.composeChildren(this.orderSelector);
+
+			Artifact<?> artifact = this.node.getArtifact();
+			if (artifact != null && artifact.isOrdered()) {
+				composeRec(this.node, this.orderSelector);
+			} else {
+				// leaves (e.g. empty directories or atomic files) have nothing to compose and do not need a task
+				List<ComposeTask> tasks = new ArrayList<>(this.node.getChildren().size());
+				for (Node child : this.node.getChildren()) {
+					EagerCompositionNode compositionChild = (EagerCompositionNode) child;
+					if (compositionChild.hasOrigChildren())
+						tasks.add(new ComposeTask(compositionChild, this.orderSelector));
+				}
+				invokeAll(tasks);
+			}
+		}
+
+		private static void composeRec(EagerCompositionNode node, OrderSelector orderSelector) {
+			for (Node child : node.getChildren()) {
+				EagerCompositionNode compositionChild = (EagerCompositionNode) child;
+				compositionChild.composeChildren(orderSelector);
+				composeRec(compositionChild, orderSelector);
+			}
+		}
+	}
+
+}
@@ -6,6 +6,8 @@ import at.jku.isse.ecco.tree.Node;
 import org.eclipse.collections.impl.factory.Maps;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,7 +16,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * A lazy composition node.
  */
-public class LazyCompositionNode implements Node {
+public class LazyCompositionNode implements CompositionNode {
 
 	private boolean activated = false;
 
@@ -53,12 +55,17 @@ public class LazyCompositionNode implements Node {
 
 		// compute the children of this node, but do not activate them!
 
-		List<LazyCompositionNode> allChildren = new ArrayList<>();
+		// the union of the children of all original nodes, keyed by artifact (nodes are equal if their artifacts are equal) in the order they are first seen
+		int maxChildren = 0;
+		for (Node origNode : this.origNodes) {
+			maxChildren = Math.max(maxChildren, origNode.getChildren().size());
+		}
+		Map<Artifact<?>, LazyCompositionNode> allChildren = new LinkedHashMap<>(maxChildren * 4 / 3 + 1);
 
 		for (Node origNode : this.origNodes) {
 			for (Node origChildNode : origNode.getChildren()) {
-				LazyCompositionNode newChildNode = null;
-				if (!allChildren.contains(origChildNode)) {
+				LazyCompositionNode newChildNode = allChildren.get(origChildNode.getArtifact());
+				if (newChildNode == null) {
 					newChildNode = new LazyCompositionNode(this.orderSelector);
 
 					//newChildNode.setParent(this);
@@ -68,13 +75,9 @@ public class LazyCompositionNode implements Node {
 					//newChildNode.setUnique(origChildNode.isUnique());
 					newChildNode.unique = origChildNode.isUnique();
 
-					newChildNode.addOrigNode(origChildNode);
-
-					allChildren.add(newChildNode);
-				} else {
-					newChildNode = allChildren.get(allChildren.indexOf(origChildNode));
-					newChildNode.addOrigNode(origChildNode);
+					allChildren.put(origChildNode.getArtifact(), newChildNode);
 				}
+				newChildNode.addOrigNode(origChildNode);
 				if (origChildNode.isUnique()) {
 					//newChildNode.setUnique(true);
 					newChildNode.unique = true;
@@ -82,7 +85,7 @@ public class LazyCompositionNode implements Node {
 			}
 		}
 
-		this.children.addAll(allChildren);
+		this.children.addAll(allChildren.values());
 
 		this.activated = true;
 
@@ -99,6 +102,11 @@ public class LazyCompositionNode implements Node {
 		this.origNodes.add(origNode);
 	}
 
+	@Override
+	public List<Node> getOrigNodes() {
+		return Collections.unmodifiableList(this.origNodes);
+	}
+
 
 	public OrderSelector getOrderSelector() {
 		return orderSelector;
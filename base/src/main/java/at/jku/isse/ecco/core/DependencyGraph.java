@@ -8,6 +8,7 @@ import org.eclipse.collections.impl.factory.Maps;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 
 public class DependencyGraph {
@@ -38,6 +39,7 @@ public class DependencyGraph {
 
 	private Map<Association, Map<Association, DependencyImpl>> dependencyMap;
 
+	// a set, as it is checked for every artifact reference
 	private Collection<Association> associations;
 
 
@@ -45,7 +47,7 @@ public class DependencyGraph {
 		this.dependencies = new ArrayList<>();
 		this.unresolvedDependencies = new ArrayList<>();
 		this.dependencyMap = Maps.mutable.empty();
-		this.associations = new ArrayList<>();
+		this.associations = new LinkedHashSet<>();
 	}
 
 	public DependencyGraph(Collection<? extends Association> associations) {
@@ -102,7 +104,8 @@ public class DependencyGraph {
 								dependency.setFrom(fromA);
 								dependency.setTo(toA);
 								fromDependencyMap.put(toA, dependency);
-								if (this.associations.contains(toA))
+								dependency.resolved = this.associations.contains(toA);
+								if (dependency.resolved)
 									this.dependencies.add(dependency);
 								else
 									this.unresolvedDependencies.add(dependency);
@@ -132,7 +135,8 @@ public class DependencyGraph {
 							dependency.setFrom(fromA);
 							dependency.setTo(parentA);
 							fromDependencyMap.put(parentA, dependency);
-							if (this.associations.contains(parentA))
+							dependency.resolved = this.associations.contains(parentA);
+							if (dependency.resolved)
 								this.dependencies.add(dependency);
 							else
 								this.unresolvedDependencies.add(dependency);
@@ -153,11 +157,8 @@ public class DependencyGraph {
 
 
 	public Dependency getDependency(Association from, Association to) {
-		for (Dependency dependency : this.dependencies) {
-			if (dependency.getFrom() == from && dependency.getTo() == to)
-				return dependency;
-		}
-		return null;
+		DependencyImpl dependency = this.lookupDependency(from, to);
+		return dependency != null && dependency.resolved ? dependency : null;
 	}
 
 	public Collection<Dependency> getDependencies() {
@@ -166,11 +167,13 @@ public class DependencyGraph {
 
 
 	public Dependency getUnresolvedDependency(Association from, Association to) {
-		for (Dependency dependency : this.unresolvedDependencies) {
-			if (dependency.getFrom() == from && dependency.getTo() == to)
-				return dependency;
-		}
-		return null;
+		DependencyImpl dependency = this.lookupDependency(from, to);
+		return dependency != null && !dependency.resolved ? dependency : null;
+	}
+
+	private DependencyImpl lookupDependency(Association from, Association to) {
+		Map<Association, DependencyImpl> fromDependencyMap = this.dependencyMap.get(from);
+		return fromDependencyMap != null ? fromDependencyMap.get(to) : null;
 	}
 
 	public Collection<Dependency> getUnresolvedDependencies() {
@@ -218,6 +221,7 @@ public class DependencyGraph {
 		private int weight;
 		private Association from;
 		private Association to;
+		private boolean resolved;
 
 		public int getWeight() {
 			return weight;
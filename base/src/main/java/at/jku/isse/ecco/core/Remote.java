@@ -4,6 +4,7 @@ import at.jku.isse.ecco.dao.Persistable;
 import at.jku.isse.ecco.feature.Feature;
 
 import java.util.Collection;
+import java.util.Set;
 
 public interface Remote extends Persistable {
 
@@ -29,4 +30,12 @@ public interface Remote extends Persistable {
 
 	public Collection<Feature> getFeatures();
 
+	/**
+	 * Returns the fingerprints of the associations of the remote repository that were pulled the last time (see {@link at.jku.isse.ecco.repository.Fingerprints}).
+	 * Associations with one of these fingerprints are already contained in this repository and are not transferred again by the next pull.
+	 *
+	 * @return The modifiable set of fingerprints.
+	 */
+	public Set<String> getSyncedFingerprints();
+
 }
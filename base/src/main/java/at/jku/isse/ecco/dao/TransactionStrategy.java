@@ -9,6 +9,15 @@ public interface TransactionStrategy {
 
 	public void open();
 
+	/**
+	 * Opens the connection for reading only. Read write transactions are not possible afterwards.
+	 * Implementations may load the repository once and share it between all connections that are opened read only, in which case changes made by others after opening are not visible.
+	 * By default the connection is opened like with {@link #open()}.
+	 */
+	public default void openReadOnly() {
+		this.open();
+	}
+
 	public void close();
 
 
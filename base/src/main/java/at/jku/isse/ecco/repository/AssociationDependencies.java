@@ -0,0 +1,209 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.artifact.ArtifactReference;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.DependencyGraph;
+import at.jku.isse.ecco.tree.Node;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The dependencies between the associations of a repository, i.e. the associations that contain the targets of the artifact references and the parents of the artifacts of an association
+ * (the same dependencies as in a {@link DependencyGraph}). It is used to find the associations that are referenced by a selection of associations (see {@link #getUnresolvedAssociations(Collection)})
+ * without traversing their artifact trees again.
+ * <p>
+ * The dependencies of an association are computed when they are first needed and kept together with the reverse dependencies.
+ * When the artifacts of associations change (e.g. when associations are sliced during a commit), the changed associations must be invalidated (see {@link #invalidate(Collection)}),
+ * which also invalidates the associations depending on them, as their artifacts may now be contained in other associations.
+ */
+public class AssociationDependencies {
+
+	private final Map<Association, Map<Association, Dependency>> dependencies;
+
+	private final Map<Association, Set<Association>> dependents;
+
+	public AssociationDependencies() {
+		this.dependencies = new HashMap<>();
+		this.dependents = new HashMap<>();
+	}
+
+
+	/**
+	 * Returns the dependencies of the given association on other associations.
+	 *
+	 * @param association The association.
+	 * @return The dependencies (value) by the association depended on (key).
+	 */
+	public Map<Association, Dependency> getDependencies(Association association) {
+		checkNotNull(association);
+
+		Map<Association, Dependency> associationDependencies;
+		synchronized (this) {
+			associationDependencies = this.dependencies.get(association);
+		}
+		if (associationDependencies == null) {
+			// computed outside the lock, as it only reads the artifact tree of the association
+			Map<Association, Dependency> computedDependencies = computeDependencies(association);
+			synchronized (this) {
+				associationDependencies = this.dependencies.putIfAbsent(association, computedDependencies);
+				if (associationDependencies == null) {
+					associationDependencies = computedDependencies;
+					for (Association to : computedDependencies.keySet()) {
+						this.dependents.computeIfAbsent(to, k -> new HashSet<>()).add(association);
+					}
+				}
+			}
+		}
+		return Collections.unmodifiableMap(associationDependencies);
+	}
+
+	/**
+	 * Returns the other associations that contain targets of artifact references of the given association.
+	 *
+	 * @param association The association.
+	 * @return The referenced associations.
+	 */
+	public Set<Association> getReferencedAssociations(Association association) {
+		checkNotNull(association);
+
+		Set<Association> referenced = new HashSet<>();
+		for (Dependency dependency : this.getDependencies(association).values()) {
+			if (dependency.getReferenceWeight() > 0)
+				referenced.add(dependency.getTo());
+		}
+		return referenced;
+	}
+
+	/**
+	 * Returns the associations that contain targets of artifact references of the given associations but are not among them
+	 * (the same associations that {@link DependencyGraph.ReferencesResolveMode#INCLUDE_ALL_REFERENCED_ASSOCIATIONS} adds to a dependency graph).
+	 *
+	 * @param associations The selected associations.
+	 * @return The referenced associations that are not selected.
+	 */
+	public Set<Association> getUnresolvedAssociations(Collection<? extends Association> associations) {
+		checkNotNull(associations);
+
+		Set<Association> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+		selected.addAll(associations);
+
+		Set<Association> unresolved = new HashSet<>();
+		for (Association association : associations) {
+			for (Association referenced : this.getReferencedAssociations(association)) {
+				if (!selected.contains(referenced))
+					unresolved.add(referenced);
+			}
+		}
+		return unresolved;
+	}
+
+	/**
+	 * Discards the dependencies of the given associations and of all associations depending on them. They are computed again when they are needed next.
+	 *
+	 * @param associations The associations whose artifacts changed or that were removed.
+	 */
+	public synchronized void invalidate(Collection<? extends Association> associations) {
+		checkNotNull(associations);
+
+		Set<Association> invalid = new HashSet<>(associations);
+		for (Association association : associations) {
+			Set<Association> associationDependents = this.dependents.remove(association);
+			if (associationDependents != null)
+				invalid.addAll(associationDependents);
+		}
+
+		for (Association association : invalid) {
+			Map<Association, Dependency> associationDependencies = this.dependencies.remove(association);
+			if (associationDependencies != null) {
+				for (Association to : associationDependencies.keySet()) {
+					Set<Association> toDependents = this.dependents.get(to);
+					if (toDependents != null) {
+						toDependents.remove(association);
+						if (toDependents.isEmpty())
+							this.dependents.remove(to);
+					}
+				}
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		this.dependencies.clear();
+		this.dependents.clear();
+	}
+
+
+	private static Map<Association, Dependency> computeDependencies(Association association) {
+		Map<Association, Dependency> dependencies = new HashMap<>();
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(association.getRootNode());
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			if (node.isUnique() && node.getArtifact() != null) {
+				// cross references
+				for (ArtifactReference artifactReference : node.getArtifact().getUses()) {
+					Association to = artifactReference.getTarget().getContainingNode().getContainingAssociation();
+					if (to == null)
+						throw new EccoException("Artifacts must be contained in an association.");
+					if (to != association)
+						dependencies.computeIfAbsent(to, k -> new Dependency(association, to)).referenceWeight++;
+				}
+
+				// parent
+				if (node.getParent() != null && node.getParent().getArtifact() != null) {
+					Association to = node.getParent().getArtifact().getContainingNode().getContainingAssociation();
+					if (to == null)
+						throw new EccoException("Artifacts must be contained in an association.");
+					if (to != association)
+						dependencies.computeIfAbsent(to, k -> new Dependency(association, to)).parentWeight++;
+				}
+			}
+			for (Node child : node.getChildren()) {
+				stack.push(child);
+			}
+		}
+		return dependencies;
+	}
+
+
+	/**
+	 * The dependency of an association on another association, weighted by the number of artifact references and parent relations.
+	 */
+	public static class Dependency {
+		private final Association from;
+		private final Association to;
+		private int referenceWeight;
+		private int parentWeight;
+
+		private Dependency(Association from, Association to) {
+			this.from = from;
+			this.to = to;
+			this.referenceWeight = 0;
+			this.parentWeight = 0;
+		}
+
+		public Association getFrom() {
+			return this.from;
+		}
+
+		public Association getTo() {
+			return this.to;
+		}
+
+		public int getReferenceWeight() {
+			return this.referenceWeight;
+		}
+
+		public int getParentWeight() {
+			return this.parentWeight;
+		}
+
+		public int getWeight() {
+			return this.referenceWeight + this.parentWeight;
+		}
+	}
+
+}
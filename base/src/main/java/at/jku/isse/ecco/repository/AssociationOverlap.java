@@ -0,0 +1,138 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.util.Trees;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The pairs of associations from two sets of associations (e.g. of two repositories that are merged) whose artifact trees overlap, i.e. that contain a unique node at the same path.
+ * Only these pairs have a non-empty intersection when they are sliced with {@link Trees#slice(Node.Op, Node.Op)}.
+ * <p>
+ * The pairs are found in a single simultaneous traversal of the trees of all associations, in which the nodes of all associations at the same path are grouped by their artifact.
+ * Like the {@link AssociationPathIndex} the traversal only covers the unordered structure of the trees. Below an ordered or atomic node the sequence numbers of the artifacts of the two sets do not match yet,
+ * so every pair of associations that contain unique nodes in the subtree of such a node is considered overlapping.
+ */
+public class AssociationOverlap {
+
+	private final Map<Association, Set<Association.Op>> overlaps;
+
+	/**
+	 * @param left  The left associations (e.g. the associations of this repository).
+	 * @param right The right associations (e.g. the associations of the other repository).
+	 */
+	public AssociationOverlap(Collection<? extends Association.Op> left, Collection<? extends Association.Op> right) {
+		checkNotNull(left);
+		checkNotNull(right);
+
+		this.overlaps = new IdentityHashMap<>();
+
+		List<Entry> leftEntries = new ArrayList<>(left.size());
+		for (Association.Op association : left) {
+			leftEntries.add(new Entry(association, association.getRootNode()));
+		}
+		List<Entry> rightEntries = new ArrayList<>(right.size());
+		for (Association.Op association : right) {
+			rightEntries.add(new Entry(association, association.getRootNode()));
+		}
+		if (!leftEntries.isEmpty() && !rightEntries.isEmpty())
+			this.collect(leftEntries, rightEntries);
+	}
+
+	/**
+	 * Returns the left associations that overlap with the given right association.
+	 *
+	 * @param right The right association.
+	 * @return The overlapping left associations.
+	 */
+	public Set<Association.Op> getOverlapping(Association right) {
+		checkNotNull(right);
+
+		Set<Association.Op> overlapping = this.overlaps.get(right);
+		if (overlapping == null)
+			return Collections.emptySet();
+		return Collections.unmodifiableSet(overlapping);
+	}
+
+
+	/**
+	 * Collects the overlapping pairs among the given nodes, which are all at the same path and have equal artifacts, and their descendants.
+	 */
+	private void collect(List<Entry> leftEntries, List<Entry> rightEntries) {
+		Node.Op node = leftEntries.get(0).node;
+		if (node.getArtifact() != null && (node.getArtifact().isOrdered() || node.getArtifact().isAtomic())) {
+			for (Entry rightEntry : rightEntries) {
+				if (containsUniqueNode(rightEntry.node)) {
+					for (Entry leftEntry : leftEntries) {
+						if (containsUniqueNode(leftEntry.node))
+							this.addOverlap(leftEntry.association, rightEntry.association);
+					}
+				}
+			}
+			return;
+		}
+
+		// if no right node is unique here, the artifact of the right nodes is not contained in any right association (e.g. in a subset that leaves out associations the left side already contains).
+		// then all right nodes are paired with the left association containing the artifact, so that slicing replaces their artifact.
+		boolean rightUnique = rightEntries.stream().anyMatch(rightEntry -> rightEntry.node.isUnique());
+		for (Entry rightEntry : rightEntries) {
+			if (rightEntry.node.isUnique() || !rightUnique) {
+				for (Entry leftEntry : leftEntries) {
+					if (leftEntry.node.isUnique())
+						this.addOverlap(leftEntry.association, rightEntry.association);
+				}
+			}
+		}
+
+		// group the children of all nodes by their artifact (nodes are equal if their artifacts are equal)
+		Map<Node, List<Entry>> leftChildren = groupChildren(leftEntries);
+		Map<Node, List<Entry>> rightChildren = groupChildren(rightEntries);
+		for (Map.Entry<Node, List<Entry>> leftChild : leftChildren.entrySet()) {
+			List<Entry> rightChildEntries = rightChildren.get(leftChild.getKey());
+			if (rightChildEntries != null)
+				this.collect(leftChild.getValue(), rightChildEntries);
+		}
+	}
+
+	private void addOverlap(Association.Op left, Association.Op right) {
+		this.overlaps.computeIfAbsent(right, k -> Collections.newSetFromMap(new LinkedHashMap<>())).add(left);
+	}
+
+	private static Map<Node, List<Entry>> groupChildren(List<Entry> entries) {
+		Map<Node, List<Entry>> children = new LinkedHashMap<>();
+		for (Entry entry : entries) {
+			for (Node.Op child : entry.node.getChildren()) {
+				children.computeIfAbsent(child, k -> new ArrayList<>()).add(new Entry(entry.association, child));
+			}
+		}
+		return children;
+	}
+
+	private static boolean containsUniqueNode(Node node) {
+		if (node.isUnique())
+			return true;
+		for (Node child : node.getChildren()) {
+			if (containsUniqueNode(child))
+				return true;
+		}
+		return false;
+	}
+
+
+	/**
+	 * A node together with the association containing it.
+	 */
+	private static class Entry {
+		private final Association.Op association;
+		private final Node.Op node;
+
+		private Entry(Association.Op association, Node.Op node) {
+			this.association = association;
+			this.node = node;
+		}
+	}
+
+}
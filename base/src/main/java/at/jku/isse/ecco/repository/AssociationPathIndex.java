@@ -0,0 +1,109 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+import at.jku.isse.ecco.util.Trees;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Index of the nodes of all associations of a repository by their path from the root node (e.g. directories and files).
+ * It is used to map trees to the repository (see {@link Repository.Op#map(RootNode.Op)}) without walking down the path in every association again, so that mapping a single file only visits the associations that contain it.
+ * <p>
+ * The index is expanded lazily along the paths that are looked up and only covers the unordered structure of the trees. It stops at the first ordered or atomic node on a path (usually the node of a file), below which every association containing the node is mapped with {@link Trees#map(Node.Op, Node.Op)}.
+ * <p>
+ * The index refers to the nodes of the associations and therefore must be discarded whenever associations are added to or removed from the repository.
+ */
+public class AssociationPathIndex {
+
+	private final Entry root;
+
+	public AssociationPathIndex(Collection<? extends Association.Op> associations) {
+		checkNotNull(associations);
+
+		List<Node.Op> rootNodes = new ArrayList<>(associations.size());
+		for (Association.Op association : associations) {
+			rootNodes.add(association.getRootNode());
+		}
+		this.root = new Entry(rootNodes);
+	}
+
+	/**
+	 * Maps the given tree to the nodes of the associations in the index. The result is the same as mapping the tree to every association with {@link Trees#map(Node.Op, Node.Op)}.
+	 *
+	 * @param rootNode The root node of the artifact tree to be mapped.
+	 */
+	public synchronized void map(RootNode.Op rootNode) {
+		checkNotNull(rootNode);
+
+		this.map(this.root, rootNode);
+	}
+
+	private void map(Entry entry, Node.Op right) {
+		if (entry.isLeaf()) {
+			for (Node.Op left : entry.nodes) {
+				Trees.map(left, right);
+			}
+			return;
+		}
+
+		// above the leaves only unique nodes have their artifact mapped
+		for (Node.Op left : entry.getUniqueNodes()) {
+			Trees.mapNode(left, right);
+		}
+		for (Node.Op rightChild : right.getChildren()) {
+			Entry childEntry = entry.getChild(rightChild);
+			if (childEntry != null)
+				this.map(childEntry, rightChild);
+		}
+	}
+
+
+	/**
+	 * The nodes of all associations at one path.
+	 */
+	private static class Entry {
+		private final List<Node.Op> nodes;
+		private Map<Node, Entry> children;
+		private Boolean leaf;
+		private List<Node.Op> uniqueNodes;
+
+		private Entry(List<Node.Op> nodes) {
+			this.nodes = nodes;
+			this.children = null;
+			this.leaf = null;
+			this.uniqueNodes = null;
+		}
+
+		private List<Node.Op> getUniqueNodes() {
+			if (this.uniqueNodes == null) {
+				this.uniqueNodes = this.nodes.stream().filter(node -> node.getArtifact() != null && node.isUnique()).collect(Collectors.toList());
+			}
+			return this.uniqueNodes;
+		}
+
+		private boolean isLeaf() {
+			if (this.leaf == null) {
+				this.leaf = this.nodes.stream().anyMatch(node -> node.getArtifact() != null && (node.getArtifact().isOrdered() || node.getArtifact().isAtomic()));
+			}
+			return this.leaf;
+		}
+
+		private Entry getChild(Node child) {
+			if (this.children == null) {
+				this.children = new HashMap<>();
+				for (Node.Op node : this.nodes) {
+					for (Node.Op childNode : node.getChildren()) {
+						this.children.computeIfAbsent(childNode, key -> new Entry(new ArrayList<>())).nodes.add(childNode);
+					}
+				}
+			}
+			return this.children.get(child);
+		}
+	}
+
+}
@@ -0,0 +1,262 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.feature.Feature;
+import at.jku.isse.ecco.module.Condition;
+import at.jku.isse.ecco.module.Module;
+import at.jku.isse.ecco.tree.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Statistics of the associations of a repository, computed in a single pass over the associations: the number of artifacts and artifacts per depth of every association, their condition strings,
+ * the number of modules per order and the associations per feature. This way views of the repository (e.g. charts) do not have to traverse the artifact trees and compute the conditions on every request.
+ * <p>
+ * The statistics belong to a version of the repository (see {@link #computeVersion(Repository)}) and have to be computed again once the version changed.
+ * Counting the artifacts is the expensive part, so the artifact counts of the associations are kept by the repository between versions (see {@link ArtifactCounts}) and only the associations added or changed since are traversed again.
+ * The conditions of all associations are computed again for every version, as they also depend on the module counts of the repository, which change with every commit.
+ */
+public class AssociationStatistics {
+
+	private final String version;
+
+	private final Map<String, Entry> entries;
+
+	private final Map<Integer, Integer> artifactsPerDepth;
+
+	private final Map<Integer, Integer> modulesPerOrder;
+
+	private final Map<String, List<Entry>> entriesPerFeature;
+
+	private AssociationStatistics(String version) {
+		this.version = version;
+		this.entries = new LinkedHashMap<>();
+		this.artifactsPerDepth = new TreeMap<>();
+		this.modulesPerOrder = new TreeMap<>();
+		this.entriesPerFeature = new HashMap<>();
+	}
+
+
+	/**
+	 * Computes a version string of the repository that changes whenever its associations change. Committing always adds associations with new ids, also when existing associations are changed.
+	 *
+	 * @param repository The repository.
+	 * @return The version of the repository.
+	 */
+	public static String computeVersion(Repository repository) {
+		checkNotNull(repository);
+
+		long hash = System.identityHashCode(repository);
+		int count = 0;
+		for (Association association : repository.getAssociations()) {
+			hash = 31 * hash + association.getId().hashCode();
+			count++;
+		}
+		return Long.toHexString(hash) + "-" + count + "-" + repository.getCommits().size();
+	}
+
+	/**
+	 * Computes the statistics of the given repository. The artifact counts kept by the repository are used if it provides them (see {@link Repository.Op#getAssociationArtifactCounts()}).
+	 *
+	 * @param repository The repository.
+	 * @return The statistics of the current version of the repository.
+	 */
+	public static AssociationStatistics compute(Repository repository) {
+		checkNotNull(repository);
+
+		if (repository instanceof Repository.Op)
+			return compute(repository, ((Repository.Op) repository).getAssociationArtifactCounts());
+		else
+			return compute(repository, new ArtifactCounts());
+	}
+
+	/**
+	 * Computes the statistics of the given repository. Only the artifacts of associations that are not contained in the given artifact counts are counted.
+	 *
+	 * @param repository     The repository.
+	 * @param artifactCounts The artifact counts of the associations of the repository.
+	 * @return The statistics of the current version of the repository.
+	 */
+	public static AssociationStatistics compute(Repository repository, ArtifactCounts artifactCounts) {
+		checkNotNull(repository);
+		checkNotNull(artifactCounts);
+
+		AssociationStatistics statistics = new AssociationStatistics(computeVersion(repository));
+		for (Association association : repository.getAssociations()) {
+			Condition condition = association.computeCondition();
+
+			Entry entry = new Entry(association, condition.getSimpleModuleConditionString(), condition.getSimpleModuleRevisionConditionString(), artifactCounts.getArtifactsPerDepth(association));
+			for (Map.Entry<Integer, Integer> depthCount : entry.artifactsPerDepth.entrySet()) {
+				entry.numArtifacts += depthCount.getValue();
+				statistics.artifactsPerDepth.merge(depthCount.getKey(), depthCount.getValue(), Integer::sum);
+			}
+			statistics.entries.put(association.getId(), entry);
+
+			Set<String> featureIds = new HashSet<>();
+			for (Module module : condition.getModules().keySet()) {
+				statistics.modulesPerOrder.merge(module.getOrder(), 1, Integer::sum);
+				for (Feature feature : module.getPos()) {
+					if (featureIds.add(feature.getId()))
+						statistics.entriesPerFeature.computeIfAbsent(feature.getId(), k -> new ArrayList<>()).add(entry);
+				}
+			}
+		}
+		return statistics;
+	}
+
+	private static void countArtifactsPerDepthRec(Node node, Map<Integer, Integer> artifactsPerDepth, int depth) {
+		if (node.getArtifact() != null && node.isUnique())
+			artifactsPerDepth.merge(depth, 1, Integer::sum);
+		for (Node child : node.getChildren()) {
+			countArtifactsPerDepthRec(child, artifactsPerDepth, depth + 1);
+		}
+	}
+
+
+	public String getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Returns the statistics of all associations in the order of the associations in the repository.
+	 *
+	 * @return The statistics of all associations.
+	 */
+	public Collection<Entry> getEntries() {
+		return Collections.unmodifiableCollection(this.entries.values());
+	}
+
+	/**
+	 * Returns the statistics of the association with the given id.
+	 *
+	 * @param associationId The id of the association.
+	 * @return The statistics of the association or null if there is no association with the given id.
+	 */
+	public Entry getEntry(String associationId) {
+		return this.entries.get(associationId);
+	}
+
+	/**
+	 * Returns the statistics of the associations with a module containing the given feature positively.
+	 *
+	 * @param featureId The id of the feature.
+	 * @return The statistics of the associations of the feature.
+	 */
+	public List<Entry> getEntriesOfFeature(String featureId) {
+		return Collections.unmodifiableList(this.entriesPerFeature.getOrDefault(featureId, Collections.emptyList()));
+	}
+
+	/**
+	 * Returns the number of artifacts per depth of the composition of all associations (see {@link at.jku.isse.ecco.util.Trees#countArtifactsPerDepth(Node)}).
+	 *
+	 * @return The number of artifacts (value) per depth (key), sorted by depth.
+	 */
+	public Map<Integer, Integer> getArtifactsPerDepth() {
+		return Collections.unmodifiableMap(this.artifactsPerDepth);
+	}
+
+	/**
+	 * Returns the number of modules in the conditions of all associations per order.
+	 *
+	 * @return The number of modules (value) per order (key), sorted by order.
+	 */
+	public Map<Integer, Integer> getModulesPerOrder() {
+		return Collections.unmodifiableMap(this.modulesPerOrder);
+	}
+
+
+	/**
+	 * The statistics of a single association.
+	 */
+	public static class Entry {
+		private final Association association;
+		private final String moduleConditionString;
+		private final String moduleRevisionConditionString;
+		private final Map<Integer, Integer> artifactsPerDepth;
+		private int numArtifacts;
+
+		private Entry(Association association, String moduleConditionString, String moduleRevisionConditionString, Map<Integer, Integer> artifactsPerDepth) {
+			this.association = association;
+			this.moduleConditionString = moduleConditionString;
+			this.moduleRevisionConditionString = moduleRevisionConditionString;
+			this.artifactsPerDepth = artifactsPerDepth;
+			this.numArtifacts = 0;
+		}
+
+		public Association getAssociation() {
+			return this.association;
+		}
+
+		public String getAssociationId() {
+			return this.association.getId();
+		}
+
+		public String getModuleConditionString() {
+			return this.moduleConditionString;
+		}
+
+		public String getModuleRevisionConditionString() {
+			return this.moduleRevisionConditionString;
+		}
+
+		public int getNumArtifacts() {
+			return this.numArtifacts;
+		}
+
+		public Map<Integer, Integer> getArtifactsPerDepth() {
+			return Collections.unmodifiableMap(this.artifactsPerDepth);
+		}
+	}
+
+
+	/**
+	 * The number of artifacts per depth of the associations of a repository, kept between versions of the repository so that only new associations have to be traversed.
+	 * The artifact trees of associations change when they are sliced (e.g. during a commit), in which case the changed associations must be invalidated (see {@link #invalidate(Collection)}).
+	 */
+	public static class ArtifactCounts {
+
+		private final Map<String, Map<Integer, Integer>> artifactsPerDepth;
+
+		public ArtifactCounts() {
+			this.artifactsPerDepth = new ConcurrentHashMap<>();
+		}
+
+		/**
+		 * Returns the number of artifacts per depth of the given association. They are counted when they are first needed.
+		 *
+		 * @param association The association.
+		 * @return The number of artifacts (value) per depth (key), sorted by depth.
+		 */
+		public Map<Integer, Integer> getArtifactsPerDepth(Association association) {
+			checkNotNull(association);
+
+			Map<Integer, Integer> associationArtifactsPerDepth = this.artifactsPerDepth.get(association.getId());
+			if (associationArtifactsPerDepth == null) {
+				// counted outside of the map, as it only reads the artifact tree of the association
+				Map<Integer, Integer> countedArtifactsPerDepth = new TreeMap<>();
+				countArtifactsPerDepthRec(association.getRootNode(), countedArtifactsPerDepth, 0);
+				associationArtifactsPerDepth = this.artifactsPerDepth.putIfAbsent(association.getId(), countedArtifactsPerDepth);
+				if (associationArtifactsPerDepth == null)
+					associationArtifactsPerDepth = countedArtifactsPerDepth;
+			}
+			return associationArtifactsPerDepth;
+		}
+
+		/**
+		 * Invalidates the artifact counts of the given associations, e.g. because they were sliced or removed.
+		 *
+		 * @param associations The changed associations.
+		 */
+		public void invalidate(Collection<? extends Association> associations) {
+			checkNotNull(associations);
+
+			for (Association association : associations) {
+				this.artifactsPerDepth.remove(association.getId());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.Checkout;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.module.ModuleRevision;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The outcome of checking out a configuration without composing its artifact tree (see {@link Repository.Op#preview(Configuration)}): the associations that would be selected
+ * and the missing and surplus module revisions that a {@link Checkout} of the configuration would report.
+ * Previews are computed by a {@link CheckoutPreviewIndex} and may be shared between callers, so they cannot be modified.
+ */
+public class CheckoutPreview {
+
+	private final Configuration configuration;
+
+	private final List<Association.Op> selectedAssociations;
+
+	private final Set<ModuleRevision> missingModules;
+
+	private final Map<ModuleRevision, String> surplusModules;
+
+	CheckoutPreview(Configuration configuration, List<Association.Op> selectedAssociations, Set<ModuleRevision> missingModules, Map<ModuleRevision, String> surplusModules) {
+		checkNotNull(configuration);
+		checkNotNull(selectedAssociations);
+		checkNotNull(missingModules);
+		checkNotNull(surplusModules);
+
+		this.configuration = configuration;
+		this.selectedAssociations = Collections.unmodifiableList(selectedAssociations);
+		this.missingModules = Collections.unmodifiableSet(missingModules);
+		this.surplusModules = Collections.unmodifiableMap(surplusModules);
+	}
+
+	/**
+	 * Returns the configuration the preview was computed for.
+	 *
+	 * @return The configuration.
+	 */
+	public Configuration getConfiguration() {
+		return this.configuration;
+	}
+
+	/**
+	 * Returns the associations whose conditions hold in the configuration, i.e. the associations that would be composed.
+	 *
+	 * @return The selected associations.
+	 */
+	public List<Association.Op> getSelectedAssociations() {
+		return this.selectedAssociations;
+	}
+
+	/**
+	 * Returns the ids of the selected associations (see {@link #getSelectedAssociations()}).
+	 *
+	 * @return The ids of the selected associations.
+	 */
+	public Set<String> getSelectedAssociationIds() {
+		Set<String> ids = new LinkedHashSet<>();
+		for (Association association : this.selectedAssociations) {
+			ids.add(association.getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns the module revisions of the configuration that are not contained in the repository (see {@link Checkout#getMissing()}).
+	 *
+	 * @return The missing module revisions.
+	 */
+	public Set<ModuleRevision> getMissingModules() {
+		return this.missingModules;
+	}
+
+	/**
+	 * Returns the module revisions of the selected associations that are not part of the configuration together with the id of an association tracing to them (see {@link Checkout#getSurplusModules()}).
+	 *
+	 * @return The surplus module revisions by the id of the association.
+	 */
+	public Map<ModuleRevision, String> getSurplusModules() {
+		return this.surplusModules;
+	}
+
+}
@@ -0,0 +1,221 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.feature.Feature;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.module.Condition;
+import at.jku.isse.ecco.module.Module;
+import at.jku.isse.ecco.module.ModuleRevision;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An index of the conditions of the associations of a repository that is used for previewing checkouts (see {@link CheckoutPreview}) without composing artifact trees.
+ * <p>
+ * The condition of every association is computed once and encoded with bit sets: every module revision of a condition is stored as the set of its positive feature revisions and the set of its negative features,
+ * so that a module revision holds in a configuration if its positive feature revisions are a subset of the feature revisions of the configuration and its negative features are disjoint from the features of the configuration.
+ * Every module revision is evaluated only once per configuration, even if it is part of the conditions of many associations.
+ * The previews of the most recently previewed configurations are cached (see {@link #DEFAULT_MAX_PREVIEWS}). Like the {@link AssociationPathIndex} the index must be discarded whenever the associations, their counters or the features and modules of the repository change.
+ */
+public class CheckoutPreviewIndex {
+
+	public static final int DEFAULT_MAX_PREVIEWS = 32;
+
+	private final Repository.Op repository;
+
+	private final Map<String, Integer> featureIndex;
+
+	private final Map<String, Integer> featureRevisionIndex;
+
+	private final List<ModuleRevision> moduleRevisions;
+
+	private final List<BitSet> moduleRevisionPos;
+
+	private final List<BitSet> moduleRevisionNeg;
+
+	private final List<Association.Op> associations;
+
+	private final List<int[]> conditions;
+
+	private final List<Condition.TYPE> conditionTypes;
+
+	private final Map<String, CheckoutPreview> previews;
+
+	/**
+	 * @param repository The repository whose associations are indexed.
+	 */
+	public CheckoutPreviewIndex(Repository.Op repository) {
+		this(repository, DEFAULT_MAX_PREVIEWS);
+	}
+
+	/**
+	 * @param repository  The repository whose associations are indexed.
+	 * @param maxPreviews The maximum number of cached previews. The least recently used previews are evicted first.
+	 */
+	public CheckoutPreviewIndex(Repository.Op repository, int maxPreviews) {
+		checkNotNull(repository);
+
+		this.repository = repository;
+		this.featureIndex = new HashMap<>();
+		this.featureRevisionIndex = new HashMap<>();
+		this.moduleRevisions = new ArrayList<>();
+		this.moduleRevisionPos = new ArrayList<>();
+		this.moduleRevisionNeg = new ArrayList<>();
+		this.associations = new ArrayList<>();
+		this.conditions = new ArrayList<>();
+		this.conditionTypes = new ArrayList<>();
+		this.previews = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CheckoutPreview> eldest) {
+				return this.size() > maxPreviews;
+			}
+		};
+
+		Map<ModuleRevision, Integer> moduleRevisionIndex = new HashMap<>();
+		for (Association.Op association : repository.getAssociations()) {
+			Condition condition = association.computeCondition();
+			List<Integer> conditionModuleRevisions = new ArrayList<>();
+			for (Collection<ModuleRevision> revisions : condition.getModules().values()) {
+				if (revisions == null)
+					continue;
+				for (ModuleRevision moduleRevision : revisions) {
+					conditionModuleRevisions.add(moduleRevisionIndex.computeIfAbsent(moduleRevision, this::encode));
+				}
+			}
+			this.associations.add(association);
+			this.conditions.add(conditionModuleRevisions.stream().mapToInt(Integer::intValue).toArray());
+			this.conditionTypes.add(condition.getType());
+		}
+	}
+
+	/**
+	 * Returns the preview of checking out the given configuration.
+	 * It is computed when the configuration is first previewed and then kept until it is evicted.
+	 * The cache is only locked for looking up and storing previews, so that previews of different configurations can be computed concurrently.
+	 *
+	 * @param configuration The configuration.
+	 * @return The preview.
+	 */
+	public CheckoutPreview preview(Configuration configuration) {
+		checkNotNull(configuration);
+
+		String key = key(configuration);
+		CheckoutPreview preview;
+		synchronized (this.previews) {
+			preview = this.previews.get(key);
+		}
+		if (preview == null) {
+			preview = this.computePreview(configuration);
+			synchronized (this.previews) {
+				this.previews.put(key, preview);
+			}
+		}
+		return preview;
+	}
+
+
+	private CheckoutPreview computePreview(Configuration configuration) {
+		// encode configuration. feature revisions that are not in the index are not part of any module revision
+		BitSet featureRevisions = new BitSet();
+		BitSet features = new BitSet();
+		for (FeatureRevision featureRevision : configuration.getFeatureRevisions()) {
+			Integer featureRevisionBit = this.featureRevisionIndex.get(key(featureRevision));
+			if (featureRevisionBit != null)
+				featureRevisions.set(featureRevisionBit);
+			Integer featureBit = this.featureIndex.get(featureRevision.getFeature().getId());
+			if (featureBit != null)
+				features.set(featureBit);
+		}
+
+		// evaluate every module revision once
+		BitSet holding = new BitSet(this.moduleRevisions.size());
+		for (int i = 0; i < this.moduleRevisions.size(); i++) {
+			if (holds(this.moduleRevisionPos.get(i), this.moduleRevisionNeg.get(i), featureRevisions, features))
+				holding.set(i);
+		}
+
+		// a condition holds if at least one of its module revisions holds (see Condition#holds)
+		List<Association.Op> selectedAssociations = new ArrayList<>();
+		Map<ModuleRevision, String> surplusModules = new HashMap<>();
+		for (int i = 0; i < this.associations.size(); i++) {
+			int[] condition = this.conditions.get(i);
+			if (Arrays.stream(condition).noneMatch(holding::get))
+				continue;
+			Association.Op association = this.associations.get(i);
+			selectedAssociations.add(association);
+
+			// surplus module revisions are the ones of AND conditions that are not desired, i.e. that do not hold or whose order exceeds the maximum order of the repository
+			if (this.conditionTypes.get(i) == Condition.TYPE.AND) {
+				for (int moduleRevisionBit : condition) {
+					ModuleRevision moduleRevision = this.moduleRevisions.get(moduleRevisionBit);
+					if (!holding.get(moduleRevisionBit) || moduleRevision.getPos().length == 0 || moduleRevision.getOrder() > this.repository.getMaxOrder())
+						surplusModules.put(moduleRevision, association.getId());
+				}
+			}
+		}
+
+		return new CheckoutPreview(configuration, selectedAssociations, this.computeMissingModules(configuration), surplusModules);
+	}
+
+	private Set<ModuleRevision> computeMissingModules(Configuration configuration) {
+		Set<ModuleRevision> missingModules = new HashSet<>();
+		for (ModuleRevision desiredModuleRevision : new HashSet<>(this.repository.getOrphanedConfigurationModules(configuration))) {
+			Feature[] posFeatures = Arrays.stream(desiredModuleRevision.getPos()).map(FeatureRevision::getFeature).toArray(Feature[]::new);
+			Module desiredModule = this.repository.getModule(posFeatures, desiredModuleRevision.getNeg());
+			if (desiredModule == null || desiredModule.getRevision(desiredModuleRevision.getPos(), desiredModuleRevision.getNeg()) == null) {
+				missingModules.add(desiredModuleRevision);
+			}
+		}
+
+		/**
+		 * TODO: trim set of missing modules to only leave modules that are LIKELY missing:
+		 * - exclude missing modules that we know from previous revisions and that did not contain artifacts there.
+		 * - exclude missing higher order modules that are covered entirely by combinations of missing lower order modules (e.g., (A,B,C) can be ignored if (A,B), (A,C), and (B,C) are also missing).
+		 */
+
+		return missingModules;
+	}
+
+	private int encode(ModuleRevision moduleRevision) {
+		BitSet pos = new BitSet();
+		for (FeatureRevision featureRevision : moduleRevision.getPos()) {
+			pos.set(this.featureRevisionIndex.computeIfAbsent(key(featureRevision), k -> this.featureRevisionIndex.size()));
+		}
+		BitSet neg = new BitSet();
+		for (Feature feature : moduleRevision.getNeg()) {
+			neg.set(this.featureIndex.computeIfAbsent(feature.getId(), k -> this.featureIndex.size()));
+		}
+		this.moduleRevisions.add(moduleRevision);
+		this.moduleRevisionPos.add(pos);
+		this.moduleRevisionNeg.add(neg);
+		return this.moduleRevisions.size() - 1;
+	}
+
+	private static boolean holds(BitSet pos, BitSet neg, BitSet featureRevisions, BitSet features) {
+		if (neg.intersects(features))
+			return false;
+		for (int i = pos.nextSetBit(0); i >= 0; i = pos.nextSetBit(i + 1)) {
+			if (!featureRevisions.get(i))
+				return false;
+		}
+		return true;
+	}
+
+	private static String key(FeatureRevision featureRevision) {
+		return featureRevision.getFeature().getId() + "." + featureRevision.getId();
+	}
+
+	private static String key(Configuration configuration) {
+		// independent of the order of the feature revisions in the configuration
+		List<String> keys = new ArrayList<>();
+		for (FeatureRevision featureRevision : configuration.getFeatureRevisions()) {
+			keys.add(key(featureRevision));
+		}
+		Collections.sort(keys);
+		return String.join(",", keys);
+	}
+
+}
@@ -0,0 +1,184 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.EccoUtil;
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.artifact.ArtifactData;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.counter.ModuleCounter;
+import at.jku.isse.ecco.counter.ModuleRevisionCounter;
+import at.jku.isse.ecco.feature.Feature;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.module.Module;
+import at.jku.isse.ecco.module.ModuleRevision;
+import at.jku.isse.ecco.tree.Node;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Content fingerprints of associations and features that do not depend on the storage or the instances, so that the contents of two repositories can be compared without transferring them
+ * (e.g. to only pull the associations of a remote that changed since the last pull).
+ * <p>
+ * The fingerprint of an association is a Merkle hash over its artifact tree (every node is hashed from the serialized form of its artifact data, which unlike its hash code or string representation is complete and the same in every JVM, and the hashes of its children, which are sorted unless the artifact is ordered)
+ * and its counter (the modules and module revisions by feature and feature revision ids with their counts). It changes whenever artifacts are moved into or out of the association or observations are added.
+ */
+public class Fingerprints {
+
+	private Fingerprints() {
+	}
+
+
+	/**
+	 * Computes the fingerprint of the given association from its artifact tree and counter.
+	 *
+	 * @param association The association.
+	 * @return The fingerprint.
+	 */
+	public static String of(Association.Op association) {
+		checkNotNull(association);
+
+		MessageDigest digest = EccoUtil.createSHADigest();
+		digest.update(hash(association.getRootNode()));
+
+		// counter, independent of the order of the modules and module revisions
+		List<String> moduleCounters = new ArrayList<>();
+		for (ModuleCounter moduleCounter : association.getCounter().getChildren()) {
+			List<String> moduleRevisionCounters = new ArrayList<>();
+			for (ModuleRevisionCounter moduleRevisionCounter : moduleCounter.getChildren()) {
+				moduleRevisionCounters.add(toString(moduleRevisionCounter.getObject()) + "=" + moduleRevisionCounter.getCount());
+			}
+			Collections.sort(moduleRevisionCounters);
+			moduleCounters.add(toString(moduleCounter.getObject()) + "=" + moduleCounter.getCount() + moduleRevisionCounters);
+		}
+		Collections.sort(moduleCounters);
+		update(digest, association.getCounter().getCount() + moduleCounters.toString());
+
+		return EccoUtil.getSHA(digest);
+	}
+
+	/**
+	 * Computes a fingerprint of the given features with their revisions.
+	 *
+	 * @param features The features.
+	 * @return The fingerprint.
+	 */
+	public static String of(Collection<? extends Feature> features) {
+		checkNotNull(features);
+
+		List<String> featureStrings = new ArrayList<>();
+		for (Feature feature : features) {
+			List<String> revisionStrings = new ArrayList<>();
+			for (FeatureRevision featureRevision : feature.getRevisions()) {
+				revisionStrings.add(featureRevision.getId() + ":" + featureRevision.getDescription());
+			}
+			Collections.sort(revisionStrings);
+			featureStrings.add(feature.getId() + ":" + feature.getName() + ":" + feature.getDescription() + revisionStrings);
+		}
+		Collections.sort(featureStrings);
+
+		MessageDigest digest = EccoUtil.createSHADigest();
+		update(digest, featureStrings.toString());
+		return EccoUtil.getSHA(digest);
+	}
+
+
+	/**
+	 * Returns a filter for subsets (see {@link Repository.Op#subset(Collection, int, at.jku.isse.ecco.dao.EntityFactory, Predicate, SubsetSink)}) that accepts the associations whose fingerprints are not known
+	 * and adds the fingerprints of all associations it is applied to to the given set.
+	 *
+	 * @param known        The fingerprints of the associations that are not accepted.
+	 * @param fingerprints The set to which the fingerprints of all associations the filter is applied to are added.
+	 * @return The filter.
+	 */
+	public static Predicate<Association.Op> unknown(Set<String> known, Set<String> fingerprints) {
+		checkNotNull(known);
+		checkNotNull(fingerprints);
+
+		return association -> {
+			String fingerprint = of(association);
+			fingerprints.add(fingerprint);
+			return !known.contains(fingerprint);
+		};
+	}
+
+
+	private static byte[] hash(Node node) {
+		MessageDigest digest = EccoUtil.createSHADigest();
+
+		digest.update((byte) (node.isUnique() ? 1 : 0));
+		Artifact<?> artifact = node.getArtifact();
+		if (artifact != null) {
+			update(digest, artifact.getData());
+			update(digest, artifact.isOrdered() + ":" + artifact.isAtomic() + ":" + artifact.getSequenceNumber());
+		}
+
+		List<byte[]> childHashes = new ArrayList<>(node.getChildren().size());
+		for (Node child : node.getChildren()) {
+			childHashes.add(hash(child));
+		}
+		if (artifact == null || !artifact.isOrdered())
+			childHashes.sort(Fingerprints::compare);
+		for (byte[] childHash : childHashes) {
+			digest.update(childHash);
+		}
+
+		return digest.digest();
+	}
+
+	private static void update(MessageDigest digest, ArtifactData data) {
+		// the serialized form is self-delimiting, so no length is needed
+		try (ObjectOutputStream oos = new ObjectOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+			oos.writeObject(data);
+		} catch (IOException e) {
+			throw new EccoException("Error computing the fingerprint of artifact data " + data + ".", e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String string) {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		// the length separates consecutive strings
+		digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+		digest.update(bytes);
+	}
+
+	private static String toString(Module module) {
+		return ids(module.getPos()) + "!" + ids(module.getNeg());
+	}
+
+	private static String toString(ModuleRevision moduleRevision) {
+		List<String> ids = new ArrayList<>();
+		for (FeatureRevision featureRevision : moduleRevision.getPos()) {
+			ids.add(featureRevision.getFeature().getId() + "." + featureRevision.getId());
+		}
+		Collections.sort(ids);
+		return ids + "!" + ids(moduleRevision.getNeg());
+	}
+
+	private static String ids(Feature[] features) {
+		List<String> ids = new ArrayList<>(features.length);
+		for (Feature feature : features) {
+			ids.add(feature.getId());
+		}
+		Collections.sort(ids);
+		return ids.toString();
+	}
+
+	private static int compare(byte[] a, byte[] b) {
+		for (int i = 0; i < Math.min(a.length, b.length); i++) {
+			int c = Byte.compare(a[i], b[i]);
+			if (c != 0)
+				return c;
+		}
+		return Integer.compare(a.length, b.length);
+	}
+
+}
@@ -3,6 +3,7 @@ package at.jku.isse.ecco.repository;
 import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.EccoUtil;
 import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.composition.EagerCompositionRootNode;
 import at.jku.isse.ecco.composition.LazyCompositionRootNode;
 import at.jku.isse.ecco.core.*;
 import at.jku.isse.ecco.counter.ModuleCounter;
@@ -23,6 +24,7 @@ import at.jku.isse.ecco.util.Trees;
 
 import java.io.ObjectInputFilter;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -192,38 +194,71 @@ public interface Repository extends Persistable {
 		public default void addNegativeFeatureModules(Feature feature) {
 			checkNotNull(feature);
 
-			// add new modules to the repository that contain the new feature negatively. copies every existing module and adds the new feature negatively.
-			for (int currentOrder = this.getMaxOrder() - 1; currentOrder >= 0; currentOrder--) {
-				Collection<? extends Module> modules = this.getModules(currentOrder);
-				for (Module module : modules) {
-					// only add modules that do not exceed the maximum order of modules in the repository
-					if (module.getOrder() < this.getMaxOrder()) {
-						// create array of negative features. to be reused also by every revision module.
-						Feature[] negFeatures = Arrays.copyOf(module.getNeg(), module.getNeg().length + 1);
-						negFeatures[negFeatures.length - 1] = feature;
-						// create copy of module with new feature negative
-						Module newModule = this.addModule(module.getPos(), negFeatures);
-						newModule.setCount(module.getCount());
-
-						// do the same for the revision modules
-						for (ModuleRevision moduleRevision : module.getRevisions()) {
-							// create copy of module revision with new feature negative
-							ModuleRevision newModuleRevision = newModule.addRevision(moduleRevision.getPos(), negFeatures);
-							newModuleRevision.setCount(moduleRevision.getCount());
-							// update existing associations that have matching old module with the new module
-							for (Association.Op association : this.getAssociations()) {
-								ModuleCounter existingModuleCounter = association.getCounter().getChild(moduleRevision.getModule());
-								if (existingModuleCounter != null) {
-									ModuleRevisionCounter existingModuleRevisionCounter = existingModuleCounter.getChild(moduleRevision);
-									if (existingModuleRevisionCounter != null) {
-										association.addObservation(newModuleRevision, existingModuleRevisionCounter.getCount());
-									}
-								}
+			this.addNegativeFeatureModules(Collections.singleton(feature));
+		}
+
+		/**
+		 * Adds new modules to the repository that contain the new features negatively. The result is the same as adding the modules for one feature after the other,
+		 * but the observations of the new module revisions are added to the associations in a single pass over the associations.
+		 *
+		 * @param features The new features.
+		 */
+		public default void addNegativeFeatureModules(Collection<? extends Feature> features) {
+			checkNotNull(features);
+
+			// the module revision every new module revision was copied from (directly or via other new module revisions), whose observations are copied to the new module revision
+			Map<ModuleRevision, ModuleRevision> copiedModuleRevisions = new HashMap<>();
+
+			for (Feature feature : features) {
+				// add new modules to the repository that contain the new feature negatively. copies every existing module and adds the new feature negatively.
+				for (int currentOrder = this.getMaxOrder() - 1; currentOrder >= 0; currentOrder--) {
+					Collection<? extends Module> modules = this.getModules(currentOrder);
+					for (Module module : modules) {
+						// only add modules that do not exceed the maximum order of modules in the repository
+						if (module.getOrder() < this.getMaxOrder()) {
+							// create array of negative features. to be reused also by every revision module.
+							Feature[] negFeatures = Arrays.copyOf(module.getNeg(), module.getNeg().length + 1);
+							negFeatures[negFeatures.length - 1] = feature;
+							// create copy of module with new feature negative
+							Module newModule = this.addModule(module.getPos(), negFeatures);
+							newModule.setCount(module.getCount());
+
+							// do the same for the revision modules
+							for (ModuleRevision moduleRevision : module.getRevisions()) {
+								// create copy of module revision with new feature negative
+								ModuleRevision newModuleRevision = newModule.addRevision(moduleRevision.getPos(), negFeatures);
+								newModuleRevision.setCount(moduleRevision.getCount());
+								copiedModuleRevisions.put(newModuleRevision, copiedModuleRevisions.getOrDefault(moduleRevision, moduleRevision));
 							}
 						}
 					}
 				}
 			}
+
+			if (copiedModuleRevisions.isEmpty())
+				return;
+			Map<ModuleRevision, List<ModuleRevision>> copies = new HashMap<>();
+			for (Map.Entry<ModuleRevision, ModuleRevision> entry : copiedModuleRevisions.entrySet()) {
+				copies.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+			}
+
+			// update existing associations that have matching old module with the new module
+			for (Association.Op association : this.getAssociations()) {
+				Map<ModuleRevision, Integer> observations = new HashMap<>();
+				for (ModuleCounter existingModuleCounter : association.getCounter().getChildren()) {
+					for (ModuleRevisionCounter existingModuleRevisionCounter : existingModuleCounter.getChildren()) {
+						List<ModuleRevision> newModuleRevisions = copies.get(existingModuleRevisionCounter.getObject());
+						if (newModuleRevisions != null) {
+							for (ModuleRevision newModuleRevision : newModuleRevisions) {
+								observations.put(newModuleRevision, existingModuleRevisionCounter.getCount());
+							}
+						}
+					}
+				}
+				for (Map.Entry<ModuleRevision, Integer> observation : observations.entrySet()) {
+					association.addObservation(observation.getKey(), observation.getValue());
+				}
+			}
 		}
 
 		/**
@@ -239,6 +274,7 @@ public interface Repository extends Persistable {
 
 			// add new features and feature revisions from configuration to this repository
 			Collection<FeatureRevision> repoFeatureRevisions = new ArrayList<>();
+			Collection<Feature> newFeatures = new ArrayList<>();
 			for (FeatureRevision featureRevision : configuration.getFeatureRevisions()) {
 				Feature feature = featureRevision.getFeature();
 				// get/add feature from/to repository
@@ -247,7 +283,7 @@ public interface Repository extends Persistable {
 					repoFeature = this.addFeature(feature.getId(), feature.getName());
 					repoFeature.setDescription(feature.getDescription());
 
-					this.addNegativeFeatureModules(repoFeature);
+					newFeatures.add(repoFeature);
 				}
 				// get/add feature revision from/to repository
 				FeatureRevision repoFeatureRevision = repoFeature.getRevision(featureRevision.getId());
@@ -257,6 +293,7 @@ public interface Repository extends Persistable {
 				}
 				repoFeatureRevisions.add(repoFeatureRevision);
 			}
+			this.addNegativeFeatureModules(newFeatures);
 			return repoFeatureRevisions;
 		}
 
@@ -464,6 +501,7 @@ public interface Repository extends Persistable {
 
 			Collection<Association.Op> toAdd = new ArrayList<>();
 			Collection<Association.Op> toRemove = new ArrayList<>();
+			Collection<Association.Op> changed = new ArrayList<>();
 
 			// slice new association with every original association
 			for (Association.Op origA : originalAssociations) {
@@ -479,8 +517,10 @@ public interface Repository extends Persistable {
 				// INTERSECTION
 				if (!intA.getRootNode().getChildren().isEmpty()) { // if the intersection association has artifacts store it
 					toAdd.add(intA);
+					changed.add(origA);
 
-					commit.addAssociation(intA);		// add association to new commit
+					if (commit != null)
+						commit.addAssociation(intA);		// add association to new commit
 					for (Commit c : getCommits()) {		// updates associations in previous commits
 						if (c.containsAssociation(origA)) {
 							c.addAssociation(intA);
@@ -498,7 +538,8 @@ public interface Repository extends Persistable {
 				} else {
 					toRemove.add(origA);
 
-					commit.deleteAssociation(origA);			// delete association from new commit		//TODO can there even be any?
+					if (commit != null)
+						commit.deleteAssociation(origA);			// delete association from new commit		//TODO can there even be any?
 					for (Commit c : getCommits()) {				// updates associations in previous commits
 						if (c.containsAssociation(origA)) {
 							c.deleteAssociation(origA);
@@ -511,13 +552,18 @@ public interface Repository extends Persistable {
 			// REMAINDER
 			if (!association.getRootNode().getChildren().isEmpty()) { // if the remainder is not empty store it
 				toAdd.add(association);
-				commit.addAssociation(association);
+				if (commit != null)
+					commit.addAssociation(association);
 
 				Trees.sequence(association.getRootNode());
 				Trees.updateArtifactReferences(association.getRootNode());
 				Trees.checkConsistency(association.getRootNode());
 			}
 
+			// artifacts were moved out of the sliced associations, so their dependencies and the dependencies on them changed
+			this.getAssociationDependencies().invalidate(changed);
+			this.getAssociationArtifactCounts().invalidate(changed);
+
 			// remove associations from repository
 			for (Association.Op origA : toRemove) {
 				this.removeAssociation(origA);
@@ -635,64 +681,41 @@ public interface Repository extends Persistable {
 			return this.compose(configuration, true);
 		}
 
+		/**
+		 * Composes an artifact tree from the associations stored in this repository that implements the given configuration.
+		 * A lazily composed tree computes the children of a node when they are first requested, an eagerly composed tree is composed completely and in parallel before it is returned (see {@link EagerCompositionRootNode}).
+		 *
+		 * @param configuration The configuration for which the implementing artifact tree shall be retrieved.
+		 * @param lazy          Whether the artifact tree is composed lazily.
+		 * @return The checkout object.
+		 */
 		public default Checkout compose(Configuration configuration, boolean lazy) {
 			checkNotNull(configuration);
 
-			Set<Association.Op> selectedAssociations = new HashSet<>();
-			for (Association.Op association : this.getAssociations()) {
-				if (association.computeCondition().holds(configuration)) {
-					selectedAssociations.add(association);
-				}
-			}
+			CheckoutPreview preview = this.preview(configuration);
 
-			Checkout checkout = this.compose(selectedAssociations, lazy);
+			Checkout checkout = this.compose(preview.getSelectedAssociations(), lazy);
 			checkout.setConfiguration(configuration);
+			checkout.setSurplusModules(new HashMap<>(preview.getSurplusModules()));
+			checkout.getMissing().addAll(preview.getMissingModules());
 
-			//Set<ModuleRevision> desiredModules = configuration.computeModules(this.repository.getMaxOrder());
-			Set<ModuleRevision> desiredModules = new HashSet<>(this.getOrphanedConfigurationModules(configuration));
-			Set<ModuleRevision> missingModules = new HashSet<>();
-			//Set<ModuleRevision> surplusModules = new HashSet<>();
-			Map<ModuleRevision,String> surplusModules = new HashMap<>();
-
-			// compute missing
-			for (ModuleRevision desiredModuleRevision : desiredModules) {
-				Feature[] posFeatures = Arrays.stream(desiredModuleRevision.getPos()).map(FeatureRevision::getFeature).toArray(Feature[]::new);
-				Module desiredModule = this.getModule(posFeatures, desiredModuleRevision.getNeg());
-				if (desiredModule == null || desiredModule.getRevision(desiredModuleRevision.getPos(), desiredModuleRevision.getNeg()) == null) {
-					missingModules.add(desiredModuleRevision);
-				}
-			}
+			return checkout;
+		}
 
-			/**
-			 * TODO: trim set of missing modules to only leave modules that are LIKELY missing:
-			 * - exclude missing modules that we know from previous revisions and that did not contain artifacts there.
-			 * - exclude missing higher order modules that are covered entirely by combinations of missing lower order modules (e.g., (A,B,C) can be ignored if (A,B), (A,C), and (B,C) are also missing).
-			 */
-
-			// compute surplus
-			for (Association association : selectedAssociations) {
-				Condition moduleCondition = association.computeCondition();
-				if (moduleCondition.getType() == Condition.TYPE.AND) {
-					Map<Module, Collection<ModuleRevision>> moduleMap = moduleCondition.getModules();
-					for (Map.Entry<Module, Collection<ModuleRevision>> entry : moduleMap.entrySet()) {
-						if (entry.getValue() != null) {
-							for (ModuleRevision existingModuleRevision : entry.getValue()) {
-								if (!desiredModules.contains(existingModuleRevision)) {
-									surplusModules.put(existingModuleRevision,association.getId());
-								}
-							}
-						}
-					}
-				}
-			}
 
-			checkout.setSurplusModules(surplusModules);
-			checkout.getMissing().addAll(missingModules);
+		/**
+		 * Previews the checkout of the given configuration, i.e. computes the associations that would be selected and the missing and surplus module revisions without composing an artifact tree
+		 * or computing dependencies between the associations (see {@link CheckoutPreviewIndex}).
+		 *
+		 * @param configuration The configuration.
+		 * @return The preview.
+		 */
+		public default CheckoutPreview preview(Configuration configuration) {
+			checkNotNull(configuration);
 
-			return checkout;
+			return this.getCheckoutPreviewIndex().preview(configuration);
 		}
 
-
 		public default Checkout compose(Collection<? extends Association.Op> selectedAssociations, boolean lazy) {
 			Node compRootNode;
 			Collection<Artifact<?>> orderWarnings;
@@ -707,14 +730,20 @@ public interface Repository extends Persistable {
 
 				compRootNode = lazyCompRootNode;
 			} else {
-				// TODO: non-lazy composition and computation of order warnings!
-				throw new EccoException("Non-lazy composition not yet implemented!");
+				List<Node> origRootNodes = new ArrayList<>(selectedAssociations.size());
+				for (Association.Op association : selectedAssociations) {
+					origRootNodes.add(association.getRootNode());
+				}
+
+				EagerCompositionRootNode eagerCompRootNode = new EagerCompositionRootNode(origRootNodes);
+
+				orderWarnings = eagerCompRootNode.getOrderSelector().getUncertainOrders();
+
+				compRootNode = eagerCompRootNode;
 			}
 
 			// compute unresolved dependencies
-			DependencyGraph dg = new DependencyGraph(selectedAssociations, DependencyGraph.ReferencesResolveMode.INCLUDE_ALL_REFERENCED_ASSOCIATIONS);
-			Set<Association> unresolvedAssociations = new HashSet<>(dg.getAssociations());
-			unresolvedAssociations.removeAll(selectedAssociations);
+			Set<Association> unresolvedAssociations = this.getAssociationDependencies().getUnresolvedAssociations(selectedAssociations);
 
 			// put together result
 			Checkout checkout = new Checkout();
@@ -736,10 +765,47 @@ public interface Repository extends Persistable {
 		 * @param rootNode The root node of the artifact tree to be mapped.
 		 */
 		public default void map(RootNode.Op rootNode) {
-			Collection<? extends Association.Op> associations = this.getAssociations();
-			for (Association.Op association : associations) {
-				Trees.map(association.getRootNode(), rootNode);
-			}
+			this.getAssociationPathIndex().map(rootNode);
+		}
+
+		/**
+		 * Returns the dependencies between the associations of this repository that are used for finding unresolved associations during composition.
+		 * Implementations should keep them between calls and invalidate the dependencies of removed associations. By default new (not yet computed) dependencies are returned every time.
+		 *
+		 * @return The dependencies between the associations.
+		 */
+		public default AssociationDependencies getAssociationDependencies() {
+			return new AssociationDependencies();
+		}
+
+		/**
+		 * Returns the artifact counts of the associations of this repository that are used for computing its statistics (see {@link AssociationStatistics}).
+		 * Implementations should keep them between calls and invalidate the counts of removed associations. By default new (not yet counted) artifact counts are returned every time.
+		 *
+		 * @return The artifact counts of the associations.
+		 */
+		public default AssociationStatistics.ArtifactCounts getAssociationArtifactCounts() {
+			return new AssociationStatistics.ArtifactCounts();
+		}
+
+		/**
+		 * Returns the index of the association nodes by path that is used for mapping trees to the repository (see {@link #map(RootNode.Op)}).
+		 * Implementations should keep the index between calls and discard it whenever associations are added or removed. By default a new index is created every time.
+		 *
+		 * @return The index of the association nodes.
+		 */
+		public default AssociationPathIndex getAssociationPathIndex() {
+			return new AssociationPathIndex(this.getAssociations());
+		}
+
+		/**
+		 * Returns the index of the association conditions that is used for previewing checkouts (see {@link #preview(Configuration)}).
+		 * Implementations should keep the index between calls and discard it whenever associations, features or modules are added or removed or a commit is added. By default a new index is created every time.
+		 *
+		 * @return The index of the association conditions.
+		 */
+		public default CheckoutPreviewIndex getCheckoutPreviewIndex() {
+			return new CheckoutPreviewIndex(this);
 		}
 
 
@@ -870,9 +936,46 @@ public interface Repository extends Persistable {
 		}
 
 		public default Repository.Op subset(Collection<FeatureRevision> deselected, int maxOrder, EntityFactory entityFactory) {
+			RepositorySubsetSink sink = new RepositorySubsetSink();
+			this.subset(deselected, maxOrder, entityFactory, sink);
+			return sink.getRepository();
+		}
+
+		/**
+		 * Computes the subset of this repository that does not contain the deselected feature revisions and modules above the given maximum order, and passes it to the given sink piece by piece.
+		 * The associations of the subset are copied and passed on one after the other, so that the subset never has to be held as a whole (see {@link SubsetSink}). This repository is not changed.
+		 * If a selected association depends on an association that is not selected, an {@link EccoException} is thrown before anything is passed to the sink.
+		 *
+		 * @param deselected    The deselected feature revisions.
+		 * @param maxOrder      The maximum order of modules in the subset.
+		 * @param entityFactory The entity factory used for creating the subset.
+		 * @param sink          The sink receiving the subset.
+		 */
+		public default void subset(Collection<FeatureRevision> deselected, int maxOrder, EntityFactory entityFactory, SubsetSink sink) {
+			this.subset(deselected, maxOrder, entityFactory, association -> true, sink);
+		}
+
+		/**
+		 * Computes the subset of this repository like {@link #subset(Collection, int, EntityFactory, SubsetSink)}, but only copies the selected associations that are accepted by the given filter
+		 * (e.g. to leave out the associations the receiver already contains, see {@link Fingerprints}). The trees of the copied associations may then contain non-unique nodes whose artifacts are contained
+		 * in associations that were left out, so such a subset is only complete together with a repository that contains them (see {@link RepositorySubsetSink#RepositorySubsetSink(boolean)}).
+		 * <p>
+		 * Merging a subset adds one observation of each of its module revisions to the receiver. So that the conditions of the left out associations stay intact at the receiver,
+		 * an association is only left out if all associations that share a module revision with it are left out as well, and the module revisions of left out associations are not observed (i.e. have a count of zero).
+		 * Likewise, an association is not left out if a copied association references one of its artifacts, as the copied references would otherwise be dropped.
+		 *
+		 * @param deselected    The deselected feature revisions.
+		 * @param maxOrder      The maximum order of modules in the subset.
+		 * @param entityFactory The entity factory used for creating the subset.
+		 * @param filter        The filter that is applied to every association that is selected by the subset.
+		 * @param sink          The sink receiving the subset.
+		 */
+		public default void subset(Collection<FeatureRevision> deselected, int maxOrder, EntityFactory entityFactory, Predicate<? super Association.Op> filter, SubsetSink sink) {
 			checkNotNull(deselected);
 			checkArgument(maxOrder <= this.getMaxOrder());
 			checkNotNull(entityFactory);
+			checkNotNull(filter);
+			checkNotNull(sink);
 
 			// create empty repository using the given entity factory
 			Repository.Op newRepository = entityFactory.createRepository();
@@ -895,9 +998,13 @@ public interface Repository extends Persistable {
 				}
 			}
 
-			// for every association in this repository: trim condition, use it to check if matching association already exists, if not create it, add observations based on trimmed condition, copy artifact tree and trim order graphs. (basically current merge implementation)
-			Map<Set<ModuleRevision>, Association.Op> andConditionAssociationMap = new HashMap<>();
-			Map<Set<ModuleRevision>, Association.Op> orConditionAssociationMap = new HashMap<>();
+			// for every association in this repository: trim condition and use it to group the associations with equal conditions (each group becomes one association of the subset). this adds all modules to the subset repository before any artifact tree is copied.
+			Map<Set<ModuleRevision>, List<Association.Op>> andConditionAssociationMap = new LinkedHashMap<>();
+			Map<Set<ModuleRevision>, List<Association.Op>> orConditionAssociationMap = new LinkedHashMap<>();
+			Set<Association> selectedAssociations = Collections.newSetFromMap(new IdentityHashMap<>());
+			Map<Association.Op, Set<ModuleRevision>> associationModuleRevisions = new LinkedHashMap<>();
+			Map<Association.Op, Condition.TYPE> conditionTypes = new IdentityHashMap<>();
+			Set<Association.Op> rejectedAssociations = Collections.newSetFromMap(new IdentityHashMap<>());
 			for (Association.Op association : this.getAssociations()) {
 				Condition condition = association.computeCondition();
 
@@ -936,97 +1043,132 @@ public interface Repository extends Persistable {
 				}
 
 				// check if association has at least one module, if not exclude it
-				if (!newModuleRevisions.isEmpty()) {
+				if (!newModuleRevisions.isEmpty() && (condition.getType() == Condition.TYPE.AND || condition.getType() == Condition.TYPE.OR)) {
+					conditionTypes.put(association, condition.getType());
+					associationModuleRevisions.put(association, newModuleRevisions);
+					if (!filter.test(association))
+						rejectedAssociations.add(association);
+				}
+			}
 
-					// check if a new association with equal condition (ignoring negative features without revisions) already exists
-					Association.Op newAssociation = null;
-					boolean newAssoc = false;
-					if (condition.getType() == Condition.TYPE.AND) {
-						// for an AND condition set association, module and combined count to 1
-						newAssociation = andConditionAssociationMap.get(newModuleRevisions);
-						// if not create a new association
-						if (newAssociation == null) {
-							newAssoc = true;
-							newAssociation = this.getEntityFactory().createAssociation();
-							newAssociation.setId(UUID.randomUUID().toString());
-							andConditionAssociationMap.put(newModuleRevisions, newAssociation);
-							newAssociation.getCounter().setCount(1);
-						}
-					} else if (condition.getType() == Condition.TYPE.OR) {
-						// for an OR condition set association=2, module=1 and combined count to 1
-						newAssociation = orConditionAssociationMap.get(newModuleRevisions);
-						// if not create a new association
-						if (newAssociation == null) {
-							newAssoc = true;
-							newAssociation = this.getEntityFactory().createAssociation();
-							newAssociation.setId(UUID.randomUUID().toString());
-							orConditionAssociationMap.put(newModuleRevisions, newAssociation);
-							newAssociation.getCounter().setCount(2);
-						}
-					}
-					if (newAssoc) {
-						newAssociation.setRootNode(entityFactory.createRootNode());
-						// add new association to subset repository
-						newRepository.addAssociation(newAssociation);
-					}
+			// abort if a selected association depends on an association that is not selected, before anything is passed to the sink (e.g. sent to a remote)
+			for (Association.Op association : associationModuleRevisions.keySet()) {
+				for (Association dependency : this.getAssociationDependencies().getDependencies(association).keySet()) {
+					if (!associationModuleRevisions.containsKey(dependency))
+						throw new EccoException("Unresolved dependencies in selection.");
+				}
+			}
 
-					// add observations to new association
-					for (ModuleRevision newModuleRevision : newModuleRevisions) {
-						// add module revisions as observations to new association
-						ModuleCounter newModuleCounter = newAssociation.getCounter().getChild(newModuleRevision.getModule());
-						// check if observation is already part of this association
-						if (!(newModuleCounter != null && newModuleCounter.getChild(newModuleRevision) != null)) {
-							newAssociation.addObservation(newModuleRevision, 1);
-						}
+			// associations that were rejected by the filter but share a module revision with an accepted association are accepted too, as the module revision is observed again.
+			// so are associations containing targets of artifact references of accepted associations, as the copies of references to artifacts that are not copied are dropped.
+			Set<ModuleRevision> observedModuleRevisions = new HashSet<>();
+			Set<Association> referencedAssociations = Collections.newSetFromMap(new IdentityHashMap<>());
+			associationModuleRevisions.forEach((association, newModuleRevisions) -> {
+				if (!rejectedAssociations.contains(association)) {
+					observedModuleRevisions.addAll(newModuleRevisions);
+					referencedAssociations.addAll(this.getAssociationDependencies().getReferencedAssociations(association));
+				}
+			});
+			boolean accepted;
+			do {
+				accepted = false;
+				Iterator<Association.Op> it = rejectedAssociations.iterator();
+				while (it.hasNext()) {
+					Association.Op association = it.next();
+					Set<ModuleRevision> newModuleRevisions = associationModuleRevisions.get(association);
+					if (referencedAssociations.contains(association) || newModuleRevisions.stream().anyMatch(observedModuleRevisions::contains)) {
+						it.remove();
+						observedModuleRevisions.addAll(newModuleRevisions);
+						referencedAssociations.addAll(this.getAssociationDependencies().getReferencedAssociations(association));
+						accepted = true;
 					}
-
-					// copy artifact tree
-					RootNode.Op copiedRootNode = entityFactory.createRootNode();
-					// clone tree
-					for (Node.Op childNode : association.getRootNode().getChildren()) {
-						Node.Op copiedChildNode = EccoUtil.deepCopyTree(childNode, entityFactory);
-						copiedRootNode.addChild(copiedChildNode);
-						copiedChildNode.setParent(copiedRootNode);
+				}
+			} while (accepted);
+
+			// module revisions of rejected associations are not observed
+			for (int order = 0; order <= newRepository.getMaxOrder(); order++) {
+				for (Module newModule : newRepository.getModules(order)) {
+					for (ModuleRevision newModuleRevision : newModule.getRevisions()) {
+						if (!observedModuleRevisions.contains(newModuleRevision))
+							newModuleRevision.setCount(0);
 					}
-
-					// merge copied artifact tree into artifact tree of new association
-					newAssociation.getRootNode().merge(copiedRootNode);
+					if (newModule.getRevisions().stream().noneMatch(observedModuleRevisions::contains))
+						newModule.setCount(0);
 				}
 			}
 
-			Collection<? extends Association.Op> newAssociations = newRepository.getAssociations();
+			for (Map.Entry<Association.Op, Set<ModuleRevision>> entry : associationModuleRevisions.entrySet()) {
+				if (!rejectedAssociations.contains(entry.getKey())) {
+					// associations with equal condition (ignoring negative features without revisions) are merged
+					if (conditionTypes.get(entry.getKey()) == Condition.TYPE.AND) {
+						andConditionAssociationMap.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+					} else {
+						orConditionAssociationMap.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+					}
+					selectedAssociations.add(entry.getKey());
+				}
+			}
 
-			// trim sequence graphs to only contain artifacts from the selected associations
-			for (Association.Op newAssociation : newAssociations) {
-				newAssociation.getRootNode().traverse((Node.Op node) -> {
-					if (node.getArtifact() != null && node.getArtifact().isOrdered() && node.getArtifact().isSequenced() && node.getArtifact().getPartialOrderGraph() != null) {
-						if (node.isUnique() && node.getArtifact() != null && node.getArtifact().getPartialOrderGraph() != null) {
-							// get all symbols from sequence graph
-							Collection<? extends Artifact.Op<?>> symbols = node.getArtifact().getPartialOrderGraph().collectNodes().stream().map(PartialOrderGraph.Node.Op::getArtifact).collect(Collectors.toList());
+			sink.begin(newRepository);
+
+			// the associations of the subset that were created so far
+			Set<Association> newAssociations = Collections.newSetFromMap(new IdentityHashMap<>());
+			// the copies of the artifacts of this repository. they are not set as replacing artifacts, as this repository must not be changed (it may be shared by read only connections).
+			Map<Artifact.Op<?>, Artifact.Op<?>> copies = new IdentityHashMap<>();
+			for (Condition.TYPE type : new Condition.TYPE[]{Condition.TYPE.AND, Condition.TYPE.OR}) {
+				for (Map.Entry<Set<ModuleRevision>, List<Association.Op>> entry : (type == Condition.TYPE.AND ? andConditionAssociationMap : orConditionAssociationMap).entrySet()) {
+					Association.Op newAssociation = this.getEntityFactory().createAssociation();
+					newAssociation.setId(UUID.randomUUID().toString());
+					newAssociation.setRootNode(entityFactory.createRootNode());
+					newAssociations.add(newAssociation);
+					if (type == Condition.TYPE.AND) {
+						// for an AND condition set association, module and combined count to 1
+						newAssociation.getCounter().setCount(1);
+					} else {
+						// for an OR condition set association=2, module=1 and combined count to 1
+						newAssociation.getCounter().setCount(2);
+					}
 
-							// remove symbols that are not contained in the given associations
-							symbols.removeIf(symbol -> symbol != null && !newAssociations.contains(symbol.getContainingNode().getContainingAssociation()));
+					// add module revisions as observations to new association
+					for (ModuleRevision newModuleRevision : entry.getKey()) {
+						newAssociation.addObservation(newModuleRevision, 1);
+					}
 
-							// trim sequence graph
-							node.getArtifact().getPartialOrderGraph().trim(symbols);
+					for (Association.Op association : entry.getValue()) {
+						// copy artifact tree
+						RootNode.Op copiedRootNode = entityFactory.createRootNode();
+						// clone tree
+						for (Node.Op childNode : association.getRootNode().getChildren()) {
+							Node.Op copiedChildNode = EccoUtil.deepCopyTree(childNode, entityFactory, copies);
+							copiedRootNode.addChild(copiedChildNode);
+							copiedChildNode.setParent(copiedRootNode);
 						}
+
+						// merge copied artifact tree into artifact tree of new association
+						newAssociation.getRootNode().merge(copiedRootNode);
 					}
-				});
-			}
 
-			// check consistency of copied trees
-			for (Association.Op newAssociation : newAssociations) {
-				Trees.checkConsistency(newAssociation.getRootNode());
-			}
+					// trim sequence graphs to only contain artifacts from the selected associations. symbols of associations that were not copied yet have no containing node.
+					newAssociation.getRootNode().traverse((Node.Op node) -> {
+						if (node.getArtifact() != null && node.getArtifact().isOrdered() && node.getArtifact().isSequenced() && node.getArtifact().getPartialOrderGraph() != null) {
+							if (node.isUnique() && node.getArtifact() != null && node.getArtifact().getPartialOrderGraph() != null) {
+								// get all symbols from sequence graph
+								Collection<? extends Artifact.Op<?>> symbols = node.getArtifact().getPartialOrderGraph().collectNodes().stream().map(PartialOrderGraph.Node.Op::getArtifact).collect(Collectors.toList());
 
-			// compute dependency graph for selected associations and check if there are any unresolved dependencies.
-			DependencyGraph dg = new DependencyGraph(newAssociations, DependencyGraph.ReferencesResolveMode.LEAVE_REFERENCES_UNRESOLVED); // we do not trim unresolved references. instead we abort.
-			if (!dg.getUnresolvedDependencies().isEmpty()) {
-				throw new EccoException("Unresolved dependencies in selection.");
-			}
+								// remove symbols that are not contained in the given associations
+								symbols.removeIf(symbol -> symbol != null && symbol.getContainingNode() != null && !selectedAssociations.contains(symbol.getContainingNode().getContainingAssociation()) && !newAssociations.contains(symbol.getContainingNode().getContainingAssociation()));
 
+								// trim sequence graph
+								node.getArtifact().getPartialOrderGraph().trim(symbols);
+							}
+						}
+					});
 
-			return newRepository;
+					sink.accept(newAssociation);
+				}
+			}
+
+			sink.end();
 		}
 
 		/**
@@ -1045,6 +1187,7 @@ public interface Repository extends Persistable {
 			// extract every association. treat it as if it was an input product. only that there is no configuration.
 
 			// add features (that have at least one revision) and feature revisions in other repository to this repository
+			Collection<Feature> newFeatures = new ArrayList<>();
 			for (Feature otherFeature : otherRepository.getFeatures()) {
 				if (!otherFeature.getRevisions().isEmpty()) {
 					Feature repoFeature = this.getFeature(otherFeature.getId());
@@ -1052,7 +1195,7 @@ public interface Repository extends Persistable {
 						repoFeature = this.addFeature(otherFeature.getId(), otherFeature.getName());
 						repoFeature.setDescription(otherFeature.getDescription());
 
-						this.addNegativeFeatureModules(repoFeature);
+						newFeatures.add(repoFeature);
 					}
 					for (FeatureRevision otherFeatureRevision : otherFeature.getRevisions()) {
 						FeatureRevision repoFeatureRevision = repoFeature.getRevision(otherFeatureRevision.getId());
@@ -1064,16 +1207,19 @@ public interface Repository extends Persistable {
 				}
 			}
 
+			// the new features are added to the modules in one batch
+			this.addNegativeFeatureModules(newFeatures);
+
 			// add features in this repository that are not in other repository negatively to other repository
 			Set<Feature> negFeaturesWithoutRevisions = new HashSet<>();
 			for (Feature feature : this.getFeatures()) {
 				if (otherRepository.getFeature(feature.getId()) == null) {
 					Feature otherFeature = otherRepository.addFeature(feature.getId(), feature.getName());
 					otherFeature.setDescription(feature.getDescription());
-					otherRepository.addNegativeFeatureModules(otherFeature);
 					negFeaturesWithoutRevisions.add(otherFeature);
 				}
 			}
+			otherRepository.addNegativeFeatureModules(negFeaturesWithoutRevisions);
 
 			// add modules and module revisions (i.e. add new ones and increase the counters of existing ones)
 			for (int order = 0; order <= this.getMaxOrder(); order++) {
@@ -1097,7 +1243,8 @@ public interface Repository extends Persistable {
 				}
 			}
 
-			// for every association in other repository
+			// copy every association in other repository
+			List<Association.Op> newAssociations = new ArrayList<>();
 			for (Association.Op otherAssociation : otherRepository.getAssociations()) {
 				// prepare new associations for commit
 				Association.Op association = this.getEntityFactory().createAssociation();
@@ -1123,7 +1270,7 @@ public interface Repository extends Persistable {
 					Module module = this.getModule(otherModule.getPos(), otherModule.getNeg());
 
 					if (module == null)
-						throw new EccoException("Association to be merged into this repository contains module " + module + " which is not part of this repository.");
+						throw new EccoException("Association to be merged into this repository contains module " + otherModule + " which is not part of this repository.");
 
 					ModuleCounter moduleCounter = association.getCounter().addChild(module);
 					moduleCounter.setCount(otherModuleCounter.getCount());
@@ -1137,8 +1284,80 @@ public interface Repository extends Persistable {
 					}
 				}
 
-				// commit association to this repository
-				this.extract(association, null);
+				Trees.checkConsistency(association.getRootNode());
+				newAssociations.add(association);
+			}
+
+			// commit the copied associations to this repository. this has the same result as extracting one copied association after the other (see extract(Association.Op, Commit)).
+			// the unique artifacts of the associations of each repository are disjoint, so the copied associations only have non-empty intersections with the original associations of this repository, and only with those whose trees overlap.
+			// the overlapping pairs are found in one traversal of all trees instead of slicing every copied association with every association of this repository.
+			List<Association.Op> originalAssociations = new ArrayList<>(this.getAssociations());
+			AssociationOverlap overlap = new AssociationOverlap(originalAssociations, newAssociations);
+
+			Collection<Association.Op> toAdd = new ArrayList<>();
+			Set<Association.Op> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (Association.Op association : newAssociations) {
+				for (Association.Op origA : overlap.getOverlapping(association)) {
+					// slice the associations. the "left" association's features and artifacts are maintained. the "right" association's features and artifacts are replaced by the "left" association's.
+					Association.Op intA = this.getEntityFactory().createAssociation();
+					intA.setId(UUID.randomUUID().toString());
+					intA.setRootNode((RootNode.Op) Trees.slice(origA.getRootNode(), association.getRootNode()));
+
+					// INTERSECTION
+					if (!intA.getRootNode().getChildren().isEmpty()) { // if the intersection association has artifacts store it
+						toAdd.add(intA);
+						changed.add(origA);
+
+						for (Commit c : getCommits()) {		// updates associations in previous commits
+							if (c.containsAssociation(origA)) {
+								c.addAssociation(intA);
+							}
+						}
+
+						Trees.checkConsistency(intA.getRootNode());
+						intA.getCounter().add(origA.getCounter());
+						intA.getCounter().add(association.getCounter());
+					}
+				}
+
+				// REMAINDER
+				if (!association.getRootNode().getChildren().isEmpty()) { // if the remainder is not empty store it
+					toAdd.add(association);
+
+					Trees.sequence(association.getRootNode());
+					Trees.updateArtifactReferences(association.getRootNode());
+					Trees.checkConsistency(association.getRootNode());
+				}
+			}
+
+			// ORIGINAL
+			Collection<Association.Op> toRemove = new ArrayList<>();
+			for (Association.Op origA : changed) {
+				if (!origA.getRootNode().getChildren().isEmpty()) { // if the original association has artifacts left
+					Trees.checkConsistency(origA.getRootNode());
+				} else {
+					toRemove.add(origA);
+
+					for (Commit c : getCommits()) {				// updates associations in previous commits
+						if (c.containsAssociation(origA)) {
+							c.deleteAssociation(origA);
+						}
+					}
+				}
+			}
+
+			// artifacts were moved out of the sliced associations, so their dependencies and the dependencies on them changed
+			this.getAssociationDependencies().invalidate(changed);
+			this.getAssociationArtifactCounts().invalidate(changed);
+
+			// remove associations from repository
+			for (Association.Op origA : toRemove) {
+				this.removeAssociation(origA);
+			}
+
+			// add associations to repository
+			for (Association.Op newA : toAdd) {
+				this.addAssociation(newA);
 			}
 		}
 
@@ -0,0 +1,108 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.artifact.ArtifactReference;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.DependencyGraph;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.util.Trees;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Collects a subset into a repository, i.e. adds the received associations to the received subset repository.
+ * This can also be used to rebuild a subset that was received piece by piece (e.g. deserialized from a stream), as it completes the containing nodes of artifacts and the artifact references
+ * that were only set after the association containing them was passed on.
+ */
+public class RepositorySubsetSink implements SubsetSink {
+
+	private Repository.Op repository;
+
+	private final Collection<Association.Op> associations;
+
+	private final boolean complete;
+
+	public RepositorySubsetSink() {
+		this(true);
+	}
+
+	/**
+	 * @param complete Whether the subset contains all associations it depends on. This is not the case if associations were left out by a filter
+	 *                 (see {@link Repository.Op#subset(Collection, int, EntityFactory, Predicate, SubsetSink)}), in which case the dependencies are not checked.
+	 */
+	public RepositorySubsetSink(boolean complete) {
+		this.repository = null;
+		this.associations = new ArrayList<>();
+		this.complete = complete;
+	}
+
+	/**
+	 * Returns the subset repository. It is complete once {@link #end()} was called.
+	 *
+	 * @return The subset repository.
+	 */
+	public Repository.Op getRepository() {
+		return this.repository;
+	}
+
+	@Override
+	public void begin(Repository.Op repository) {
+		checkNotNull(repository);
+		checkState(this.repository == null, "Subset has already begun.");
+
+		this.repository = repository;
+	}
+
+	@Override
+	public void accept(Association.Op association) {
+		checkNotNull(association);
+		checkState(this.repository != null, "Subset has not begun.");
+
+		this.associations.add(association);
+		this.repository.addAssociation(association);
+	}
+
+	@Override
+	public void end() {
+		checkState(this.repository != null, "Subset has not begun.");
+
+		// unique nodes contain their artifacts and artifact references are known to both of their artifacts
+		for (Association.Op association : this.associations) {
+			association.getRootNode().traverse((Node.Op node) -> {
+				if (node.isUnique() && node.getArtifact() != null) {
+					if (node.getArtifact().getContainingNode() != node)
+						node.getArtifact().setContainingNode(node);
+					for (ArtifactReference.Op uses : node.getArtifact().getUses()) {
+						if (!uses.getTarget().getUsedBy().contains(uses))
+							uses.getTarget().addUsedBy(uses);
+					}
+					for (ArtifactReference.Op usedBy : node.getArtifact().getUsedBy()) {
+						if (!usedBy.getSource().getUses().contains(usedBy))
+							usedBy.getSource().addUses(usedBy);
+					}
+				}
+			});
+		}
+
+		// check consistency of copied trees
+		for (Association.Op association : this.associations) {
+			Trees.checkConsistency(association.getRootNode());
+		}
+
+		if (!this.complete)
+			return;
+
+		// compute dependency graph for selected associations and check if there are any unresolved dependencies.
+		DependencyGraph dg = new DependencyGraph(this.associations, DependencyGraph.ReferencesResolveMode.LEAVE_REFERENCES_UNRESOLVED); // we do not trim unresolved references. instead we abort.
+		if (!dg.getUnresolvedDependencies().isEmpty()) {
+			throw new EccoException("Unresolved dependencies in selection.");
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+package at.jku.isse.ecco.repository;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.feature.FeatureRevision;
+
+import java.util.Collection;
+
+/**
+ * Receives the subset of a repository computed by {@link Repository.Op#subset(Collection, int, EntityFactory, SubsetSink)} piece by piece, so that the subset does not have to be held as a whole
+ * (e.g. to send it over the network). First the subset repository with its features and modules but without associations is passed to {@link #begin(Repository.Op)},
+ * then every association of the subset to {@link #accept(Association.Op)} and finally {@link #end()} is called.
+ * <p>
+ * The artifact trees of the associations share artifacts: non-unique nodes refer to the artifacts of unique nodes in other associations and artifacts refer to each other.
+ * The containing node of an artifact and the artifact references between associations are only complete once all associations were passed to the sink (see {@link RepositorySubsetSink}).
+ */
+public interface SubsetSink {
+
+	/**
+	 * Receives the subset repository with all its features and modules, but without associations.
+	 *
+	 * @param repository The subset repository.
+	 */
+	public void begin(Repository.Op repository);
+
+	/**
+	 * Receives the next association of the subset with its copied and trimmed artifact tree.
+	 *
+	 * @param association The association.
+	 */
+	public void accept(Association.Op association);
+
+	/**
+	 * Called after all associations of the subset were passed to the sink.
+	 */
+	public void end();
+
+}
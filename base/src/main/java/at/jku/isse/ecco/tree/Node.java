@@ -125,6 +125,16 @@ public interface Node extends Persistable {
 		return Trees.countArtifactsPerDepth(this);
 	}
 
+	/**
+	 * Returns the structural hash of the tree rooted at this node (see {@link at.jku.isse.ecco.util.Trees#computeStructuralHash(Node)}).
+	 * Implementations may cache it as long as the artifact and the children of this node and its descendants do not change.
+	 *
+	 * @return The structural hash of the tree.
+	 */
+	public default int getStructuralHash() {
+		return Trees.computeStructuralHash(this);
+	}
+
 	/**
 	 * See {@link at.jku.isse.ecco.util.Trees#print(Node)}
 	 */
@@ -67,6 +67,9 @@ public class Trees {
 
 
 			if (left.getArtifact().isAtomic()) {
+				// check the whole atomic subtrees before any artifact is replaced
+				if (left.getStructuralHash() != right.getStructuralHash())
+					throw new EccoException("Equal atomic nodes must have identical children!");
 				Trees.matchAtomicArtifacts(left, right);
 				return left;
 			} else if (left.getArtifact() != right.getArtifact()) {
@@ -113,10 +116,12 @@ public class Trees {
 
 
 		Iterator<? extends Node.Op> leftChildrenIterator = left.getChildren().iterator();
+		int li = 0;
 		while (leftChildrenIterator.hasNext()) {
 			Node.Op leftChild = leftChildrenIterator.next();
 
-			int ri = right.getChildren().indexOf(leftChild);
+			int ri = indexOfChild(right, leftChild, li);
+			li++;
 			if (ri == -1)
 				continue;
 
@@ -134,11 +139,13 @@ public class Trees {
 				rightChild.setParent(null);
 
 				leftChildrenIterator.remove();
+				li--;
 				right.getChildren().remove(rightChild);
 			} else {
 				if (!leftChild.isUnique() && leftChild.getChildren().isEmpty()) {
 					leftChild.setParent(null);
 					leftChildrenIterator.remove();
+					li--;
 				}
 
 				if (!rightChild.isUnique() && rightChild.getChildren().isEmpty()) {
@@ -180,8 +187,9 @@ public class Trees {
 			throw new EccoException("Equal atomic nodes must have identical children!");
 		}
 
-		for (Node.Op leftChild : left.getChildren()) {
-			int ri = right.getChildren().indexOf(leftChild);
+		for (int li = 0; li < left.getChildren().size(); li++) {
+			Node.Op leftChild = left.getChildren().get(li);
+			int ri = indexOfChild(right, leftChild, li);
 			if (ri == -1) {
 				throw new EccoException("Equal atomic nodes must have identical children!");
 				//continue;
@@ -214,9 +222,10 @@ public class Trees {
 
 		// deal with children
 		Iterator<? extends Node.Op> iterator = right.getChildren().iterator();
+		int ri = 0;
 		while (iterator.hasNext()) {
 			Node.Op rightChild = iterator.next();
-			int li = left.getChildren().indexOf(rightChild);
+			int li = indexOfChild(left, rightChild, ri++);
 			if (li != -1) {
 				Node.Op leftChild = left.getChildren().get(li);
 
@@ -407,10 +416,11 @@ public class Trees {
 	 */
 	public static boolean equals(Node left, Node right) {
 		Iterator<? extends Node> leftChildrenIterator = left.getChildren().iterator();
+		int li = 0;
 		while (leftChildrenIterator.hasNext()) {
 			Node leftChild = leftChildrenIterator.next();
 
-			int ri = right.getChildren().indexOf(leftChild);
+			int ri = indexOfChild(right, leftChild, li++);
 			if (ri == -1)
 				return false;
 
@@ -434,6 +444,37 @@ public class Trees {
 	 * @param right Root node of the second tree.
 	 */
 	public static void map(Node.Op left, Node.Op right) {
+		Trees.mapNode(left, right);
+
+
+		for (int li = 0; li < left.getChildren().size(); li++) {
+			Node.Op leftChild = left.getChildren().get(li);
+			int ri = indexOfChild(right, leftChild, li);
+			if (ri == -1)
+				continue;
+
+			Node.Op rightChild = right.getChildren().get(ri);
+
+			Trees.map(leftChild, rightChild);
+		}
+
+
+//		if (left.getArtifact() != null && right.getArtifact() != null) {
+//			if (left.getArtifact().isOrdered()) {
+//				if (left.getArtifact().isSequenced() && !right.getArtifact().isSequenced()) {
+//					right.getChildren().forEach((Node.Op n) -> n.getArtifact().setSequenceNumber(PartialOrderGraph.NOT_MATCHED_SEQUENCE_NUMBER));
+//				}
+//			}
+//		}
+	}
+
+	/**
+	 * Maps the artifact of node right to the artifact of node left like {@link #map(Node.Op, Node.Op)}, but does not descend into the children of the nodes.
+	 *
+	 * @param left  The first node.
+	 * @param right The second node.
+	 */
+	public static void mapNode(Node.Op left, Node.Op right) {
 		if (!left.equals(right))
 			throw new EccoException("Mapping of non-equal nodes is not allowed!");
 
@@ -460,6 +501,9 @@ public class Trees {
 
 			if (left.isUnique()) {
 				if (left.getArtifact().isAtomic()) {
+					// check the whole atomic subtrees before any artifact is mapped
+					if (left.getStructuralHash() != right.getStructuralHash())
+						throw new EccoException("Equal atomic nodes must have identical children!");
 					Trees.mapAtomicArtifacts(left, right);
 				} else if (left.getArtifact() != right.getArtifact() && right.getArtifact().getReplacingArtifact() != left.getArtifact()) {
 					right.getArtifact().putProperty(Artifact.PROPERTY_MAPPED_ARTIFACT, left.getArtifact());
@@ -468,26 +512,6 @@ public class Trees {
 				}
 			}
 		}
-
-
-		for (Node.Op leftChild : left.getChildren()) {
-			int ri = right.getChildren().indexOf(leftChild);
-			if (ri == -1)
-				continue;
-
-			Node.Op rightChild = right.getChildren().get(ri);
-
-			Trees.map(leftChild, rightChild);
-		}
-
-
-//		if (left.getArtifact() != null && right.getArtifact() != null) {
-//			if (left.getArtifact().isOrdered()) {
-//				if (left.getArtifact().isSequenced() && !right.getArtifact().isSequenced()) {
-//					right.getChildren().forEach((Node.Op n) -> n.getArtifact().setSequenceNumber(PartialOrderGraph.NOT_MATCHED_SEQUENCE_NUMBER));
-//				}
-//			}
-//		}
 	}
 
 	private static void mapAtomicArtifacts(Node.Op left, Node.Op right) {
@@ -499,8 +523,9 @@ public class Trees {
 			throw new EccoException("Equal atomic nodes must have identical children!");
 		}
 
-		for (Node.Op leftChild : left.getChildren()) {
-			int ri = right.getChildren().indexOf(leftChild);
+		for (int li = 0; li < left.getChildren().size(); li++) {
+			Node.Op leftChild = left.getChildren().get(li);
+			int ri = indexOfChild(right, leftChild, li);
 			if (ri == -1) {
 				throw new EccoException("Equal atomic nodes must have identical children!");
 			}
@@ -512,6 +537,42 @@ public class Trees {
 	}
 
 
+	/**
+	 * Returns the index of the child of the given parent that is equal to the given child, or -1 if there is none.
+	 * The child at the given index is tried first, as equal children are usually at the same position in both trees (e.g. in unchanged subtrees), so that matching such subtrees does not search the children.
+	 *
+	 * @param parent The node whose children are searched.
+	 * @param child  The child to look for.
+	 * @param index  The index at which the child is expected.
+	 * @return The index of the equal child.
+	 */
+	private static int indexOfChild(Node parent, Node child, int index) {
+		List<? extends Node> children = parent.getChildren();
+		if (index >= 0 && index < children.size() && children.get(index).equals(child))
+			return index;
+		return children.indexOf(child);
+	}
+
+
+	/**
+	 * Computes a hash of the tree rooted at the given node from the hash codes of the artifacts in the tree.
+	 * Trees that are equal (i.e. whose nodes are equal and have pairwise equal children) have equal structural hashes, so trees with different structural hashes can be told apart without traversing them.
+	 * The hashes of the children are combined independently of their order, as children are matched by equality and not by position (also below ordered nodes, where the sequence numbers tell apart equal artifacts).
+	 * Whether nodes are unique is not part of the hash.
+	 *
+	 * @param node The root of the tree.
+	 * @return The structural hash of the tree.
+	 */
+	public static int computeStructuralHash(Node node) {
+		int childrenHash = 0;
+		for (Node child : node.getChildren()) {
+			int childHash = child.getStructuralHash();
+			childrenHash += (childHash ^ (childHash >>> 16)) * 0x45d9f3b;
+		}
+		return 31 * (node.getArtifact() != null ? node.getArtifact().hashCode() : 0) + childrenHash;
+	}
+
+
 	/**
 	 * Composes a new tree from the given trees using clone/add/merge/etc. operations on the given trees without modifying them.
 	 *
@@ -1,7 +1,26 @@
 package at.jku.isse.ecco.test;
+import at.jku.isse.ecco.adapter.file.FileArtifactData;
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.DependencyGraph;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.feature.Feature;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.module.Condition;
+import at.jku.isse.ecco.module.Module;
+import at.jku.isse.ecco.module.ModuleRevision;
+import at.jku.isse.ecco.repository.CheckoutPreview;
+import at.jku.isse.ecco.repository.Repository;
 import at.jku.isse.ecco.service.EccoService;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+import com.google.common.io.MoreFiles;
 import com.google.common.io.RecursiveDeleteOption;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 
@@ -10,13 +29,271 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import static com.google.common.io.MoreFiles.deleteDirectoryContents;
 public class RepositoryTest {
     Path basePath = Path.of("D:\\Eigene Daten\\Studium\\Studium\\LVAs\\6_Semester\\Bsc\\ecco\\examples\\image_variants"); //TODO adapt path
 
+    private Path tempDir;
+
+    @BeforeMethod(alwaysRun = true)
+    public void createTempDir() throws IOException {
+        this.tempDir = Files.createTempDirectory("ecco-repository-test");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteTempDir() throws IOException {
+        MoreFiles.deleteRecursively(this.tempDir, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    /**
+     * Writes the given files (path and content pairs) into a new variant directory and commits it with the given configuration.
+     */
+    private void commitVariant(EccoService service, String name, String configuration, String... files) throws IOException {
+        Path variantDir = Files.createDirectories(this.tempDir.resolve(name));
+        for (int i = 0; i < files.length; i += 2) {
+            Path file = variantDir.resolve(files[i]);
+            Files.createDirectories(file.getParent());
+            Files.write(file, files[i + 1].getBytes(StandardCharsets.UTF_8));
+        }
+        service.setBaseDir(variantDir);
+        service.commit(name, configuration);
+    }
+
+    @Test(groups = {"unit", "base", "repository"})
+    public void Repository_Map_File_Plugin() throws IOException {
+        EccoService service = new EccoService(this.tempDir, this.tempDir.resolve("repo"));
+        service.init();
+
+        // binary files are read by the file plugin, whose artifacts are equal if their checksums are equal
+        this.commitVariant(service, "V1", "A.1", "dir/data.bin", "data");
+        this.commitVariant(service, "V2", "A.1, B.1", "dir/data.bin", "data", "dir/other.bin", "other");
+
+        service.setBaseDir(this.tempDir.resolve("V2"));
+        RootNode rootNode = service.map(List.of(Path.of("dir", "data.bin")));
+
+        List<Node> fileNodes = new ArrayList<>();
+        rootNode.traverse(node -> {
+            if (node.getArtifact() != null && node.getArtifact().getData() instanceof FileArtifactData)
+                fileNodes.add(node);
+        });
+        Assert.assertEquals(fileNodes.size(), 1);
+        Assert.assertTrue(fileNodes.get(0).getArtifact().getProperty(Artifact.PROPERTY_MAPPED_ARTIFACT).isPresent(), "file artifact was not mapped to the repository");
+
+        service.close();
+    }
+
+    @Test(groups = {"unit", "base", "repository"})
+    public void Repository_Merge_Equals_Sequential_Extract() throws IOException {
+        EccoService sourceService = new EccoService(this.tempDir, this.tempDir.resolve("source"));
+        sourceService.init();
+        this.commitVariant(sourceService, "S1", "A.1, C.1", "dir/data.bin", "data", "dir/third.bin", "third");
+        this.commitVariant(sourceService, "S2", "C.1", "dir/third.bin", "third");
+
+        // two equal target repositories, one for the merge and one for the sequential extraction
+        List<EccoService> targetServices = new ArrayList<>();
+        for (String repo : List.of("merged", "extracted")) {
+            EccoService targetService = new EccoService(this.tempDir, this.tempDir.resolve(repo));
+            targetService.init();
+            // the binary file data.bin is contained in both the source and the target repositories
+            this.commitVariant(targetService, "T1", "A.1", "dir/data.bin", "data");
+            this.commitVariant(targetService, "T2", "A.1, B.1", "dir/data.bin", "data", "dir/other.bin", "other");
+            targetServices.add(targetService);
+        }
+
+        Repository.Op mergedRepository = (Repository.Op) targetServices.get(0).getRepository();
+        mergedRepository.merge(((Repository.Op) sourceService.getRepository()).copy(targetServices.get(0).getEntityFactory()));
+
+        Repository.Op extractedRepository = (Repository.Op) targetServices.get(1).getRepository();
+        Repository.Op copiedRepository = ((Repository.Op) sourceService.getRepository()).copy(targetServices.get(1).getEntityFactory());
+        for (Association.Op association : new ArrayList<>(copiedRepository.getAssociations())) {
+            extractedRepository.extract(association, null);
+        }
+
+        Assert.assertEquals(getArtifactPartition(mergedRepository), getArtifactPartition(extractedRepository));
+
+        sourceService.close();
+        for (EccoService targetService : targetServices) {
+            targetService.close();
+        }
+    }
+
+    @Test(groups = {"unit", "base", "repository"})
+    public void Repository_Unresolved_Associations_After_Slicing() {
+        EntityFactory entityFactory = new MemEntityFactory();
+        Repository.Op repository = entityFactory.createRepository();
+
+        // x uses y in the same association
+        Node.Op x = entityFactory.createNode(new TestArtifactData("x"));
+        Node.Op y1 = entityFactory.createNode(new TestArtifactData("y"));
+        x.getArtifact().addUses(y1.getArtifact());
+        repository.extract(createAssociation(entityFactory, "f", x, y1), null);
+
+        // w in another association uses y
+        Node.Op w = entityFactory.createNode(new TestArtifactData("w"));
+        w.getArtifact().addUses(y1.getArtifact());
+        repository.extract(createAssociation(entityFactory, "g", w), null);
+
+        Association xAssociation = x.getContainingAssociation();
+        Association wAssociation = w.getContainingAssociation();
+        Assert.assertEquals(repository.getAssociationDependencies().getUnresolvedAssociations(List.of(xAssociation)), Collections.emptySet());
+        Assert.assertEquals(repository.getAssociationDependencies().getUnresolvedAssociations(List.of(wAssociation)), Set.of(xAssociation));
+        assertUnresolvedAssociations(repository);
+
+        // z uses an equal y, so slicing moves y out of the association of x into the intersection, on which the associations of x and w now depend
+        Node.Op y2 = entityFactory.createNode(new TestArtifactData("y"));
+        Node.Op z = entityFactory.createNode(new TestArtifactData("z"));
+        z.getArtifact().addUses(y2.getArtifact());
+        repository.extract(createAssociation(entityFactory, "f", y2, z), null);
+
+        Association yAssociation = y1.getArtifact().getContainingNode().getContainingAssociation();
+        Assert.assertNotSame(yAssociation, x.getContainingAssociation());
+        Assert.assertEquals(repository.getAssociationDependencies().getUnresolvedAssociations(List.of(x.getContainingAssociation())), Set.of(yAssociation));
+        Assert.assertEquals(repository.getAssociationDependencies().getUnresolvedAssociations(List.of(wAssociation)), Set.of(yAssociation));
+        assertUnresolvedAssociations(repository);
+    }
+
+    /**
+     * Creates an association with a node with the given artifact identifier whose children are the given nodes.
+     */
+    private static Association.Op createAssociation(EntityFactory entityFactory, String identifier, Node.Op... children) {
+        Node.Op node = entityFactory.createNode(new TestArtifactData(identifier));
+        node.addChildren(children);
+        Association.Op association = entityFactory.createAssociation(Collections.singleton(node));
+        association.setId(UUID.randomUUID().toString());
+        return association;
+    }
+
+    /**
+     * Checks for every selection of associations of the given repository that the unresolved associations are the ones that a dependency graph of the selection includes.
+     */
+    private static void assertUnresolvedAssociations(Repository.Op repository) {
+        List<Association.Op> associations = new ArrayList<>(repository.getAssociations());
+        for (int selection = 0; selection < 1 << associations.size(); selection++) {
+            List<Association> selected = new ArrayList<>();
+            for (int i = 0; i < associations.size(); i++) {
+                if ((selection & 1 << i) != 0)
+                    selected.add(associations.get(i));
+            }
+
+            Set<Association> included = new HashSet<>(new DependencyGraph(selected, DependencyGraph.ReferencesResolveMode.INCLUDE_ALL_REFERENCED_ASSOCIATIONS).getAssociations());
+            included.removeAll(selected);
+            Assert.assertEquals(repository.getAssociationDependencies().getUnresolvedAssociations(selected), included, "selection " + selected);
+        }
+    }
+
+    @Test(groups = {"unit", "base", "repository"})
+    public void Repository_Preview_Equals_Compose() throws IOException {
+        EccoService service = new EccoService(this.tempDir, this.tempDir.resolve("repo"));
+        service.init();
+        this.commitVariant(service, "V1", "A.1", "a.bin", "a");
+        this.commitVariant(service, "V2", "A.1, B.1", "a.bin", "a", "b.bin", "b", "ab.bin", "ab");
+        this.commitVariant(service, "V3", "B.1, C.1", "b.bin", "b", "c.bin", "c");
+        this.commitVariant(service, "V4", "C.1", "c.bin", "c");
+
+        Repository.Op repository = (Repository.Op) service.getRepository();
+        for (String configurationString : List.of("A.1", "B.1", "C.1", "A.1, B.1", "A.1, C.1", "B.1, C.1", "A.1, B.1, C.1")) {
+            assertPreview(repository, service.parseConfigurationString(configurationString));
+        }
+
+        service.close();
+    }
+
+    @Test(groups = {"unit", "base", "repository"})
+    public void Repository_Preview_Dropped_After_Commit() throws IOException {
+        EccoService service = new EccoService(this.tempDir, this.tempDir.resolve("repo"));
+        service.init();
+        this.commitVariant(service, "V1", "A.1", "a.bin", "a");
+        this.commitVariant(service, "V2", "B.1", "b.bin", "b");
+
+        // previews are cached independent of the order of the feature revisions
+        CheckoutPreview preview = service.preview("A.1, B.1");
+        Assert.assertSame(service.preview("B.1, A.1"), preview);
+        Assert.assertFalse(preview.getMissingModules().isEmpty(), "the interaction of A and B was not committed yet");
+
+        this.commitVariant(service, "V3", "A.1, B.1", "a.bin", "a", "b.bin", "b", "ab.bin", "ab");
+
+        CheckoutPreview committedPreview = service.preview("A.1, B.1");
+        Assert.assertNotSame(committedPreview, preview);
+        Assert.assertNotEquals(committedPreview.getSelectedAssociationIds(), preview.getSelectedAssociationIds());
+        Assert.assertEquals(committedPreview.getMissingModules(), Collections.emptySet());
+        assertPreview((Repository.Op) service.getRepository(), service.parseConfigurationString("A.1, B.1"));
+
+        service.close();
+    }
+
+    /**
+     * Checks that the preview of the given configuration selects the associations whose conditions hold and has the missing and surplus modules that checkouts computed from the desired modules before there were previews.
+     */
+    private static void assertPreview(Repository.Op repository, Configuration configuration) {
+        CheckoutPreview preview = repository.preview(configuration);
+
+        Set<Association.Op> selectedAssociations = new HashSet<>();
+        for (Association.Op association : repository.getAssociations()) {
+            if (association.computeCondition().holds(configuration))
+                selectedAssociations.add(association);
+        }
+        Assert.assertEquals(new HashSet<>(preview.getSelectedAssociations()), selectedAssociations, "selected associations of " + configuration);
+
+        Set<ModuleRevision> desiredModules = new HashSet<>(repository.getOrphanedConfigurationModules(configuration));
+        Set<ModuleRevision> missingModules = new HashSet<>();
+        for (ModuleRevision desiredModuleRevision : desiredModules) {
+            Feature[] posFeatures = Arrays.stream(desiredModuleRevision.getPos()).map(FeatureRevision::getFeature).toArray(Feature[]::new);
+            Module desiredModule = repository.getModule(posFeatures, desiredModuleRevision.getNeg());
+            if (desiredModule == null || desiredModule.getRevision(desiredModuleRevision.getPos(), desiredModuleRevision.getNeg()) == null)
+                missingModules.add(desiredModuleRevision);
+        }
+        Assert.assertEquals(new HashSet<>(preview.getMissingModules()), missingModules, "missing modules of " + configuration);
+
+        Set<ModuleRevision> surplusModules = new HashSet<>();
+        for (Association.Op association : selectedAssociations) {
+            Condition condition = association.computeCondition();
+            if (condition.getType() != Condition.TYPE.AND)
+                continue;
+            for (Collection<ModuleRevision> moduleRevisions : condition.getModules().values()) {
+                if (moduleRevisions == null)
+                    continue;
+                for (ModuleRevision moduleRevision : moduleRevisions) {
+                    if (!desiredModules.contains(moduleRevision))
+                        surplusModules.add(moduleRevision);
+                }
+            }
+        }
+        Assert.assertEquals(new HashSet<>(preview.getSurplusModules().keySet()), surplusModules, "surplus modules of " + configuration);
+        // any of the selected associations tracing to a surplus module may be reported
+        Assert.assertTrue(preview.getSelectedAssociationIds().containsAll(preview.getSurplusModules().values()), "surplus modules of " + configuration);
+    }
+
+    /**
+     * Returns for every association of the given repository the paths of its unique artifacts.
+     */
+    private static Set<Set<String>> getArtifactPartition(Repository repository) {
+        Set<Set<String>> partition = new HashSet<>();
+        for (Association association : repository.getAssociations()) {
+            Set<String> paths = new HashSet<>();
+            association.getRootNode().traverse(node -> {
+                if (node.isUnique() && node.getArtifact() != null) {
+                    StringBuilder path = new StringBuilder();
+                    for (Node current = node; current != null && current.getArtifact() != null; current = current.getParent()) {
+                        path.insert(0, "/" + current.getArtifact());
+                    }
+                    paths.add(path.toString());
+                }
+            });
+            partition.add(paths);
+        }
+        return partition;
+    }
+
     @Test(groups = {"integration", "gui"})
     public void populateSimpleVersionRepository() {
 
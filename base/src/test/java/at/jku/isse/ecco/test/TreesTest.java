@@ -10,6 +10,10 @@ import org.testng.annotations.AfterTest;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.function.Consumer;
+
 public class TreesTest {
 
 	@Test(groups = {"unit", "base", "tree"})
@@ -55,6 +59,77 @@ public class TreesTest {
 	}
 
 
+	@Test(groups = {"unit", "base", "tree"})
+	public void Trees_StructuralHash_SetArtifact() {
+		EntityFactory ef = new MemEntityFactory();
+
+		// a different artifact changes the hash, an equal artifact does not
+		this.assertStructuralHashInvalidated(root -> getNode(root, 0, 1, 0, 1, 2).setArtifact(ef.createArtifact(new TestArtifactData("changed"))), true);
+		this.assertStructuralHashInvalidated(root -> getNode(root, 0, 1, 0, 1, 2).setArtifact(ef.createArtifact(new TestArtifactData("atomic5"))), false);
+	}
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void Trees_StructuralHash_AddRemoveChild() {
+		EntityFactory ef = new MemEntityFactory();
+
+		this.assertStructuralHashInvalidated(root -> getNode(root, 0, 1, 0, 1, 2).addChild(ef.createNode(new TestArtifactData("added"))), true);
+		this.assertStructuralHashInvalidated(root -> {
+			Node.Op node = getNode(root, 0, 1, 0, 1);
+			node.removeChild(node.getChildren().get(0));
+		}, true);
+	}
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void Trees_StructuralHash_ChildrenView() {
+		EntityFactory ef = new MemEntityFactory();
+
+		this.assertStructuralHashInvalidated(root -> getNode(root, 0, 1, 0, 1).getChildren().add(ef.createNode(new TestArtifactData("added"))), true);
+		this.assertStructuralHashInvalidated(root -> getNode(root, 0, 1, 0, 1).getChildren().remove(0), true);
+		this.assertStructuralHashInvalidated(root -> getNode(root, 0, 1, 0, 1).getChildren().set(0, ef.createNode(new TestArtifactData("set"))), true);
+		this.assertStructuralHashInvalidated(root -> {
+			Iterator<Node.Op> it = getNode(root, 0, 1, 0, 1).getChildren().iterator();
+			it.next();
+			it.remove();
+		}, true);
+		this.assertStructuralHashInvalidated(root -> {
+			ListIterator<Node.Op> it = getNode(root, 0, 1, 0, 1).getChildren().listIterator();
+			it.next();
+			it.add(ef.createNode(new TestArtifactData("added")));
+		}, true);
+		this.assertStructuralHashInvalidated(root -> {
+			ListIterator<Node.Op> it = getNode(root, 0, 1, 0, 1).getChildren().listIterator();
+			it.next();
+			it.set(ef.createNode(new TestArtifactData("set")));
+		}, true);
+	}
+
+	/**
+	 * Applies the given change to a test tree whose structural hashes are cached and to a test tree whose hashes are computed only after the change, and compares the hashes of their roots.
+	 * If the change does not invalidate the cached hashes of all ancestors of the changed node, the cached hash of the root is stale.
+	 */
+	private void assertStructuralHashInvalidated(Consumer<Node.Op> change, boolean changesHash) {
+		Node.Op cachedRoot = this.createTestTree1();
+		int before = cachedRoot.getStructuralHash();
+		change.accept(cachedRoot);
+
+		Node.Op freshRoot = this.createTestTree1();
+		change.accept(freshRoot);
+
+		Assert.assertEquals(cachedRoot.getStructuralHash(), freshRoot.getStructuralHash());
+		Assert.assertEquals(cachedRoot.getStructuralHash() != before, changesHash);
+	}
+
+	/**
+	 * Returns the node reached from the given node by following the children with the given indices.
+	 */
+	private static Node.Op getNode(Node.Op node, int... indices) {
+		for (int index : indices) {
+			node = node.getChildren().get(index);
+		}
+		return node;
+	}
+
+
 	/**
 	 * root
 	 * -00
@@ -6,6 +6,8 @@ import org.garret.perst.Persistent;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 public class PerstRemote extends Persistent implements Remote {
 
@@ -15,6 +17,8 @@ public class PerstRemote extends Persistent implements Remote {
 
 	private Collection<Feature> features;
 
+	private Set<String> syncedFingerprints;
+
 
 	public PerstRemote() {
 		this("", "", Type.LOCAL);
@@ -25,6 +29,7 @@ public class PerstRemote extends Persistent implements Remote {
 		this.address = address;
 		this.type = type;
 		this.features = new ArrayList<>();
+		this.syncedFingerprints = new HashSet<>();
 	}
 
 
@@ -63,6 +68,13 @@ public class PerstRemote extends Persistent implements Remote {
 		return this.features;
 	}
 
+	@Override
+	public Set<String> getSyncedFingerprints() {
+		if (this.syncedFingerprints == null) // remotes stored before fingerprints were recorded
+			this.syncedFingerprints = new HashSet<>();
+		return this.syncedFingerprints;
+	}
+
 
 	@Override
 	public String toString() {
@@ -2,10 +2,12 @@ package at.jku.isse.ecco.gui.view;
 
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.gui.ExceptionAlert;
 import at.jku.isse.ecco.tree.Node;
 import at.jku.isse.ecco.tree.RootNode;
 import javafx.beans.property.*;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.CheckBoxTreeTableCell;
 import javafx.scene.layout.Background;
@@ -14,6 +16,8 @@ import javafx.scene.paint.Color;
 import javafx.util.Callback;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ArtifactTreeTableView extends TreeTableView<ArtifactTreeTableView.NodeWrapper> {
 
@@ -169,7 +173,7 @@ public class ArtifactTreeTableView extends TreeTableView<ArtifactTreeTableView.N
 		if (rootNode == null)
 			this.setRoot(null);
 		else
-			this.setRoot(new NodeTreeItem(new NodeWrapper(rootNode)));
+			this.setRoot(new NodeTreeItem(new NodeWrapper(rootNode), false));
 	}
 
 	public void markSelected() {
@@ -182,25 +186,52 @@ public class ArtifactTreeTableView extends TreeTableView<ArtifactTreeTableView.N
 	}
 
 
-	private Collection<ArtifactsView.AssociationInfoImpl> associationInfos = null;
+	private Map<Association, ArtifactsView.AssociationInfoImpl> associationInfos = null;
 
 	public void setAssociationInfo(Collection<ArtifactsView.AssociationInfoImpl> associationInfos) {
-		this.associationInfos = associationInfos;
+		if (associationInfos == null) {
+			this.associationInfos = null;
+		} else {
+			this.associationInfos = new IdentityHashMap<>();
+			for (ArtifactsView.AssociationInfoImpl associationInfo : associationInfos)
+				this.associationInfos.putIfAbsent(associationInfo.getAssociation(), associationInfo);
+		}
 	}
 
 
+	/**
+	 * Number of children from which on the children of a node are shown in pages of this size.
+	 */
+	private static final int PAGE_SIZE = 1000;
+
+	/**
+	 * Loads the children of tree items in the background, one after another, as composition nodes compute their children when they are first accessed.
+	 */
+	private final ExecutorService childrenLoader = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ArtifactTreeTableView-loader");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Tree item whose children are created when it is expanded. Until they are loaded in the background a placeholder item is shown.
+	 * Nodes with more than {@link #PAGE_SIZE} children get one child item per page, which again loads its children when expanded.
+	 */
 	public class NodeTreeItem extends TreeItem<NodeWrapper> {
 		private boolean firstTimeChildren = true;
+		private boolean leaf;
 
-		public NodeTreeItem(NodeWrapper node) {
+		public NodeTreeItem(NodeWrapper node, boolean leaf) {
 			super(node);
+			this.leaf = leaf;
 
 			if (ArtifactTreeTableView.this.associationInfos != null) {
 				if (node != null && node.getArtifact() != null && node.getArtifact().getContainingNode() != null) {
 					Association nodeAssociation = node.getArtifact().getContainingNode().getContainingAssociation();
 					if (nodeAssociation != null) {
-						Optional<ArtifactsView.AssociationInfoImpl> opt = ArtifactTreeTableView.this.associationInfos.stream().filter(o -> o.getAssociation() == nodeAssociation).findFirst();
-						opt.ifPresent(associationInfo -> node.colorProperty().bind(associationInfo.colorProperty()));
+						ArtifactsView.AssociationInfoImpl associationInfo = ArtifactTreeTableView.this.associationInfos.get(nodeAssociation);
+						if (associationInfo != null)
+							node.colorProperty().bind(associationInfo.colorProperty());
 					}
 				}
 			}
@@ -211,16 +242,123 @@ public class ArtifactTreeTableView extends TreeTableView<ArtifactTreeTableView.N
 			if (this.firstTimeChildren) {
 				this.firstTimeChildren = false;
 
-				for (Node child : this.getValue().getChildren()) {
-					super.getChildren().add(new NodeTreeItem(new NodeWrapper(child)));
+				if (!this.leaf) {
+					super.getChildren().add(new TreeItem<>(new PlaceholderNodeWrapper(this.getValue().getNode(), "Loading...")));
+					this.loadChildren();
 				}
 			}
 			return super.getChildren();
 		}
 
+		private void loadChildren() {
+			NodeWrapper node = this.getValue();
+
+			Task<List<Object>> loadTask = new Task<>() {
+				@Override
+				protected List<Object> call() {
+					// the children are either nodes with their leaf flag or pages
+					List<Object> children = new ArrayList<>();
+					List<? extends Node> childNodes = node.getChildren();
+					if (childNodes.size() > PAGE_SIZE && !(node instanceof PageNodeWrapper)) {
+						for (int from = 0; from < childNodes.size(); from += PAGE_SIZE) {
+							children.add(new PageNodeWrapper(node.getNode(), from, Math.min(childNodes.size(), from + PAGE_SIZE)));
+						}
+					} else {
+						for (Node childNode : childNodes) {
+							if (this.isCancelled())
+								return children;
+							children.add(new AbstractMap.SimpleEntry<>(childNode, childNode.getChildren().isEmpty()));
+						}
+					}
+					return children;
+				}
+
+				@Override
+				@SuppressWarnings("unchecked")
+				protected void succeeded() {
+					super.succeeded();
+					List<TreeItem<NodeWrapper>> items = new ArrayList<>();
+					for (Object child : this.getValue()) {
+						if (child instanceof PageNodeWrapper) {
+							items.add(new NodeTreeItem((PageNodeWrapper) child, false));
+						} else {
+							Map.Entry<Node, Boolean> entry = (Map.Entry<Node, Boolean>) child;
+							items.add(new NodeTreeItem(new NodeWrapper(entry.getKey()), entry.getValue()));
+						}
+					}
+					NodeTreeItem.this.leaf = items.isEmpty();
+					NodeTreeItem.super.getChildren().setAll(items);
+				}
+
+				@Override
+				protected void failed() {
+					super.failed();
+					NodeTreeItem.super.getChildren().clear();
+					new ExceptionAlert(this.getException()).show();
+				}
+			};
+			ArtifactTreeTableView.this.childrenLoader.submit(loadTask);
+		}
+
 		@Override
 		public boolean isLeaf() {
-			return this.getValue().getChildren().isEmpty();
+			return this.leaf;
+		}
+	}
+
+	/**
+	 * Row that is not a node of the tree itself (e.g. a page of children or a placeholder).
+	 */
+	public class PlaceholderNodeWrapper extends NodeWrapper {
+		private final String label;
+
+		public PlaceholderNodeWrapper(Node node, String label) {
+			super(node);
+			this.label = label;
+		}
+
+		@Override
+		public String toString() {
+			return this.label;
+		}
+
+		@Override
+		public boolean isAtomic() {
+			return false;
+		}
+
+		@Override
+		public Artifact<?> getArtifact() {
+			return null;
+		}
+
+		@Override
+		public boolean isUnique() {
+			return false;
+		}
+
+		@Override
+		public List<? extends Node> getChildren() {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * A page of the children of a node with many children.
+	 */
+	public class PageNodeWrapper extends PlaceholderNodeWrapper {
+		private final int from;
+		private final int to;
+
+		public PageNodeWrapper(Node node, int from, int to) {
+			super(node, "[" + from + " - " + (to - 1) + "]");
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public List<? extends Node> getChildren() {
+			return this.getNode().getChildren().subList(this.from, this.to);
 		}
 	}
 
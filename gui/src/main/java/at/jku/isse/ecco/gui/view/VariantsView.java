@@ -6,6 +6,7 @@ import at.jku.isse.ecco.feature.Configuration;
 import at.jku.isse.ecco.feature.FeatureRevision;
 import at.jku.isse.ecco.gui.view.detail.VariantDetailView;
 import at.jku.isse.ecco.gui.view.operation.VariantView;
+import at.jku.isse.ecco.repository.CheckoutPreview;
 import at.jku.isse.ecco.service.EccoService;
 import at.jku.isse.ecco.service.listener.EccoListener;
 import javafx.application.Platform;
@@ -211,6 +212,56 @@ public class VariantsView extends BorderPane implements EccoListener {
             }
         });
 
+        Button previewSelectedButton = new Button("Preview");
+        toolBar.getItems().addAll(previewSelectedButton, new Separator());
+        previewSelectedButton.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent e) {
+                toolBar.setDisable(true);
+
+                Collection<Variant> selectedVariants = new ArrayList<>();
+                for (VariantsView.VariantsInfo variantInfo : VariantsView.this.variantsDataSelected) {
+                    if (variantInfo.isSelected())
+                        selectedVariants.add(variantInfo.getVariant());
+                }
+
+                Task previewTask = new Task<Void>() {
+                    @Override
+                    public Void call() throws EccoException {
+                        // only the selected associations and the missing and surplus modules are computed, no artifacts are composed
+                        StringBuilder sb = new StringBuilder();
+                        for (Variant variant : selectedVariants) {
+                            CheckoutPreview preview = VariantsView.this.service.preview(variant.getConfiguration());
+                            String varname = variant.getName().equals("") ? variant.getId() : variant.getName();
+                            sb.append(varname).append(": ")
+                                    .append(preview.getSelectedAssociations().size()).append(" associations, ")
+                                    .append(preview.getMissingModules().size()).append(" missing, ")
+                                    .append(preview.getSurplusModules().size()).append(" surplus")
+                                    .append(System.lineSeparator());
+                        }
+                        Platform.runLater(() -> {
+                            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                            alert.setTitle("Checkout Preview");
+                            alert.setHeaderText("Checkout Preview");
+                            alert.setContentText(sb.toString());
+
+                            alert.showAndWait();
+                        });
+                        Platform.runLater(() -> toolBar.setDisable(false));
+                        return null;
+                    }
+
+                    @Override
+                    public void failed() {
+                        super.failed();
+                        Platform.runLater(() -> toolBar.setDisable(false));
+                    }
+                };
+
+                new Thread(previewTask).start();
+            }
+        });
+
         TextField searchField = new TextField();
         Button searchButton = new Button("Search Feature Revision");
         toolBar.getItems().addAll(searchField, searchButton);
@@ -290,20 +341,20 @@ public class VariantsView extends BorderPane implements EccoListener {
                 ObservableList<VariantsInfo> variantsDataSelectedAux = FXCollections.observableArrayList();
                 variantsDataSelectedAux.addAll(VariantsView.this.variantsDataSelected);
                 VariantsView.this.variantsDataSelected.clear();
+                String featureRevisionString = searchField.getText();
 
                 Task updateFeatureRevisionTask = new Task<Void>() {
                     @Override
                     public Void call() throws EccoException {
+                        // update all selected variants at once
+                        Collection<String> variantIds = new ArrayList<>();
+                        for (VariantsInfo variantInfo : variantsDataSelectedAux) {
+                            if (variantInfo.isSelected())
+                                variantIds.add(variantInfo.getVariant().getId());
+                        }
+                        VariantsView.this.service.removeFeatureRevision(featureRevisionString, variantIds);
+
                         Platform.runLater(() -> {
-                            for (VariantsInfo variantInfo : variantsDataSelectedAux) {
-                                if (variantInfo.isSelected()) {
-                                    for (FeatureRevision f : variantInfo.getVariant().getConfiguration().getFeatureRevisions()) {
-                                        if (f.getFeatureRevisionString().equals(searchField.getText())) {
-                                            VariantsView.this.service.removeFeatureRevision(f, variantInfo.getVariant().getId(), VariantsView.this.service);
-                                        }
-                                    }
-                                }
-                            }
                             Collection<? extends Variant> variants = VariantsView.this.service.getRepository().getVariants();
                             for (Variant variant : variants) {
                                 VariantsView.this.variantsDataSelected.add(new VariantsInfo(variant));
@@ -331,20 +382,21 @@ public class VariantsView extends BorderPane implements EccoListener {
                 ObservableList<VariantsInfo> variantsDataSelectedAux = FXCollections.observableArrayList();
                 variantsDataSelectedAux.addAll(VariantsView.this.variantsDataSelected);
                 VariantsView.this.variantsDataSelected.clear();
+                String featureRevisionString = searchField.getText();
+                String featureRevisionUpdateString = updateField.getText();
 
                 Task updateFeatureRevisionTask = new Task<Void>() {
                     @Override
                     public Void call() throws EccoException {
+                        // update all selected variants at once
+                        Collection<String> variantIds = new ArrayList<>();
+                        for (VariantsInfo variantInfo : variantsDataSelectedAux) {
+                            if (variantInfo.isSelected())
+                                variantIds.add(variantInfo.getVariant().getId());
+                        }
+                        VariantsView.this.service.updateFeatureRevision(featureRevisionString, featureRevisionUpdateString, variantIds);
+
                         Platform.runLater(() -> {
-                            for (VariantsInfo variantInfo : variantsDataSelectedAux) {
-                                if (variantInfo.isSelected()) {
-                                    for (FeatureRevision f : variantInfo.getVariant().getConfiguration().getFeatureRevisions()) {
-                                        if (f.getFeatureRevisionString().equals(searchField.getText())) {
-                                            VariantsView.this.service.updateFeatureRevision(f, updateField.getText(), variantInfo.getVariant().getId(), VariantsView.this.service);
-                                        }
-                                    }
-                                }
-                            }
                             Collection<? extends Variant> variants = VariantsView.this.service.getRepository().getVariants();
                             for (Variant variant : variants) {
                                 VariantsView.this.variantsDataSelected.add(new VariantsInfo(variant));
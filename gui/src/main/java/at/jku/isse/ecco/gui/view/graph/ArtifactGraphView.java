@@ -7,8 +7,11 @@ import at.jku.isse.ecco.core.Association;
 import at.jku.isse.ecco.gui.EditableSpinner;
 import at.jku.isse.ecco.gui.ExceptionAlert;
 import at.jku.isse.ecco.service.EccoService;
+import at.jku.isse.ecco.repository.AssociationStatistics;
+import at.jku.isse.ecco.repository.Repository;
 import at.jku.isse.ecco.service.listener.EccoListener;
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.FileChooser;
@@ -25,11 +28,9 @@ import org.graphstream.ui.fx_viewer.FxViewPanel;
 import org.graphstream.ui.fx_viewer.FxViewer;
 import org.graphstream.ui.view.Viewer;
 
-import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public class ArtifactGraphView extends BorderPane implements EccoListener {
@@ -46,6 +47,7 @@ public class ArtifactGraphView extends BorderPane implements EccoListener {
 
 	private int childCountLimit = 20;
 	private int depthLimit = 10;
+	private int nodeLimit = 5000;
 
 	public ArtifactGraphView(EccoService service) {
 		this.service = service;
@@ -61,15 +63,50 @@ public class ArtifactGraphView extends BorderPane implements EccoListener {
 		depthLimitSpinner.setEditable(true);
 		Label depthLimitLabel = new Label("Depth Limit: ");
 
+		Spinner<Integer> nodeLimitSpinner = new EditableSpinner(1, NODE_LIMIT, nodeLimit);
+		nodeLimitSpinner.setEditable(true);
+		Label nodeLimitLabel = new Label("Node Limit: ");
+
+		ProgressBar progressBar = new ProgressBar(0.0);
+		progressBar.setVisible(false);
+
 		Button refreshButton = new Button("Refresh");
 		refreshButton.setOnAction(e -> {
 			toolBar.setDisable(true);
-			childCountLimit = childCountLimitSpinner.getValue();
-			depthLimit = depthLimitSpinner.getValue();
-			SwingUtilities.invokeLater(() -> {
-				ArtifactGraphView.this.updateGraph(ArtifactGraphView.this.depthFade, ArtifactGraphView.this.showLabels);
-				Platform.runLater(() -> toolBar.setDisable(false));
-			});
+
+			Task<Void> updateTask = new UpdateGraphTask(childCountLimitSpinner.getValue(), depthLimitSpinner.getValue(), nodeLimitSpinner.getValue()) {
+				@Override
+				public void succeeded() {
+					super.succeeded();
+					this.finish();
+				}
+
+				@Override
+				public void cancelled() {
+					super.cancelled();
+					this.finish();
+				}
+
+				@Override
+				public void failed() {
+					super.failed();
+					this.finish();
+					new ExceptionAlert(this.getException()).show();
+				}
+
+				private void finish() {
+					progressBar.progressProperty().unbind();
+					progressBar.setVisible(false);
+					toolBar.setDisable(false);
+				}
+			};
+			progressBar.progressProperty().bind(updateTask.progressProperty());
+			progressBar.setVisible(true);
+			this.updateTask = updateTask;
+
+			Thread thread = new Thread(updateTask);
+			thread.setDaemon(true);
+			thread.start();
 		});
 
 		Button exportButton = new Button("Export");
@@ -112,7 +149,7 @@ public class ArtifactGraphView extends BorderPane implements EccoListener {
 		});
 
 
-		toolBar.getItems().setAll(refreshButton, new Separator(), exportButton, new Separator(), depthFadeCheckBox, new Separator(), showLabelsCheckbox, new Separator(), childCountLimitLabel, childCountLimitSpinner, new Separator(), depthLimitLabel, depthLimitSpinner, new Separator());
+		toolBar.getItems().setAll(refreshButton, new Separator(), exportButton, new Separator(), depthFadeCheckBox, new Separator(), showLabelsCheckbox, new Separator(), childCountLimitLabel, childCountLimitSpinner, new Separator(), depthLimitLabel, depthLimitSpinner, new Separator(), nodeLimitLabel, nodeLimitSpinner, new Separator(), progressBar);
 
 
 		System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
@@ -140,6 +177,12 @@ public class ArtifactGraphView extends BorderPane implements EccoListener {
 
 
 	private void updateNodesAndEdgesStyles(boolean depthFade) {
+		synchronized (this.graph) {
+			this.updateNodesAndEdgesStylesLocked(depthFade);
+		}
+	}
+
+	private void updateNodesAndEdgesStylesLocked(boolean depthFade) {
 		Map<String, Integer> idColorMap = new HashMap<>();
 		int nextColor = 1;
 
@@ -195,23 +238,25 @@ public class ArtifactGraphView extends BorderPane implements EccoListener {
 		if (!showLabels)
 			textMode = "text-mode: hidden; ";
 
-		this.graph.setAttribute("ui.stylesheet",
-				"edge { size: 1px; shape: blob; arrow-shape: none; arrow-size: 3px, 3px; } " +
-						"node { " + textMode + " text-background-mode: plain;  shape: circle; size: " + DEFAULT_SIZE + "px; stroke-mode: plain; stroke-color: #000000; stroke-width: 1px; } " +
-						"edge.A1 { fill-color: #ffaaaa88; } " +
-						"edge.A2 { fill-color: #aaffaa88; } " +
-						"edge.A3 { fill-color: #aaaaff88; } " +
-						"edge.A4 { fill-color: #ffffaa88; } " +
-						"edge.A5 { fill-color: #ffaaff88; } " +
-						"edge.A6 { fill-color: #aaffff88; } " +
-						"edge.A7 { fill-color: #aaaaaa88; } " +
-						"node.A1 { fill-color: #ffaaaa88; } " +
-						"node.A2 { fill-color: #aaffaa88; } " +
-						"node.A3 { fill-color: #aaaaff88; } " +
-						"node.A4 { fill-color: #ffffaa88; } " +
-						"node.A5 { fill-color: #ffaaff88; } " +
-						"node.A6 { fill-color: #aaffff88; } " +
-						"node.A7 { fill-color: #aaaaaa88; } ");
+		synchronized (this.graph) {
+			this.graph.setAttribute("ui.stylesheet",
+					"edge { size: 1px; shape: blob; arrow-shape: none; arrow-size: 3px, 3px; } " +
+							"node { " + textMode + " text-background-mode: plain;  shape: circle; size: " + DEFAULT_SIZE + "px; stroke-mode: plain; stroke-color: #000000; stroke-width: 1px; } " +
+							"edge.A1 { fill-color: #ffaaaa88; } " +
+							"edge.A2 { fill-color: #aaffaa88; } " +
+							"edge.A3 { fill-color: #aaaaff88; } " +
+							"edge.A4 { fill-color: #ffffaa88; } " +
+							"edge.A5 { fill-color: #ffaaff88; } " +
+							"edge.A6 { fill-color: #aaffff88; } " +
+							"edge.A7 { fill-color: #aaaaaa88; } " +
+							"node.A1 { fill-color: #ffaaaa88; } " +
+							"node.A2 { fill-color: #aaffaa88; } " +
+							"node.A3 { fill-color: #aaaaff88; } " +
+							"node.A4 { fill-color: #ffffaa88; } " +
+							"node.A5 { fill-color: #ffaaff88; } " +
+							"node.A6 { fill-color: #aaffff88; } " +
+							"node.A7 { fill-color: #aaaaaa88; } ");
+		}
 	}
 
 	private void initView() {
@@ -233,49 +278,11 @@ public class ArtifactGraphView extends BorderPane implements EccoListener {
 		viewer = null;
 	}
 
-	private void updateGraph(boolean depthFade, boolean showLabels) {
-		assert viewer != null && view != null;
-
-		this.viewer.disableAutoLayout();
-
-		this.graph.removeSink(this.layout);
-		this.layout.removeAttributeSink(this.graph);
-		this.layout.clear();
-		this.graph.clear();
-
-		this.view.getCamera().resetView();
-
-
-		this.graph.setAttribute("ui.quality");
-		this.graph.setAttribute("ui.antialias");
-
-		this.artifactCount = 0;
-		this.maxSuccessorsCount = 0;
-		this.maxDepth = 0;
-
-		// traverse trees and add nodes
-//		for (Association association : this.service.getAssociations()) {
-//			this.traverseTree(association.getRootNode(), 0, association.getId(), depthFade);
-//		}
-		LazyCompositionRootNode compRootNode = new LazyCompositionRootNode();
-		for (Association association : this.service.getRepository().getAssociations()) {
-			compRootNode.addOrigNode(association.getRootNode());
-		}
-		this.traverseTree(compRootNode, 0);
-
-		this.updateNodesAndEdgesStyles(depthFade);
-		this.updateGraphStylehseet(showLabels);
-
-
-		this.graph.addSink(this.layout);
-		this.layout.addAttributeSink(this.graph);
-
-		this.viewer.enableAutoLayout(this.layout);
-	}
-
 
 	private static final int CHILD_COUNT_LIMIT = 1000;
 	private static final int DEPTH_LIMIT = 50;
+	private static final int NODE_LIMIT = 100000;
+	private static final int BATCH_SIZE = 500;
 	private static final int MAX_SIZE = 100;
 	private static final int MIN_SIZE = 30;
 	private static final int DEFAULT_SIZE = 20;
@@ -283,121 +290,217 @@ public class ArtifactGraphView extends BorderPane implements EccoListener {
 	private static final String DEPTH_ATTRIBUTE = "depth";
 	private static final String ASSOC_ID_ATTRIBUTE = "assocId";
 
-	private int artifactCount = 0;
 	private int maxSuccessorsCount = 0;
 	private int maxDepth = 0;
 
-	private void groupArtifactsByAssocRec(at.jku.isse.ecco.tree.Node eccoNode, Map<Association, Integer> groupMap) {
-		for (at.jku.isse.ecco.tree.Node eccoChildNode : eccoNode.getChildren()) {
-			if (eccoChildNode.getArtifact() != null) {
-				Association childContainingAssociation = eccoChildNode.getArtifact().getContainingNode().getContainingAssociation();
-				if (childContainingAssociation != null) {
-					if (groupMap.containsKey(childContainingAssociation)) {
-						int groupCount = groupMap.get(childContainingAssociation);
-						groupCount++;
-						groupMap.put(childContainingAssociation, groupCount);
-					} else {
-						groupMap.put(childContainingAssociation, 1);
+	private Task<Void> updateTask = null;
+
+	// repository version and limits the graph was last built for
+	private volatile String graphVersion = null;
+
+
+	/**
+	 * Updates the graph in the background. The model of the graph is computed from the composition of all associations, and only its differences to the current graph are applied,
+	 * in batches, so that the viewer shows the graph while it is built and the layout of unchanged nodes is kept.
+	 */
+	private class UpdateGraphTask extends Task<Void> {
+		private final int childCountLimit;
+		private final int depthLimit;
+		private final int nodeLimit;
+
+		private UpdateGraphTask(int childCountLimit, int depthLimit, int nodeLimit) {
+			this.childCountLimit = childCountLimit;
+			this.depthLimit = depthLimit;
+			this.nodeLimit = nodeLimit;
+		}
+
+		@Override
+		protected Void call() {
+			this.updateProgress(-1, 1);
+
+			Repository repository = ArtifactGraphView.this.service.getRepository();
+			String version = AssociationStatistics.computeVersion(repository) + "-" + this.childCountLimit + "-" + this.depthLimit + "-" + this.nodeLimit;
+			if (version.equals(ArtifactGraphView.this.graphVersion))
+				return null;
+
+			LazyCompositionRootNode compRootNode = new LazyCompositionRootNode();
+			for (Association association : repository.getAssociations()) {
+				compRootNode.addOrigNode(association.getRootNode());
+			}
+			Map<String, GraphModelNode> model = this.buildModel(compRootNode);
+			if (this.isCancelled())
+				return null;
+
+			this.applyModel(model);
+			if (!this.isCancelled())
+				ArtifactGraphView.this.graphVersion = version;
+			return null;
+		}
+
+		/**
+		 * Computes the nodes of the graph breadth first, so that the node limit collapses the deepest subtrees first. The children of a node are collapsed into one node per association
+		 * (counting the artifacts of the association in the subtree) when there are too many of them, the node is too deep or there is no node budget left.
+		 * Every node is identified by the path of artifacts from the root, which stays the same when the graph is built again.
+		 */
+		private Map<String, GraphModelNode> buildModel(at.jku.isse.ecco.tree.Node compRootNode) {
+			Map<String, GraphModelNode> model = new LinkedHashMap<>();
+			Deque<Map.Entry<at.jku.isse.ecco.tree.Node, GraphModelNode>> queue = new ArrayDeque<>();
+			queue.add(new AbstractMap.SimpleEntry<>(compRootNode, null));
+
+			while (!queue.isEmpty() && !this.isCancelled()) {
+				Map.Entry<at.jku.isse.ecco.tree.Node, GraphModelNode> current = queue.poll();
+				at.jku.isse.ecco.tree.Node eccoNode = current.getKey();
+				GraphModelNode parent = current.getValue();
+				int depth = parent == null ? 0 : parent.depth;
+				String parentId = parent == null ? "" : parent.id;
+
+				if (parent != null && (eccoNode.getChildren().size() >= this.childCountLimit || depth >= this.depthLimit || model.size() + eccoNode.getChildren().size() > this.nodeLimit)) {
+					// group children by association
+					Map<Association, Integer> groupMap = new LinkedHashMap<>();
+					groupArtifactsByAssocRec(eccoNode, groupMap);
+					for (Map.Entry<Association, Integer> entry : groupMap.entrySet()) {
+						GraphModelNode groupNode = new GraphModelNode(parentId + "/[" + entry.getKey().getId() + "]", parentId, "[" + entry.getValue() + "]", depth + 1, entry.getKey().getId(), entry.getValue());
+						model.put(groupNode.id, groupNode);
 					}
+					continue;
+				}
+
+				Set<String> childIds = new HashSet<>();
+				for (at.jku.isse.ecco.tree.Node eccoChildNode : eccoNode.getChildren()) {
+					if (eccoChildNode.getArtifact() == null)
+						continue;
+					String childId = parentId + "/" + Integer.toHexString(eccoChildNode.getArtifact().hashCode());
+					for (int i = 1; !childIds.add(childId); i++)
+						childId = parentId + "/" + Integer.toHexString(eccoChildNode.getArtifact().hashCode()) + "." + i;
+
+					GraphModelNode childNode = new GraphModelNode(childId, parent == null ? null : parentId, getLabel(eccoChildNode), depth + 1, eccoChildNode.getArtifact().getContainingNode().getContainingAssociation().getId(), null);
+					model.put(childNode.id, childNode);
+					queue.add(new AbstractMap.SimpleEntry<>(eccoChildNode, childNode));
 				}
 			}
-			this.groupArtifactsByAssocRec(eccoChildNode, groupMap);
+			return model;
 		}
-	}
 
-	private Node traverseTree(at.jku.isse.ecco.tree.Node eccoNode, int depth) {
-		String assocId;
-
-		Node graphNode = null;
-		if (eccoNode.getArtifact() != null) {
-			this.artifactCount++;
-
-			graphNode = this.graph.addNode(String.valueOf(this.artifactCount));
-			graphNode.setAttribute(DEPTH_ATTRIBUTE, depth);
-			assocId = eccoNode.getArtifact().getContainingNode().getContainingAssociation().getId();
-			graphNode.setAttribute(ASSOC_ID_ATTRIBUTE, assocId);
-			if (this.maxDepth < depth)
-				this.maxDepth = depth;
-
-//			if (depthFade) {
-//				graphNode.addAttribute("ui.style", "fill-color: rgb(" + colorValue + ", " + colorValue + ", " + colorValue + ");");
-//			} else {
-//				graphNode.addAttribute("ui.class", "A" + ((eccoNode.getArtifact().getContainingNode().getContainingAssociation().getId() & 7) + 1));
-//			}
-
-			if (eccoNode.getChildren().size() >= this.childCountLimit || depth >= this.depthLimit) {
-				// group children by association
-				Map<Association, Integer> groupMap = new HashMap<>();
-				this.groupArtifactsByAssocRec(eccoNode, groupMap);
-//				for (at.jku.isse.ecco.tree.Node eccoChildNode : eccoNode.getChildren()) {
-//					if (eccoChildNode.getArtifact() != null) {
-//						Association childContainingAssociation = eccoChildNode.getArtifact().getContainingNode().getContainingAssociation();
-//						if (childContainingAssociation != null) {
-//							int childContainedArtifactsCount = eccoChildNode.getArtifact().getContainingNode().countArtifacts();
-//							if (groupMap.containsKey(childContainingAssociation)) {
-//								int groupCount = groupMap.get(childContainingAssociation);
-//								groupCount += childContainedArtifactsCount;
-//								groupMap.put(childContainingAssociation, groupCount);
-//							} else {
-//								groupMap.put(childContainingAssociation, childContainedArtifactsCount);
-//							}
-//						}
-//					}
-//				}
-				// add one child node per group
-				for (Map.Entry<Association, Integer> entry : groupMap.entrySet()) {
-					this.artifactCount++;
-					Node graphChildNode = this.graph.addNode(String.valueOf(this.artifactCount));
-					graphChildNode.setAttribute("label", "[" + entry.getValue() + "]");
-//					if (depthFade) {
-//						int childColorValue = (int) (Math.min(1.0, (depth + 1) / 8.0) * 200.0);
-//						graphChildNode.addAttribute("ui.style", "size: " + Math.min(MAX_SIZE, entry.getValue()) + "px; fill-color: rgb(" + childColorValue + ", " + childColorValue + ", " + childColorValue + ");");
-//					} else {
-//						graphChildNode.addAttribute("ui.style", "size: " + Math.min(MAX_SIZE, entry.getValue()) + "px;");
-//						graphChildNode.addAttribute("ui.class", "A" + ((entry.getKey().getId() % 7) + 1));
-//					}
-//					if (!depthFade) {
-//						graphChildNode.addAttribute("ui.class", "A" + ((entry.getKey().getId() % 7) + 1));
-//					}
-					graphChildNode.setAttribute(SUCCESSOR_COUNT_ATTRIBUTE, entry.getValue());
-					graphChildNode.setAttribute(DEPTH_ATTRIBUTE, depth + 1);
-					graphChildNode.setAttribute(ASSOC_ID_ATTRIBUTE, entry.getKey().getId());
-
-					if (this.maxSuccessorsCount < entry.getValue())
-						this.maxSuccessorsCount = entry.getValue();
-
-					Edge edge = this.graph.addEdge(graphNode.getId() + "-" + graphChildNode.getId(), graphNode, graphChildNode, true);
-//					edge.addAttribute(DEPTH_ATTRIBUTE, depth);
-//					edge.addAttribute(ASSOC_ID_ATTRIBUTE, assocId);
+		/**
+		 * Applies the differences between the given model and the current graph in batches. Nodes that are no longer in the model are removed first, then new nodes are added and the attributes of changed nodes are updated.
+		 */
+		private void applyModel(Map<String, GraphModelNode> model) {
+			FxViewer viewer = ArtifactGraphView.this.viewer;
+			if (viewer == null)
+				return;
+			viewer.disableAutoLayout();
+
+			List<String> removedIds;
+			synchronized (ArtifactGraphView.this.graph) {
+				removedIds = ArtifactGraphView.this.graph.nodes().map(Node::getId).filter(id -> !model.containsKey(id)).collect(Collectors.toList());
+				if (removedIds.size() == ArtifactGraphView.this.graph.getNodeCount()) {
+					// nothing is kept, start over with a new layout
+					ArtifactGraphView.this.graph.removeSink(ArtifactGraphView.this.layout);
+					ArtifactGraphView.this.layout.removeAttributeSink(ArtifactGraphView.this.graph);
+					ArtifactGraphView.this.layout.clear();
+					ArtifactGraphView.this.graph.clear();
+					ArtifactGraphView.this.graph.addSink(ArtifactGraphView.this.layout);
+					ArtifactGraphView.this.layout.addAttributeSink(ArtifactGraphView.this.graph);
+					removedIds.clear();
+
+					ArtifactGraphView.this.graph.setAttribute("ui.quality");
+					ArtifactGraphView.this.graph.setAttribute("ui.antialias");
+					ArtifactGraphView.this.updateGraphStylehseet(ArtifactGraphView.this.showLabels);
+					Platform.runLater(() -> {
+						if (ArtifactGraphView.this.view != null)
+							ArtifactGraphView.this.view.getCamera().resetView();
+					});
 				}
 			}
 
-			if (eccoNode.getArtifact().getData() instanceof PluginArtifactData) {
-				graphNode.setAttribute("label", ((PluginArtifactData) eccoNode.getArtifact().getData()).getPath().toString());
-			} else if (eccoNode.getArtifact().getData() instanceof DirectoryArtifactData) {
-				graphNode.setAttribute("label", ((DirectoryArtifactData) eccoNode.getArtifact().getData()).getPath().toString());
+			long total = removedIds.size() + model.size();
+			long done = 0;
+			Iterator<String> removedIterator = removedIds.iterator();
+			Iterator<GraphModelNode> modelIterator = model.values().iterator();
+			while ((removedIterator.hasNext() || modelIterator.hasNext()) && !this.isCancelled()) {
+				synchronized (ArtifactGraphView.this.graph) {
+					for (int i = 0; i < BATCH_SIZE && removedIterator.hasNext(); i++, done++) {
+						ArtifactGraphView.this.graph.removeNode(removedIterator.next());
+					}
+					for (int i = 0; i < BATCH_SIZE && !removedIterator.hasNext() && modelIterator.hasNext(); i++, done++) {
+						this.applyNode(modelIterator.next());
+					}
+				}
+				this.updateProgress(done, total);
+			}
+
+			int maxDepth = 0;
+			int maxSuccessorsCount = 0;
+			for (GraphModelNode modelNode : model.values()) {
+				maxDepth = Math.max(maxDepth, modelNode.depth);
+				if (modelNode.successorCount != null)
+					maxSuccessorsCount = Math.max(maxSuccessorsCount, modelNode.successorCount);
 			}
+			ArtifactGraphView.this.maxDepth = maxDepth;
+			ArtifactGraphView.this.maxSuccessorsCount = maxSuccessorsCount;
+			ArtifactGraphView.this.updateNodesAndEdgesStyles(ArtifactGraphView.this.depthFade);
+
+			viewer.enableAutoLayout(ArtifactGraphView.this.layout);
 		}
 
+		private void applyNode(GraphModelNode modelNode) {
+			Graph graph = ArtifactGraphView.this.graph;
+			Node graphNode = graph.getNode(modelNode.id);
+			if (graphNode == null) {
+				graphNode = graph.addNode(modelNode.id);
+				if (modelNode.parentId != null)
+					graph.addEdge(modelNode.parentId + "-" + modelNode.id, modelNode.parentId, modelNode.id, true);
+			}
+			if (modelNode.label != null)
+				graphNode.setAttribute("label", modelNode.label);
+			else
+				graphNode.removeAttribute("label");
+			graphNode.setAttribute(DEPTH_ATTRIBUTE, modelNode.depth);
+			graphNode.setAttribute(ASSOC_ID_ATTRIBUTE, modelNode.assocId);
+			if (modelNode.successorCount != null)
+				graphNode.setAttribute(SUCCESSOR_COUNT_ATTRIBUTE, modelNode.successorCount);
+			else
+				graphNode.removeAttribute(SUCCESSOR_COUNT_ATTRIBUTE);
+		}
+	}
 
-		if (eccoNode.getChildren().size() < this.childCountLimit && depth < this.depthLimit) {
-			for (at.jku.isse.ecco.tree.Node eccoChildNode : eccoNode.getChildren()) {
-				Node graphChildNode = this.traverseTree(eccoChildNode, depth + 1);
+	private static class GraphModelNode {
+		private final String id;
+		private final String parentId;
+		private final String label;
+		private final int depth;
+		private final String assocId;
+		private final Integer successorCount;
+
+		private GraphModelNode(String id, String parentId, String label, int depth, String assocId, Integer successorCount) {
+			this.id = id;
+			this.parentId = parentId;
+			this.label = label;
+			this.depth = depth;
+			this.assocId = assocId;
+			this.successorCount = successorCount;
+		}
+	}
 
-				if (graphChildNode != null && graphNode != null) {
-					Edge edge = this.graph.addEdge(graphNode.getId() + "-" + graphChildNode.getId(), graphNode, graphChildNode, true);
-//					edge.addAttribute(DEPTH_ATTRIBUTE, depth);
-//					edge.addAttribute(ASSOC_ID_ATTRIBUTE, assocId);
+	private static String getLabel(at.jku.isse.ecco.tree.Node eccoNode) {
+		if (eccoNode.getArtifact().getData() instanceof PluginArtifactData) {
+			return ((PluginArtifactData) eccoNode.getArtifact().getData()).getPath().toString();
+		} else if (eccoNode.getArtifact().getData() instanceof DirectoryArtifactData) {
+			return ((DirectoryArtifactData) eccoNode.getArtifact().getData()).getPath().toString();
+		}
+		return null;
+	}
 
-//					if (depthFade)
-//						edge.addAttribute("ui.style", "fill-color: rgb(" + colorValue + ", " + colorValue + ", " + colorValue + ");");
-//					else
-//						edge.addAttribute("ui.class", "A" + ((eccoNode.getArtifact().getContainingNode().getContainingAssociation().getId() % 7) + 1));
+	private static void groupArtifactsByAssocRec(at.jku.isse.ecco.tree.Node eccoNode, Map<Association, Integer> groupMap) {
+		for (at.jku.isse.ecco.tree.Node eccoChildNode : eccoNode.getChildren()) {
+			if (eccoChildNode.getArtifact() != null) {
+				Association childContainingAssociation = eccoChildNode.getArtifact().getContainingNode().getContainingAssociation();
+				if (childContainingAssociation != null) {
+					groupMap.merge(childContainingAssociation, 1, Integer::sum);
 				}
 			}
+			groupArtifactsByAssocRec(eccoChildNode, groupMap);
 		}
-
-		return graphNode;
 	}
 
 	@Override
@@ -409,6 +512,8 @@ public class ArtifactGraphView extends BorderPane implements EccoListener {
 			});
 		} else {
 			Platform.runLater(() -> {
+				if (this.updateTask != null)
+					this.updateTask.cancel();
 				closeView();
 				this.setDisable(true);
 			});
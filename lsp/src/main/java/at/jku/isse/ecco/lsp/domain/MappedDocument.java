@@ -0,0 +1,133 @@
+package at.jku.isse.ecco.lsp.domain;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.lsp.util.Nodes;
+import at.jku.isse.ecco.lsp.util.Positions;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A mapped document whose node ranges and associations are extracted once, so that repeated requests on the same document version are answered from the tables instead of traversing
+ * the artifact tree again.
+ */
+public class MappedDocument implements Document {
+
+    private final Document document;
+
+    private final List<NodeEntry> nodeEntries;
+
+    private final Map<String, Association> associations;
+
+    private final Map<String, Set<Node>> associationNodes;
+
+    private final Map<Association, List<Range>> associationRanges;
+
+    private Map<FeatureRevision, DocumentFeature> documentFeatures;
+
+    public MappedDocument(final Document document) {
+        this.document = document;
+        this.nodeEntries = new ArrayList<>();
+        this.associations = new HashMap<>();
+        this.associationNodes = new HashMap<>();
+        this.associationRanges = new LinkedHashMap<>();
+
+        document.getRootNode().traverse(node -> {
+            final Optional<Range> range = Positions.extractNodeRange(node);
+            final Optional<Association> association = Nodes.getMappedNodeAssociation(node);
+            if (range.isEmpty() && association.isEmpty()) {
+                return;
+            }
+
+            this.nodeEntries.add(new NodeEntry(node, range.orElse(null), association.orElse(null)));
+
+            if (association.isPresent()) {
+                this.associations.putIfAbsent(association.get().getId(), association.get());
+                this.associationNodes.computeIfAbsent(association.get().getId(), id -> new HashSet<>()).add(node);
+                range.ifPresent(r -> this.associationRanges.computeIfAbsent(association.get(), assoc -> new ArrayList<>()).add(r));
+            }
+        });
+    }
+
+    @Override
+    public Path getDocumentPath() {
+        return this.document.getDocumentPath();
+    }
+
+    @Override
+    public RootNode getRootNode() {
+        return this.document.getRootNode();
+    }
+
+    /**
+     * Returns the (unmerged) ranges of the mapped nodes of every association in the document, in document traversal order.
+     *
+     * @return The ranges per association.
+     */
+    public Map<Association, List<Range>> getAssociationRanges() {
+        return Collections.unmodifiableMap(this.associationRanges);
+    }
+
+    public synchronized Map<FeatureRevision, DocumentFeature> getDocumentFeatures() {
+        if (this.documentFeatures == null) {
+            this.documentFeatures = Collections.unmodifiableMap(EccoDocumentFeature.from(this));
+        }
+        return this.documentFeatures;
+    }
+
+    @Override
+    public Set<Node> getNodesAt(final Position position) {
+        final Set<Node> nodes = new HashSet<>();
+        for (final NodeEntry nodeEntry : this.nodeEntries) {
+            if (nodeEntry.range != null && Positions.rangeContains(nodeEntry.range, position)) {
+                nodes.add(nodeEntry.node);
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public Set<Association> getAssociationsOf(final Collection<? extends Node> nodes) {
+        final Set<Association> associations = new HashSet<>();
+        for (final NodeEntry nodeEntry : this.nodeEntries) {
+            if (nodeEntry.association != null && nodes.contains(nodeEntry.node)) {
+                associations.add(nodeEntry.association);
+            }
+        }
+        return associations;
+    }
+
+    @Override
+    public Map<Association, Set<Node>> getNodesFor(final Collection<? extends Association> associations) {
+        final Map<Association, Set<Node>> nodeMap = new HashMap<>();
+        for (final Association association : associations) {
+            final Set<Node> nodes = this.associationNodes.get(association.getId());
+            if (nodes != null) {
+                nodeMap.put(this.associations.get(association.getId()), new HashSet<>(nodes));
+            }
+        }
+        return nodeMap;
+    }
+
+    @Override
+    public String toString() {
+        return this.document.toString();
+    }
+
+    private static class NodeEntry {
+        private final Node node;
+        private final Range range;
+        private final Association association;
+
+        private NodeEntry(final Node node, final Range range, final Association association) {
+            this.node = node;
+            this.range = range;
+            this.association = association;
+        }
+    }
+}
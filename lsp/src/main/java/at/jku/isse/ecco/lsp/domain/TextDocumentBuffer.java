@@ -0,0 +1,134 @@
+package at.jku.isse.ecco.lsp.domain;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contents of an open text document stored as a list of lines, so that incremental changes only touch the lines within their range.
+ * Every line keeps its line terminator; the last line has none and may be empty. Characters are counted in UTF-16 code units, as in LSP positions.
+ */
+public class TextDocumentBuffer {
+
+    private final List<String> lines;
+
+    private int version;
+
+    private String text;
+
+    public TextDocumentBuffer(final String text, final int version) {
+        this.lines = new ArrayList<>();
+        this.version = version;
+        this.setText(text, version);
+    }
+
+    public synchronized int getVersion() {
+        return this.version;
+    }
+
+    public synchronized int getLineCount() {
+        return this.lines.size();
+    }
+
+    /**
+     * Returns the full text of the document. The text is only rebuilt after it was changed.
+     *
+     * @return The full text of the document.
+     */
+    public synchronized String getText() {
+        if (this.text == null) {
+            final StringBuilder sb = new StringBuilder();
+            for (final String line : this.lines) {
+                sb.append(line);
+            }
+            this.text = sb.toString();
+        }
+        return this.text;
+    }
+
+    /**
+     * Replaces the whole document content.
+     *
+     * @param text    The new content.
+     * @param version The document version after the change.
+     */
+    public synchronized void setText(final String text, final int version) {
+        this.lines.clear();
+        this.lines.addAll(splitLines(text));
+        this.text = text;
+        this.version = version;
+    }
+
+    /**
+     * Replaces the given range of the document.
+     *
+     * @param range   The range to replace.
+     * @param text    The text to insert.
+     * @param version The document version after the change.
+     */
+    public synchronized void applyChange(final Range range, final String text, final int version) {
+        final Position start = this.clamp(range.getStart());
+        final Position end = this.clamp(range.getEnd());
+
+        final String startLine = this.lines.get(start.getLine());
+        final String endLine = this.lines.get(end.getLine());
+
+        int firstLine = start.getLine();
+        String replaced = startLine.substring(0, start.getCharacter()) + text + endLine.substring(end.getCharacter());
+        // a "\r" at the end of the previous line and a "\n" at the start of the replaced text form a single line break
+        if (firstLine > 0 && replaced.startsWith("\n") && this.lines.get(firstLine - 1).endsWith("\r")) {
+            firstLine--;
+            replaced = this.lines.get(firstLine) + replaced;
+        }
+
+        final List<String> newLines = splitLines(replaced);
+        // unless the range ends in the last line the replaced text ends with a line terminator, which leaves an empty last piece
+        if (end.getLine() < this.lines.size() - 1) {
+            newLines.remove(newLines.size() - 1);
+        }
+
+        final List<String> replacedLines = this.lines.subList(firstLine, end.getLine() + 1);
+        replacedLines.clear();
+        replacedLines.addAll(newLines);
+
+        this.text = null;
+        this.version = version;
+    }
+
+    private Position clamp(final Position position) {
+        if (position.getLine() >= this.lines.size()) {
+            final int lastLine = this.lines.size() - 1;
+            return new Position(lastLine, this.lines.get(lastLine).length());
+        }
+        final String line = this.lines.get(position.getLine());
+        return new Position(position.getLine(), Math.max(0, Math.min(position.getCharacter(), lineContentLength(line))));
+    }
+
+    private static int lineContentLength(final String line) {
+        if (line.endsWith("\r\n")) {
+            return line.length() - 2;
+        } else if (line.endsWith("\n") || line.endsWith("\r")) {
+            return line.length() - 1;
+        }
+        return line.length();
+    }
+
+    private static List<String> splitLines(final String text) {
+        final List<String> lines = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                lines.add(text.substring(lineStart, i + 1));
+                lineStart = i + 1;
+            }
+        }
+        lines.add(text.substring(lineStart));
+        return lines;
+    }
+}
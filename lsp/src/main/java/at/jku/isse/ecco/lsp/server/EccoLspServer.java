@@ -7,6 +7,8 @@ import at.jku.isse.ecco.lsp.services.EccoExtensionService;
 import at.jku.isse.ecco.lsp.services.EccoServiceCommonState;
 import at.jku.isse.ecco.lsp.services.EccoTextDocumentService;
 import at.jku.isse.ecco.lsp.services.EccoWorkspaceService;
+import at.jku.isse.ecco.lsp.services.Workspace;
+import at.jku.isse.ecco.lsp.services.WorkspaceRegistry;
 import at.jku.isse.ecco.service.EccoService;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
@@ -19,9 +21,8 @@ import org.eclipse.lsp4j.services.*;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -30,31 +31,38 @@ public class EccoLspServer implements LanguageServer, LanguageClientAware {
     private final TextDocumentService textDocumentService;
     private final WorkspaceService workspaceService;
     private final EccoLspExtensions eccoLspExtensions;
+    private final EccoServiceCommonState eccoServiceCommonState;
     private LanguageClient languageClient;
     private int exitCode;
-    private final Map<Path, EccoService> eccoServiceWorkspaces;
+    private final WorkspaceRegistry workspaceRegistry;
     private final Logger logger;
 
     public EccoLspServer(final Logger logger) {
         this.languageClient = null;
         this.exitCode = -1;
-        this.eccoServiceWorkspaces = new HashMap<>();
+        this.workspaceRegistry = new WorkspaceRegistry(logger);
         this.logger = logger;
 
         logger.fine("Instantiating LSP services");
-        final EccoServiceCommonState eccoServiceCommonState = new EccoServiceCommonState(this);
-        this.textDocumentService = new EccoTextDocumentService(this, eccoServiceCommonState);
+        this.eccoServiceCommonState = new EccoServiceCommonState(this);
+        this.workspaceRegistry.setEvictionListener(workspace -> this.eccoServiceCommonState.invalidateDocuments(workspace.getPath()));
+        this.textDocumentService = new EccoTextDocumentService(this, this.eccoServiceCommonState);
         this.workspaceService = new EccoWorkspaceService(this);
-        this.eccoLspExtensions = new EccoExtensionService(this, eccoServiceCommonState);
+        this.eccoLspExtensions = new EccoExtensionService(this, this.eccoServiceCommonState);
     }
 
     public EccoService getEccoServiceFor(final Path documentPath) {
-        for (final var serviceForWorkspace : this.eccoServiceWorkspaces.entrySet()) {
-            if (documentPath.startsWith(serviceForWorkspace.getKey())) {
-                return serviceForWorkspace.getValue();
-            }
-        }
-        throw new EccoException("Cannot find ECCO service for workspace that contains " + documentPath);
+        return this.getWorkspaceFor(documentPath)
+                .orElseThrow(() -> new EccoException("Cannot find ECCO service for workspace that contains " + documentPath))
+                .getEccoService();
+    }
+
+    public Optional<Workspace> getWorkspaceFor(final Path documentPath) {
+        return this.workspaceRegistry.find(documentPath);
+    }
+
+    public WorkspaceRegistry getWorkspaceRegistry() {
+        return this.workspaceRegistry;
     }
 
     public LanguageClient getLanguageClient() {
@@ -66,22 +74,17 @@ public class EccoLspServer implements LanguageServer, LanguageClientAware {
     }
 
     public void removeEccoServiceFor(final Path workspacePath) {
-        if (this.eccoServiceWorkspaces.containsKey(workspacePath)) {
+        this.workspaceRegistry.remove(workspacePath).ifPresent(workspace -> {
             this.getLogger().info("Stopping ECCO service for " + workspacePath);
-            final EccoService eccoService = this.eccoServiceWorkspaces.get(workspacePath);
-            eccoService.close();
-            this.eccoServiceWorkspaces.remove(workspacePath);
-        }
+            workspace.close();
+            this.eccoServiceCommonState.invalidateDocuments(workspacePath);
+        });
     }
 
     public void addEccoServiceFor(final Path workspacePath) {
         if (workspacePath.resolve(".ecco").toFile().exists()) {
-            if (!this.eccoServiceWorkspaces.containsKey(workspacePath)) {
-                this.getLogger().info("Instantiating ECCO service in " + workspacePath);
-                final EccoService eccoService = new EccoService(workspacePath);
-                eccoService.open();
-                this.eccoServiceWorkspaces.put(workspacePath, eccoService);
-            }
+            this.getLogger().info("Instantiating ECCO service in " + workspacePath);
+            this.workspaceRegistry.add(workspacePath).getEccoService();
         }
     }
 
@@ -102,7 +105,7 @@ public class EccoLspServer implements LanguageServer, LanguageClientAware {
                     final Path workspaceFolderPath = Paths.get(new URI(workspaceFolderUri));
                     if (workspaceFolderPath.resolve(".ecco").toFile().exists()) {
                         this.getLogger().info("Instantiating ECCO service in " + workspaceFolderPath);
-                        this.eccoServiceWorkspaces.put(workspaceFolderPath, new EccoService(workspaceFolderPath));
+                        this.workspaceRegistry.add(workspaceFolderPath);
                     }
                 }
             } catch (Throwable e) {
@@ -116,8 +119,8 @@ public class EccoLspServer implements LanguageServer, LanguageClientAware {
 
         try {
             logger.fine("Opening ECCO repositories");
-            for (final EccoService eccoService : this.eccoServiceWorkspaces.values()) {
-                eccoService.open();
+            for (final Workspace workspace : this.workspaceRegistry.getWorkspaces()) {
+                workspace.getEccoService();
             }
         } catch (Throwable ex) {
             logger.log(Level.SEVERE, "Opening ECCO repository failed with an exception", ex);
@@ -127,7 +130,7 @@ public class EccoLspServer implements LanguageServer, LanguageClientAware {
 
         logger.fine("Instantiating LSP initialize result");
         InitializeResult result = new InitializeResult(new ServerCapabilities());
-        result.getCapabilities().setTextDocumentSync(TextDocumentSyncKind.Full);
+        result.getCapabilities().setTextDocumentSync(TextDocumentSyncKind.Incremental);
         result.getCapabilities().setDocumentSymbolProvider(new DocumentSymbolOptions());
         result.getCapabilities().setDocumentHighlightProvider(new DocumentHighlightOptions());
         result.getCapabilities().setHoverProvider(new HoverOptions());
@@ -144,9 +147,8 @@ public class EccoLspServer implements LanguageServer, LanguageClientAware {
     @Override
     public CompletableFuture<Object> shutdown() {
         this.getLogger().fine("Shutdown requested");
-        for (final EccoService eccoService : this.eccoServiceWorkspaces.values()) {
-            eccoService.close();
-        }
+        this.eccoServiceCommonState.shutdown();
+        this.workspaceRegistry.shutdown();
         this.exitCode = 0;
         return CompletableFuture.supplyAsync(Object::new);
     }
@@ -0,0 +1,104 @@
+package at.jku.isse.ecco.lsp.services;
+
+import at.jku.isse.ecco.lsp.domain.MappedDocument;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * LRU cache of mapped documents keyed by document URI. Every entry remembers the version it was mapped from (the LSP document version for unsaved documents or the content hash
+ * for saved files), and {@link #get} only returns it for that version.
+ */
+public class DocumentCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private final Map<String, Entry> entries;
+
+    private int maxEntries;
+
+    public DocumentCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public DocumentCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return this.size() > DocumentCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized Optional<MappedDocument> get(final String uri, final String version) {
+        final Entry entry = this.entries.get(uri);
+        if (entry == null || !entry.version.equals(version)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.document);
+    }
+
+    /**
+     * Returns the cached document of the given URI regardless of the version it was mapped from.
+     *
+     * @param uri The document URI.
+     * @return The latest cached mapping of the document.
+     */
+    public synchronized Optional<MappedDocument> getLatest(final String uri) {
+        final Entry entry = this.entries.get(uri);
+        return entry == null ? Optional.empty() : Optional.of(entry.document);
+    }
+
+    public synchronized void put(final String uri, final String version, final MappedDocument document) {
+        if (this.maxEntries <= 0) {
+            return;
+        }
+        this.entries.put(uri, new Entry(version, document));
+    }
+
+    public synchronized void invalidate(final String uri) {
+        this.entries.remove(uri);
+    }
+
+    /**
+     * Drops the cached documents whose URI matches the given predicate.
+     *
+     * @param uriPredicate The predicate on document URIs.
+     */
+    public synchronized void invalidateIf(final Predicate<String> uriPredicate) {
+        this.entries.keySet().removeIf(uriPredicate);
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    public synchronized int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * Sets the maximum number of cached documents. A value of 0 disables the cache.
+     *
+     * @param maxEntries The maximum number of cached documents.
+     */
+    public synchronized void setMaxEntries(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        while (this.entries.size() > maxEntries) {
+            this.entries.remove(this.entries.keySet().iterator().next());
+        }
+    }
+
+    private static class Entry {
+        private final String version;
+        private final MappedDocument document;
+
+        private Entry(final String version, final MappedDocument document) {
+            this.version = version;
+            this.document = document;
+        }
+    }
+}
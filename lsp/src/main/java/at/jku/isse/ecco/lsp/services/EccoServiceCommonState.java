@@ -1,28 +1,57 @@
 package at.jku.isse.ecco.lsp.services;
 
-import at.jku.isse.ecco.lsp.domain.Document;
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.EccoUtil;
 import at.jku.isse.ecco.lsp.domain.EccoDocument;
+import at.jku.isse.ecco.lsp.domain.MappedDocument;
+import at.jku.isse.ecco.lsp.domain.TextDocumentBuffer;
 import at.jku.isse.ecco.lsp.server.EccoLspServer;
 import at.jku.isse.ecco.service.EccoService;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class EccoServiceCommonState {
+
+    /**
+     * Delay after the last change of a document before it is mapped again in the background.
+     */
+    public static final long MAPPING_DELAY_MS = 300;
+
     private final EccoLspServer eccoLspServer;
-    private final Map<String, String> unsavedDocumentContents;
+    private final Map<String, TextDocumentBuffer> documentBuffers;
+    private final Set<String> unsavedDocuments;
+    private final Map<String, ScheduledFuture<?>> pendingMappings;
+    private final ScheduledExecutorService mappingExecutor;
+    private final DocumentCache documentCache;
+    private final RequestExecutor requestExecutor;
     private final Settings settings;
 
     public EccoServiceCommonState(final EccoLspServer eccoLspServer) {
         this.eccoLspServer = eccoLspServer;
-        this.unsavedDocumentContents = new HashMap<>();
+        this.documentBuffers = new ConcurrentHashMap<>();
+        this.unsavedDocuments = ConcurrentHashMap.newKeySet();
+        this.pendingMappings = new ConcurrentHashMap<>();
+        this.mappingExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "ecco-lsp-mapping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.documentCache = new DocumentCache();
+        this.requestExecutor = new RequestExecutor();
         this.settings = new Settings();
     }
 
@@ -30,22 +59,216 @@ public class EccoServiceCommonState {
         return this.settings;
     }
 
+    public DocumentCache getDocumentCache() {
+        return this.documentCache;
+    }
+
+    /**
+     * Runs a query in the reader lane of the workspace containing the given path. Requests outside of any workspace run in a common executor (and usually fail to find their repository).
+     *
+     * @param path    A path in the workspace.
+     * @param handler The query.
+     * @param <T>     The result type.
+     * @return The future result of the query.
+     */
+    public <T> CompletableFuture<T> read(final Path path, final Function<CancelChecker, T> handler) {
+        final Optional<Workspace> workspace = this.eccoLspServer.getWorkspaceFor(path);
+        return workspace.isPresent() ? workspace.get().read(handler) : this.requestExecutor.read(handler);
+    }
+
+    /**
+     * Runs a command in the writer lane of the workspace containing the given path.
+     *
+     * @param path    A path in the workspace.
+     * @param handler The command.
+     * @param <T>     The result type.
+     * @return The future result of the command.
+     */
+    public <T> CompletableFuture<T> write(final Path path, final Function<CancelChecker, T> handler) {
+        final Optional<Workspace> workspace = this.eccoLspServer.getWorkspaceFor(path);
+        return workspace.isPresent() ? workspace.get().write(handler) : this.requestExecutor.write(handler);
+    }
+
+    /**
+     * Runs a query on a document in the reader lane of its workspace. Besides client cancellation the cancel checker passed to the query also fails once the document was
+     * changed after the request was received, since the client asks again for the new version and the result for the old one would be discarded anyway.
+     *
+     * @param uri     The document URI.
+     * @param handler The query.
+     * @param <T>     The result type.
+     * @return The future result of the query.
+     */
+    public <T> CompletableFuture<T> queryDocument(final String uri, final Function<CancelChecker, T> handler) {
+        final int version = this.getDocumentVersion(uri);
+        return this.read(toPath(uri), cancelChecker -> {
+            final CancelChecker documentCancelChecker = () -> {
+                cancelChecker.checkCanceled();
+                if (this.getDocumentVersion(uri) != version) {
+                    throw new CancellationException("Document " + uri + " was changed to version " + this.getDocumentVersion(uri));
+                }
+            };
+            documentCancelChecker.checkCanceled();
+            return handler.apply(documentCancelChecker);
+        });
+    }
+
+    private int getDocumentVersion(final String uri) {
+        final TextDocumentBuffer buffer = this.documentBuffers.get(uri);
+        return buffer != null ? buffer.getVersion() : -1;
+    }
+
+    public void shutdown() {
+        this.mappingExecutor.shutdownNow();
+        this.requestExecutor.shutdown();
+    }
+
+    public void openDocument(final String uri, final String content, final int version) {
+        this.documentBuffers.put(uri, new TextDocumentBuffer(content, version));
+        this.removeUnsaved(uri);
+    }
+
+    public void closeDocument(final String uri) {
+        this.removeUnsaved(uri);
+        this.documentBuffers.remove(uri);
+    }
+
     public void removeUnsaved(final String uri) {
-        this.unsavedDocumentContents.remove(uri);
+        this.unsavedDocuments.remove(uri);
+        final ScheduledFuture<?> pendingMapping = this.pendingMappings.remove(uri);
+        if (pendingMapping != null) {
+            pendingMapping.cancel(false);
+        }
+        this.documentCache.invalidate(uri);
     }
 
     public void updateUnsaved(final String uri, final String content) {
-        this.unsavedDocumentContents.put(uri, content);
+        final TextDocumentBuffer buffer = this.documentBuffers.get(uri);
+        this.updateUnsaved(uri, content, buffer != null ? buffer.getVersion() + 1 : 0);
+    }
+
+    public void updateUnsaved(final String uri, final String content, final int version) {
+        this.documentBuffers.computeIfAbsent(uri, u -> new TextDocumentBuffer(content, version)).setText(content, version);
+        this.unsavedDocuments.add(uri);
+        this.scheduleMapping(uri);
+    }
+
+    /**
+     * Applies the given content changes to the buffer of the document and schedules it to be mapped again. Changes without a range replace the whole content.
+     *
+     * @param uri          The document URI.
+     * @param version      The document version after the changes.
+     * @param changeEvents The content changes in the order they were made.
+     */
+    public void applyChanges(final String uri, final int version, final List<TextDocumentContentChangeEvent> changeEvents) {
+        final TextDocumentBuffer buffer = this.documentBuffers.computeIfAbsent(uri, u -> new TextDocumentBuffer(this.readDocument(u), version));
+        for (final TextDocumentContentChangeEvent changeEvent : changeEvents) {
+            if (changeEvent.getRange() == null) {
+                buffer.setText(changeEvent.getText(), version);
+            } else {
+                buffer.applyChange(changeEvent.getRange(), changeEvent.getText(), version);
+            }
+        }
+        this.unsavedDocuments.add(uri);
+        this.scheduleMapping(uri);
     }
 
     public Optional<String> getUnsaved(final String uri) {
-        if (this.unsavedDocumentContents.containsKey(uri)) {
-            return Optional.of(this.unsavedDocumentContents.get(uri));
+        final TextDocumentBuffer buffer = this.documentBuffers.get(uri);
+        if (buffer != null && this.unsavedDocuments.contains(uri)) {
+            return Optional.of(buffer.getText());
         } else {
             return Optional.empty();
         }
     }
 
+    private String readDocument(final String uri) {
+        try {
+            final Path documentPath = Path.of(URI.create(uri).getPath());
+            return Files.isRegularFile(documentPath) ? Files.readString(documentPath) : "";
+        } catch (IOException e) {
+            throw new EccoException("Could not read document " + uri, e);
+        }
+    }
+
+    /**
+     * (Re)schedules the background mapping of an unsaved document, so that it is mapped once the changes pause for {@link #MAPPING_DELAY_MS}.
+     */
+    private void scheduleMapping(final String uri) {
+        final ScheduledFuture<?> pendingMapping = this.pendingMappings.put(uri,
+                this.mappingExecutor.schedule(() -> this.mapUnsavedLocked(uri), MAPPING_DELAY_MS, TimeUnit.MILLISECONDS));
+        if (pendingMapping != null) {
+            pendingMapping.cancel(false);
+        }
+    }
+
+    private boolean isMappingPending(final String uri) {
+        final ScheduledFuture<?> pendingMapping = this.pendingMappings.get(uri);
+        return pendingMapping != null && !pendingMapping.isDone();
+    }
+
+    private void mapUnsavedLocked(final String uri) {
+        final Optional<Workspace> workspace = this.eccoLspServer.getWorkspaceFor(toPath(uri));
+        if (workspace.isPresent()) {
+            workspace.get().readLocked(() -> this.mapUnsaved(uri));
+        } else {
+            this.requestExecutor.readLocked(() -> this.mapUnsaved(uri));
+        }
+    }
+
+    private void mapUnsaved(final String uri) {
+        final TextDocumentBuffer buffer = this.documentBuffers.get(uri);
+        if (buffer == null || !this.unsavedDocuments.contains(uri)) {
+            return;
+        }
+        final String content;
+        final int version;
+        synchronized (buffer) {
+            content = buffer.getText();
+            version = buffer.getVersion();
+        }
+        final String versionKey = "v" + version;
+        if (this.documentCache.get(uri, versionKey).isPresent()) {
+            return;
+        }
+        try {
+            final MappedDocument document = this.loadDocument(uri, content);
+            // a request may already have mapped a newer version synchronously
+            if (this.documentCache.get(uri, "v" + buffer.getVersion()).isEmpty()) {
+                this.documentCache.put(uri, versionKey, document);
+            }
+        } catch (Throwable ex) {
+            this.eccoLspServer.getLogger().warning("Mapping document " + uri + " failed: " + ex.getMessage());
+        }
+    }
+
+    private MappedDocument loadDocument(final String uri, final String content) {
+        final Path documentPath = Path.of(URI.create(uri).getPath());
+        final EccoService eccoService = this.eccoLspServer.getEccoServiceFor(documentPath);
+        final Path documentInRepoPath = eccoService.getBaseDir().relativize(documentPath);
+        final InputStream is = new ByteArrayInputStream(content.getBytes());
+        return new MappedDocument(EccoDocument.load(eccoService, documentInRepoPath, is));
+    }
+
+    /**
+     * Drops all cached document mappings, e.g. after the repository changed.
+     */
+    public void invalidateDocuments() {
+        this.documentCache.clear();
+    }
+
+    /**
+     * Drops the cached document mappings of a workspace, e.g. after its repository was closed.
+     *
+     * @param workspacePath The path of the workspace.
+     */
+    public void invalidateDocuments(final Path workspacePath) {
+        this.documentCache.invalidateIf(uri -> toPath(uri).startsWith(workspacePath));
+    }
+
+    private static Path toPath(final String uri) {
+        return Path.of(URI.create(uri).getPath());
+    }
+
     public Path getDocumentPathInRepo(final String uri) {
         final URI documentUri = URI.create(uri);
         final Path documentPath = Path.of(documentUri.getPath());
@@ -54,24 +277,40 @@ public class EccoServiceCommonState {
         return repoBasePath.relativize(documentPath);
     }
 
-    public Supplier<Document> documentLoader(final String uri) {
+    public Supplier<MappedDocument> documentLoader(final String uri) {
+        final TextDocumentBuffer buffer = this.documentBuffers.get(uri);
+        if (buffer != null && this.unsavedDocuments.contains(uri)) {
+            final String content;
+            final int version;
+            synchronized (buffer) {
+                content = buffer.getText();
+                version = buffer.getVersion();
+            }
+            final String versionKey = "v" + version;
+            // while the current version is being mapped in the background requests are answered from the latest completed mapping
+            return () -> this.documentCache.get(uri, versionKey)
+                    .or(() -> this.isMappingPending(uri) ? this.documentCache.getLatest(uri) : Optional.empty())
+                    .orElseGet(() -> {
+                        final MappedDocument document = this.loadDocument(uri, content);
+                        this.documentCache.put(uri, versionKey, document);
+                        return document;
+                    });
+        }
+
         final URI documentUri = URI.create(uri);
         final Path documentPath = Path.of(documentUri.getPath());
         final EccoService eccoService = this.eccoLspServer.getEccoServiceFor(documentPath);
         final Path repoBasePath = eccoService.getBaseDir();
         final Path documentInRepoPath = repoBasePath.relativize(documentPath);
-        return this.getUnsaved(uri)
-                .map(content -> {
-                    final Supplier<Document> documentSupplier = () -> {
-                        InputStream is = new ByteArrayInputStream(content.getBytes());
-                        return EccoDocument.load(eccoService, documentInRepoPath, is);
-                    };
-                    return documentSupplier;
-                })
-                .orElseGet(() -> {
-                    final Supplier<Document> documentSupplier = () ->
-                        EccoDocument.load(eccoService, documentInRepoPath);
-                    return documentSupplier;
-                });
+        return () -> {
+            final Optional<String> versionKey = Files.isRegularFile(documentPath)
+                    ? Optional.of("s" + EccoUtil.getSHA(documentPath))
+                    : Optional.empty();
+            return versionKey.flatMap(key -> this.documentCache.get(uri, key)).orElseGet(() -> {
+                final MappedDocument document = new MappedDocument(EccoDocument.load(eccoService, documentInRepoPath));
+                versionKey.ifPresent(key -> this.documentCache.put(uri, key, document));
+                return document;
+            });
+        };
     }
 }
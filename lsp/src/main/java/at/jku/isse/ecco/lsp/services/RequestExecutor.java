@@ -0,0 +1,116 @@
+package at.jku.isse.ecco.lsp.services;
+
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+import org.eclipse.lsp4j.jsonrpc.CompletableFutures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs request handlers off the lsp4j message thread, so that long running requests do not block other messages (including cancellations).
+ * Commands that modify a repository (commit, checkout) run one after another in the writer lane, queries run in parallel in the reader lane.
+ * A command waits for the running queries to finish and queries wait for a running command, so queries never see a half checked out workspace.
+ */
+public class RequestExecutor {
+
+    /**
+     * Time a running command is given to finish when the executor is shut down.
+     */
+    public static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final ExecutorService readerExecutor;
+
+    private final ExecutorService writerExecutor;
+
+    private final ReadWriteLock lock;
+
+    public RequestExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public RequestExecutor(final int readerThreads) {
+        this.readerExecutor = Executors.newFixedThreadPool(Math.max(1, readerThreads), threadFactory("ecco-lsp-reader"));
+        this.writerExecutor = Executors.newSingleThreadExecutor(threadFactory("ecco-lsp-writer"));
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Runs a query in the reader lane. The handler should call {@link CancelChecker#checkCanceled()} between expensive steps, which throws a
+     * {@link java.util.concurrent.CancellationException} once the client cancelled the request.
+     *
+     * @param handler The query.
+     * @param <T>     The result type.
+     * @return The future result of the query.
+     */
+    public <T> CompletableFuture<T> read(final Function<CancelChecker, T> handler) {
+        return CompletableFutures.computeAsync(this.readerExecutor, cancelChecker -> this.locked(this.lock.readLock(), () -> {
+            cancelChecker.checkCanceled();
+            return handler.apply(cancelChecker);
+        }));
+    }
+
+    /**
+     * Runs a command in the writer lane. Commands are not cancelled once they started, as they would leave the repository in an unknown state.
+     *
+     * @param handler The command.
+     * @param <T>     The result type.
+     * @return The future result of the command.
+     */
+    public <T> CompletableFuture<T> write(final Function<CancelChecker, T> handler) {
+        return CompletableFutures.computeAsync(this.writerExecutor, cancelChecker -> {
+            cancelChecker.checkCanceled();
+            return this.locked(this.lock.writeLock(), () -> handler.apply(cancelChecker));
+        });
+    }
+
+    /**
+     * Runs work outside of the lanes (e.g. background mapping) as a query, so that it does not overlap with commands.
+     */
+    void readLocked(final Runnable work) {
+        this.locked(this.lock.readLock(), () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Stops both lanes. Running queries are interrupted, while a running command is given time to finish before the repositories are closed.
+     */
+    public void shutdown() {
+        this.readerExecutor.shutdownNow();
+        this.writerExecutor.shutdown();
+        try {
+            this.writerExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            this.readerExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> T locked(final Lock lock, final Supplier<T> work) {
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ThreadFactory threadFactory(final String name) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
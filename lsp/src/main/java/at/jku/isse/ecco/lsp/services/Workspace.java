@@ -0,0 +1,195 @@
+package at.jku.isse.ecco.lsp.services;
+
+import at.jku.isse.ecco.repository.AssociationStatistics;
+import at.jku.isse.ecco.service.EccoService;
+import org.eclipse.lsp4j.jsonrpc.CancelChecker;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * An ECCO repository of the workspace together with its own {@link RequestExecutor}, so that requests on one repository never wait for another one.
+ * The repository is opened on first use and can be closed again once it is idle (see {@link #closeIfIdle}), in which case it is opened again by the next request.
+ */
+public class Workspace {
+
+    /**
+     * Rough heap size of an artifact in a loaded repository, including its node, data and sequence graph.
+     */
+    public static final long ESTIMATED_BYTES_PER_ARTIFACT = 512;
+
+    private final Path path;
+
+    private EccoService eccoService;
+
+    private RequestExecutor requestExecutor;
+
+    private int pendingRequests;
+
+    private long lastUsed;
+
+    private long estimatedMemory;
+
+    public Workspace(final Path path) {
+        this.path = path;
+        this.eccoService = null;
+        this.requestExecutor = null;
+        this.pendingRequests = 0;
+        this.lastUsed = System.currentTimeMillis();
+        this.estimatedMemory = -1;
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Returns the service of the repository and opens it in case it is closed.
+     *
+     * @return The open ECCO service of the workspace.
+     */
+    public synchronized EccoService getEccoService() {
+        this.lastUsed = System.currentTimeMillis();
+        if (this.eccoService == null) {
+            final EccoService eccoService = new EccoService(this.path);
+            eccoService.open();
+            this.eccoService = eccoService;
+        }
+        return this.eccoService;
+    }
+
+    public synchronized boolean isOpen() {
+        return this.eccoService != null;
+    }
+
+    public synchronized long getLastUsed() {
+        return this.lastUsed;
+    }
+
+    /**
+     * Returns the estimated heap size of the open repository, or -1 if it is closed or was not measured since it was opened or changed (see {@link #updateEstimatedMemory()}).
+     *
+     * @return The estimated heap size in bytes.
+     */
+    public synchronized long getEstimatedMemory() {
+        return this.estimatedMemory;
+    }
+
+    /**
+     * Estimates the heap size of the open repository from the number of its artifacts. The statistics used for it are kept by the service, so this only counts again after commits.
+     */
+    void updateEstimatedMemory() {
+        final EccoService eccoService;
+        synchronized (this) {
+            eccoService = this.eccoService;
+        }
+        if (eccoService == null) {
+            return;
+        }
+        long artifacts = 0;
+        for (final AssociationStatistics.Entry entry : eccoService.getAssociationStatistics().getEntries()) {
+            artifacts += entry.getNumArtifacts();
+        }
+        synchronized (this) {
+            if (this.eccoService == eccoService) {
+                this.estimatedMemory = artifacts * ESTIMATED_BYTES_PER_ARTIFACT;
+            }
+        }
+    }
+
+    private synchronized void invalidateEstimatedMemory() {
+        this.estimatedMemory = -1;
+    }
+
+    public <T> CompletableFuture<T> read(final Function<CancelChecker, T> handler) {
+        return this.track(this.acquire().read(handler));
+    }
+
+    /**
+     * Runs a command that may change the repository, after which its memory is estimated again.
+     */
+    public <T> CompletableFuture<T> write(final Function<CancelChecker, T> handler) {
+        final CompletableFuture<T> future = this.track(this.acquire().write(handler));
+        future.whenComplete((result, ex) -> this.invalidateEstimatedMemory());
+        return future;
+    }
+
+    void readLocked(final Runnable work) {
+        final RequestExecutor requestExecutor = this.acquire();
+        try {
+            requestExecutor.readLocked(work);
+        } finally {
+            this.release();
+        }
+    }
+
+    /**
+     * Closes the repository if no request is pending and it was not used since the given time.
+     *
+     * @param unusedSince Time in milliseconds since the epoch.
+     * @return Whether the repository was closed.
+     */
+    public boolean closeIfIdle(final long unusedSince) {
+        final RequestExecutor requestExecutor;
+        final EccoService eccoService;
+        synchronized (this) {
+            if (this.pendingRequests > 0 || this.lastUsed > unusedSince || this.eccoService == null) {
+                return false;
+            }
+            requestExecutor = this.requestExecutor;
+            eccoService = this.eccoService;
+            this.detach();
+        }
+        close(requestExecutor, eccoService);
+        return true;
+    }
+
+    public void close() {
+        final RequestExecutor requestExecutor;
+        final EccoService eccoService;
+        synchronized (this) {
+            requestExecutor = this.requestExecutor;
+            eccoService = this.eccoService;
+            this.detach();
+        }
+        close(requestExecutor, eccoService);
+    }
+
+    private void detach() {
+        this.requestExecutor = null;
+        this.eccoService = null;
+        this.estimatedMemory = -1;
+    }
+
+    /**
+     * Stops the executor before closing the service, outside of the lock of the workspace, as running requests may still need it.
+     */
+    private static void close(final RequestExecutor requestExecutor, final EccoService eccoService) {
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+        if (eccoService != null) {
+            eccoService.close();
+        }
+    }
+
+    private synchronized RequestExecutor acquire() {
+        this.lastUsed = System.currentTimeMillis();
+        if (this.requestExecutor == null) {
+            this.requestExecutor = new RequestExecutor();
+        }
+        this.pendingRequests++;
+        return this.requestExecutor;
+    }
+
+    private synchronized void release() {
+        this.pendingRequests--;
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    private <T> CompletableFuture<T> track(final CompletableFuture<T> future) {
+        future.whenComplete((result, ex) -> this.release());
+        return future;
+    }
+}
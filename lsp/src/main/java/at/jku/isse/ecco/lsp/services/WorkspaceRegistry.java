@@ -0,0 +1,190 @@
+package at.jku.isse.ecco.lsp.services;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * The workspaces with an ECCO repository, indexed in a trie of their path names, so that the workspace of a document is found by walking down its path once
+ * (the innermost workspace wins for nested repositories).
+ * <p>
+ * Repositories that were not used for {@link #DEFAULT_IDLE_TIMEOUT_MS} are closed in the background to free their heap. In addition, once the estimated heap of all open repositories
+ * exceeds the memory budget, the least recently used idle repositories are closed until it fits again.
+ */
+public class WorkspaceRegistry {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 15 * 60 * 1000;
+
+    public static final long EVICTION_INTERVAL_SECONDS = 60;
+
+    private final TrieNode root;
+
+    private final ScheduledExecutorService evictionExecutor;
+
+    private final Logger logger;
+
+    private long idleTimeout;
+
+    private long memoryBudget;
+
+    private Consumer<Workspace> evictionListener;
+
+    public WorkspaceRegistry(final Logger logger) {
+        this.root = new TrieNode();
+        this.logger = logger;
+        this.idleTimeout = DEFAULT_IDLE_TIMEOUT_MS;
+        this.memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+        this.evictionListener = workspace -> {};
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "ecco-lsp-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictionExecutor.scheduleWithFixedDelay(this::evict, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized Workspace add(final Path workspacePath) {
+        final TrieNode node = this.getTrieNode(workspacePath, true);
+        if (node.workspace == null) {
+            node.workspace = new Workspace(workspacePath);
+        }
+        return node.workspace;
+    }
+
+    public synchronized Optional<Workspace> remove(final Path workspacePath) {
+        final TrieNode node = this.getTrieNode(workspacePath, false);
+        if (node == null || node.workspace == null) {
+            return Optional.empty();
+        }
+        final Workspace workspace = node.workspace;
+        node.workspace = null;
+        return Optional.of(workspace);
+    }
+
+    /**
+     * Finds the innermost workspace that contains the given path.
+     *
+     * @param path An absolute path of a document or workspace.
+     * @return The workspace containing the path.
+     */
+    public synchronized Optional<Workspace> find(final Path path) {
+        TrieNode node = this.getRootNode(path);
+        Workspace workspace = node != null ? node.workspace : null;
+        for (int i = 0; node != null && i < path.getNameCount(); i++) {
+            node = node.children.get(path.getName(i).toString());
+            if (node != null && node.workspace != null) {
+                workspace = node.workspace;
+            }
+        }
+        return Optional.ofNullable(workspace);
+    }
+
+    public synchronized List<Workspace> getWorkspaces() {
+        final List<Workspace> workspaces = new ArrayList<>();
+        final Deque<TrieNode> stack = new ArrayDeque<>(this.root.children.values());
+        while (!stack.isEmpty()) {
+            final TrieNode node = stack.pop();
+            if (node.workspace != null) {
+                workspaces.add(node.workspace);
+            }
+            stack.addAll(node.children.values());
+        }
+        return workspaces;
+    }
+
+    public synchronized void setIdleTimeout(final long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public synchronized void setMemoryBudget(final long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Sets the listener that is notified after the repository of a workspace was closed because it was idle, e.g. to drop cached documents that refer to it.
+     */
+    public synchronized void setEvictionListener(final Consumer<Workspace> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Closes the repositories that were idle for longer than the idle timeout and, if the estimated heap of the remaining open repositories exceeds the memory budget, the least recently used idle ones.
+     */
+    public void evict() {
+        final long idleTimeout;
+        final long memoryBudget;
+        final Consumer<Workspace> evictionListener;
+        synchronized (this) {
+            idleTimeout = this.idleTimeout;
+            memoryBudget = this.memoryBudget;
+            evictionListener = this.evictionListener;
+        }
+
+        final List<Workspace> openWorkspaces = new ArrayList<>();
+        for (final Workspace workspace : this.getWorkspaces()) {
+            if (workspace.closeIfIdle(System.currentTimeMillis() - idleTimeout)) {
+                this.logger.info("Closed ECCO repository in " + workspace.getPath() + " after being idle");
+                evictionListener.accept(workspace);
+            } else if (workspace.isOpen()) {
+                openWorkspaces.add(workspace);
+            }
+        }
+
+        long totalMemory = 0;
+        for (final Workspace workspace : openWorkspaces) {
+            try {
+                if (workspace.getEstimatedMemory() < 0) {
+                    workspace.updateEstimatedMemory();
+                }
+            } catch (Throwable ex) {
+                this.logger.warning("Estimating the memory of the ECCO repository in " + workspace.getPath() + " failed: " + ex.getMessage());
+            }
+            totalMemory += Math.max(0, workspace.getEstimatedMemory());
+        }
+
+        openWorkspaces.sort(Comparator.comparingLong(Workspace::getLastUsed));
+        for (final Workspace workspace : openWorkspaces) {
+            if (totalMemory <= memoryBudget) {
+                break;
+            }
+            final long workspaceMemory = Math.max(0, workspace.getEstimatedMemory());
+            if (workspace.closeIfIdle(Long.MAX_VALUE)) {
+                this.logger.info("Closed ECCO repository in " + workspace.getPath() + " to free an estimated " + (workspaceMemory >> 20) + "MB");
+                totalMemory -= workspaceMemory;
+                evictionListener.accept(workspace);
+            }
+        }
+    }
+
+    public void shutdown() {
+        this.evictionExecutor.shutdownNow();
+        for (final Workspace workspace : this.getWorkspaces()) {
+            workspace.close();
+        }
+    }
+
+    private TrieNode getRootNode(final Path path) {
+        final Path pathRoot = path.getRoot();
+        return this.root.children.get(pathRoot != null ? pathRoot.toString() : "");
+    }
+
+    private TrieNode getTrieNode(final Path path, final boolean create) {
+        final Path pathRoot = path.getRoot();
+        final String rootName = pathRoot != null ? pathRoot.toString() : "";
+        TrieNode node = create ? this.root.children.computeIfAbsent(rootName, name -> new TrieNode()) : this.root.children.get(rootName);
+        for (int i = 0; node != null && i < path.getNameCount(); i++) {
+            final String name = path.getName(i).toString();
+            node = create ? node.children.computeIfAbsent(name, n -> new TrieNode()) : node.children.get(name);
+        }
+        return node;
+    }
+
+    private static class TrieNode {
+        private final Map<String, TrieNode> children = new HashMap<>();
+        private Workspace workspace = null;
+    }
+}
@@ -0,0 +1,76 @@
+package at.jku.isse.ecco.lsp.test;
+
+import at.jku.isse.ecco.lsp.domain.TextDocumentBuffer;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TextDocumentBufferTest {
+
+    @Test(groups = {"unit", "lsp"})
+    public void TextDocumentBuffer_MultiLineReplacement() {
+        final TextDocumentBuffer buffer = new TextDocumentBuffer("line0\nline1\nline2\nline3", 1);
+
+        buffer.applyChange(range(1, 2, 2, 3), "X\nY\nZ", 2);
+
+        Assert.assertEquals(buffer.getText(), "line0\nliX\nY\nZe2\nline3");
+        Assert.assertEquals(buffer.getLineCount(), 5);
+        Assert.assertEquals(buffer.getVersion(), 2);
+
+        // removing line breaks joins lines, also across "\r\n"
+        buffer.setText("a\r\nb\nc", 3);
+        buffer.applyChange(range(0, 1, 2, 0), "", 4);
+
+        Assert.assertEquals(buffer.getText(), "ac");
+        Assert.assertEquals(buffer.getLineCount(), 1);
+    }
+
+    @Test(groups = {"unit", "lsp"})
+    public void TextDocumentBuffer_InsertAtEnd() {
+        final TextDocumentBuffer buffer = new TextDocumentBuffer("a\nb", 1);
+
+        buffer.applyChange(range(1, 1, 1, 1), "\nc", 2);
+
+        Assert.assertEquals(buffer.getText(), "a\nb\nc");
+        Assert.assertEquals(buffer.getLineCount(), 3);
+
+        // after a trailing line break the last line is empty
+        buffer.setText("a\n", 3);
+        buffer.applyChange(range(1, 0, 1, 0), "b", 4);
+
+        Assert.assertEquals(buffer.getText(), "a\nb");
+        Assert.assertEquals(buffer.getLineCount(), 2);
+
+        // a "\n" inserted after a "\r" completes the line break instead of adding an empty line
+        buffer.setText("a\rb", 5);
+        buffer.applyChange(range(1, 0, 1, 0), "\n", 6);
+
+        Assert.assertEquals(buffer.getText(), "a\r\nb");
+        Assert.assertEquals(buffer.getLineCount(), 2);
+    }
+
+    @Test(groups = {"unit", "lsp"})
+    public void TextDocumentBuffer_OutOfRangePositions() {
+        // characters beyond the end of a line are clamped to the end of its content, before the line terminator
+        final TextDocumentBuffer buffer = new TextDocumentBuffer("ab\ncd", 1);
+        buffer.applyChange(range(0, 10, 0, 10), "X", 2);
+
+        Assert.assertEquals(buffer.getText(), "abX\ncd");
+
+        // lines beyond the end of the document are clamped to the end of the last line
+        buffer.applyChange(range(5, 0, 7, 3), "Y", 3);
+
+        Assert.assertEquals(buffer.getText(), "abX\ncdY");
+
+        buffer.applyChange(range(0, 10, 5, 0), "Z", 4);
+
+        Assert.assertEquals(buffer.getText(), "abXZ");
+        Assert.assertEquals(buffer.getLineCount(), 1);
+    }
+
+    private static Range range(final int startLine, final int startCharacter, final int endLine, final int endCharacter) {
+        return new Range(new Position(startLine, startCharacter), new Position(endLine, endCharacter));
+    }
+
+}
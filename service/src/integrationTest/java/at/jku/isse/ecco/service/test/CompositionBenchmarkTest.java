@@ -0,0 +1,91 @@
+package at.jku.isse.ecco.service.test;
+
+import at.jku.isse.ecco.adapter.dispatch.DirectoryArtifactData;
+import at.jku.isse.ecco.composition.EagerCompositionRootNode;
+import at.jku.isse.ecco.composition.LazyCompositionRootNode;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the composition of a synthetic repository with wide directory nodes that are contained in many associations, which is dominated by computing the union of the children of the original nodes.
+ * The measurements are only logged. The tests are only in the benchmark group and therefore not part of the integration test suite.
+ */
+public class CompositionBenchmarkTest {
+
+	private static final Logger LOGGER = Logger.getLogger(CompositionBenchmarkTest.class.getName());
+
+	@Test(groups = {"benchmark"})
+	public void Composition_Wide_Nodes_Benchmark() {
+		this.benchmark(200, 2000, true);
+	}
+
+	@Test(groups = {"benchmark"})
+	public void Composition_Wide_Nodes_Eager_Benchmark() {
+		this.benchmark(200, 2000, false);
+	}
+
+	@Test(groups = {"benchmark"})
+	public void Composition_Many_Associations_Benchmark() {
+		this.benchmark(2000, 200, true);
+	}
+
+	@Test(groups = {"benchmark"})
+	public void Composition_Many_Associations_Eager_Benchmark() {
+		this.benchmark(2000, 200, false);
+	}
+
+	/**
+	 * Composes associations that all contain the same directory with overlapping sets of files and checks that the files are merged.
+	 *
+	 * @param numAssociations The number of associations.
+	 * @param width           The number of files in the directory of every association.
+	 * @param lazy            Whether the associations are composed lazily (see {@link LazyCompositionRootNode}) or eagerly (see {@link EagerCompositionRootNode}).
+	 */
+	private void benchmark(int numAssociations, int width, boolean lazy) {
+		MemEntityFactory entityFactory = new MemEntityFactory();
+		int numFiles = width * 4;
+		Path directory = Paths.get("dir");
+
+		List<Association> associations = new ArrayList<>();
+		Set<Integer> expectedFiles = new HashSet<>();
+		for (int i = 0; i < numAssociations; i++) {
+			Node.Op directoryNode = entityFactory.createNode(new DirectoryArtifactData(directory));
+			for (int j = 0; j < width; j++) {
+				int file = (i * (width / 3 + 1) + j) % numFiles;
+				directoryNode.addChild(entityFactory.createNode(new DirectoryArtifactData(directory.resolve("f" + file))));
+				expectedFiles.add(file);
+			}
+			associations.add(entityFactory.createAssociation(new HashSet<>(Collections.singleton(directoryNode))));
+		}
+
+		long start = System.currentTimeMillis();
+		Node rootNode;
+		if (lazy) {
+			LazyCompositionRootNode lazyRootNode = new LazyCompositionRootNode();
+			for (Association association : associations) {
+				lazyRootNode.addOrigNode(association.getRootNode());
+			}
+			rootNode = lazyRootNode;
+		} else {
+			rootNode = new EagerCompositionRootNode(associations.stream().map(Association::getRootNode).collect(Collectors.toList()));
+		}
+		int numArtifacts = rootNode.countArtifacts();
+		long time = System.currentTimeMillis() - start;
+
+		LOGGER.info((lazy ? "lazy" : "eager") + " composition: " + numAssociations + " associations, " + width + " files per directory, " + numArtifacts + " composed artifacts, " + time + "ms");
+
+		Assert.assertEquals(rootNode.getChildren().size(), 1);
+		Assert.assertEquals(rootNode.getChildren().get(0).getChildren().size(), expectedFiles.size());
+		Assert.assertEquals(numArtifacts, expectedFiles.size() + 1);
+	}
+
+}
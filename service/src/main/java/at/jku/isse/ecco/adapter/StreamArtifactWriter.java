@@ -0,0 +1,26 @@
+package at.jku.isse.ecco.adapter;
+
+import at.jku.isse.ecco.tree.Node;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * An artifact writer that is able to write a single plugin node (i.e. a single file) to a given output stream instead of creating the file itself.
+ * This lets the caller decide where the bytes go, e.g. through a digest stream that computes the hash of the file while it is being written.
+ * Implementations must not keep state between calls, as files may be written concurrently.
+ */
+public interface StreamArtifactWriter extends ArtifactWriter<Set<Node>, Path> {
+
+	/**
+	 * Writes the file represented by the given plugin node to the given output stream. The stream is not closed by this method.
+	 *
+	 * @param pluginNode   The plugin node representing the file.
+	 * @param outputStream The stream to which the contents of the file are written.
+	 * @throws IOException If writing to the stream fails.
+	 */
+	public void write(Node pluginNode, OutputStream outputStream) throws IOException;
+
+}
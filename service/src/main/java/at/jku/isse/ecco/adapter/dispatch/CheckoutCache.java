@@ -0,0 +1,113 @@
+package at.jku.isse.ecco.adapter.dispatch;
+
+import at.jku.isse.ecco.composition.CompositionNode;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.tree.Node;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Cache for the contents of files written during checkouts. The composed subtree of a file is identical across checkouts exactly when the same associations contribute to it.
+ * Therefore, the rendered bytes of a file are stored under its path together with the sorted ids of the contributing associations, so that subsequent checkouts of other variants can copy them instead of running the writer again.
+ * The cache is bounded by the total number of cached bytes and evicts the least recently used entries first.
+ * It must be cleared whenever the repository changes, as association trees are modified by commits even if their ids stay the same.
+ */
+public class CheckoutCache {
+
+	public static final long DEFAULT_MAX_SIZE = 64L * 1024L * 1024L;
+
+	private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long maxSize;
+
+	private long size = 0;
+
+
+	public CheckoutCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	public CheckoutCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+
+	public synchronized long getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of cached bytes. A value of 0 disables the cache.
+	 *
+	 * @param maxSize The maximum number of cached bytes.
+	 */
+	public synchronized void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+		this.evict();
+	}
+
+	public synchronized boolean isEnabled() {
+		return this.maxSize > 0;
+	}
+
+	public synchronized long getSize() {
+		return this.size;
+	}
+
+
+	/**
+	 * Creates the cache key for the given plugin node. Only composed nodes know which associations contribute to them, for all other nodes null is returned.
+	 *
+	 * @param path       The path of the file (relative to the base directory).
+	 * @param pluginNode The plugin node representing the file.
+	 * @return The cache key or null if the node cannot be cached.
+	 */
+	public static String createKey(Path path, Node pluginNode) {
+		if (!(pluginNode instanceof CompositionNode))
+			return null;
+
+		// an association can only contribute artifacts below the file if it also contains the file node itself
+		TreeSet<String> associationIds = new TreeSet<>();
+		for (Node origNode : ((CompositionNode) pluginNode).getOrigNodes()) {
+			Association association = origNode.getContainingAssociation();
+			if (association == null)
+				return null;
+			associationIds.add(association.getId());
+		}
+
+		return path.toString() + "|" + String.join(",", associationIds);
+	}
+
+
+	public synchronized byte[] get(String key) {
+		return this.entries.get(key);
+	}
+
+	public synchronized void put(String key, byte[] content) {
+		if (content.length > this.maxSize)
+			return;
+		byte[] previous = this.entries.put(key, content);
+		if (previous != null)
+			this.size -= previous.length;
+		this.size += content.length;
+		this.evict();
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+		this.size = 0;
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String, byte[]>> it = this.entries.entrySet().iterator();
+		while (this.size > this.maxSize && it.hasNext()) {
+			this.size -= it.next().getValue().length;
+			it.remove();
+		}
+	}
+
+}
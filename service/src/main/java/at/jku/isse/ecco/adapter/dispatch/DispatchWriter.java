@@ -4,6 +4,7 @@ import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.EccoUtil;
 import at.jku.isse.ecco.adapter.ArtifactPlugin;
 import at.jku.isse.ecco.adapter.ArtifactWriter;
+import at.jku.isse.ecco.adapter.StreamArtifactWriter;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.service.EccoService;
 import at.jku.isse.ecco.service.listener.WriteListener;
@@ -11,13 +12,19 @@ import at.jku.isse.ecco.tree.Node;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.Logger;
 
 public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path> {
@@ -37,6 +44,16 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 
 	private Path repositoryDir;
 
+	/**
+	 * The maximum number of files that are written concurrently.
+	 */
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Contents of files written in previous checkouts.
+	 */
+	private final CheckoutCache cache = new CheckoutCache();
+
 	@Inject
 	public DispatchWriter(Set<ArtifactWriter<Set<Node>, Path>> writers, @Named("repositoryDir") Path repositoryDir) {
 		this.writers = writers;
@@ -62,6 +79,32 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 	}
 
 
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Sets the maximum number of files that are written concurrently during a checkout. A value of 1 writes all files on the calling thread.
+	 *
+	 * @param parallelism The maximum number of concurrently written files.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1)
+			throw new EccoException("Parallelism must be at least 1.");
+		this.parallelism = parallelism;
+	}
+
+
+	/**
+	 * Returns the cache of file contents written in previous checkouts. It must be cleared whenever the repository changes.
+	 *
+	 * @return The checkout cache.
+	 */
+	public CheckoutCache getCache() {
+		return this.cache;
+	}
+
+
 	private ArtifactWriter<Set<Node>, Path> getWriterForArtifact(PluginArtifactData artifact) {
 		for (ArtifactWriter<Set<Node>, Path> writer : this.writers) {
 			if (writer.getPluginId().equals(artifact.getPluginId()))
@@ -94,11 +137,16 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 
 		List<Path> output = new ArrayList<>();
 
-		Properties hashes = new Properties();
+		// create the directory structure first and collect the files to be written
+		List<FileTask> fileTasks = new ArrayList<>();
 		for (Node node : input) {
-			this.writeRec(base, base, node, output, hashes);
+			this.writeRec(base, base, node, output, fileTasks);
 		}
 
+		// write the files (independent of each other) and compute their hashes while writing
+		Properties hashes = new Properties();
+		this.writeFiles(base, fileTasks, output, hashes);
+
 		// write hashes file into base directory
 		Path hashesFile = base.resolve(EccoService.HASHES_FILE_NAME);
 		if (Files.exists(hashesFile)) {
@@ -115,7 +163,7 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 		return output.toArray(new Path[0]);
 	}
 
-	private void writeRec(Path base, Path parent, Node node, List<Path> output, Properties hashes) {
+	private void writeRec(Path base, Path parent, Node node, List<Path> output, List<FileTask> fileTasks) {
 		Artifact artifact = node.getArtifact();
 		if (artifact.getData() instanceof DirectoryArtifactData) {
 			DirectoryArtifactData directoryArtifactData = (DirectoryArtifactData) artifact.getData();
@@ -126,7 +174,7 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 				output.add(path);
 				this.fireWriteEvent(path, this);
 				for (Node child : node.getChildren()) {
-					this.writeRec(base, path, child, output, hashes);
+					this.writeRec(base, path, child, output, fileTasks);
 				}
 			} catch (IOException e) {
 				e.printStackTrace();
@@ -136,17 +184,135 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 
 			ArtifactWriter<Set<Node>, Path> writer = this.getWriterForArtifact(pluginArtifactData);
 
-			Set<Node> pluginInput = new HashSet<>();
-			pluginInput.add(node);
+			String cacheKey = this.cache.isEnabled() ? CheckoutCache.createKey(pluginArtifactData.getPath(), node) : null;
+
+			fileTasks.add(new FileTask(base, node, pluginArtifactData, writer, cacheKey == null ? null : this.cache, cacheKey));
+		}
+	}
+
+	/**
+	 * Writes the given files, concurrently if the parallelism allows it. Results (output paths, hashes and write events) are processed in the order of the given tasks on the calling thread.
+	 */
+	private void writeFiles(Path base, List<FileTask> fileTasks, List<Path> output, Properties hashes) {
+		if (this.parallelism <= 1 || fileTasks.size() <= 1) {
+			for (FileTask fileTask : fileTasks) {
+				this.processResult(fileTask, fileTask.call(), output, hashes);
+			}
+			return;
+		}
+
+		ExecutorService executorService = Executors.newFixedThreadPool(Math.min(this.parallelism, fileTasks.size()));
+		try {
+			List<Future<Map<Path, String>>> futures = new ArrayList<>(fileTasks.size());
+			for (FileTask fileTask : fileTasks) {
+				futures.add(executorService.submit(fileTask));
+			}
+			for (int i = 0; i < fileTasks.size(); i++) {
+				this.processResult(fileTasks.get(i), futures.get(i).get(), output, hashes);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EccoException("Interrupted while writing files.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof EccoException)
+				throw (EccoException) e.getCause();
+			throw new EccoException("Error writing files.", e);
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	private void processResult(FileTask fileTask, Map<Path, String> fileHashes, List<Path> output, Properties hashes) {
+		for (Map.Entry<Path, String> entry : fileHashes.entrySet()) {
+			hashes.put(entry.getKey().toString(), entry.getValue());
+			output.add(entry.getKey());
+		}
+		this.fireWriteEvent(fileTask.pluginArtifactData.getPath(), fileTask.writer);
+	}
+
+
+	/**
+	 * Writes a single file and returns the written paths with their hashes.
+	 * If the file content is cached from a previous checkout, the cached bytes are written without invoking the writer.
+	 * If the writer supports streaming, the hash is computed from the bytes as they are written. Otherwise the written files are read back to compute their hashes.
+	 */
+	private static class FileTask implements Callable<Map<Path, String>> {
+		private final Path base;
+		private final Node node;
+		private final PluginArtifactData pluginArtifactData;
+		private final ArtifactWriter<Set<Node>, Path> writer;
+		private final CheckoutCache cache;
+		private final String cacheKey;
+
+		private FileTask(Path base, Node node, PluginArtifactData pluginArtifactData, ArtifactWriter<Set<Node>, Path> writer, CheckoutCache cache, String cacheKey) {
+			this.base = base;
+			this.node = node;
+			this.pluginArtifactData = pluginArtifactData;
+			this.writer = writer;
+			this.cache = cache;
+			this.cacheKey = cacheKey;
+		}
+
+		@Override
+		public Map<Path, String> call() {
+			Map<Path, String> fileHashes = new LinkedHashMap<>();
+
+			if (this.cache == null) {
+				this.write(fileHashes);
+				return fileHashes;
+			}
 
-			Path[] outputPaths = writer.write(base, pluginInput);
-			for (Path outputPath : outputPaths) {
-				hashes.put(outputPath.toString(), EccoUtil.getSHA(base.resolve(outputPath)));
+			Path outputPath = this.base.resolve(this.pluginArtifactData.getPath());
+			byte[] content = this.cache.get(this.cacheKey);
+			try {
+				if (content != null) {
+					Files.write(outputPath, content);
+				} else if (this.writer instanceof StreamArtifactWriter) {
+					ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+					((StreamArtifactWriter) this.writer).write(this.node, outputStream);
+					content = outputStream.toByteArray();
+					Files.write(outputPath, content);
+					this.cache.put(this.cacheKey, content);
+				} else {
+					Path[] outputPaths = this.write(fileHashes);
+					// only cache writers that produce exactly the file of the plugin node
+					if (outputPaths.length == 1 && outputPaths[0].equals(outputPath))
+						this.cache.put(this.cacheKey, Files.readAllBytes(outputPath));
+					return fileHashes;
+				}
+			} catch (IOException e) {
+				throw new EccoException("Could not write file " + outputPath, e);
 			}
 
-			output.addAll(Arrays.asList(outputPaths));
+			MessageDigest digest = EccoUtil.createSHADigest();
+			digest.update(content);
+			fileHashes.put(outputPath, EccoUtil.getSHA(digest));
 
-			this.fireWriteEvent(pluginArtifactData.getPath(), writer);
+			return fileHashes;
+		}
+
+		private Path[] write(Map<Path, String> fileHashes) {
+			if (this.writer instanceof StreamArtifactWriter) {
+				Path outputPath = this.base.resolve(this.pluginArtifactData.getPath());
+				MessageDigest digest = EccoUtil.createSHADigest();
+				try (OutputStream outputStream = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(outputPath)), digest)) {
+					((StreamArtifactWriter) this.writer).write(this.node, outputStream);
+				} catch (IOException e) {
+					throw new EccoException("Could not write file " + outputPath, e);
+				}
+				fileHashes.put(outputPath, EccoUtil.getSHA(digest));
+				return new Path[]{outputPath};
+			} else {
+				Set<Node> pluginInput = new HashSet<>();
+				pluginInput.add(this.node);
+
+				Path[] outputPaths = this.writer.write(this.base, pluginInput);
+				for (Path outputPath : outputPaths) {
+					fileHashes.put(outputPath, EccoUtil.getSHA(this.base.resolve(outputPath)));
+				}
+				return outputPaths;
+			}
 		}
 	}
+
 }
@@ -18,7 +18,11 @@ import at.jku.isse.ecco.feature.Configuration;
 import at.jku.isse.ecco.feature.Feature;
 import at.jku.isse.ecco.feature.FeatureRevision;
 import at.jku.isse.ecco.module.ModuleRevision;
+import at.jku.isse.ecco.repository.AssociationStatistics;
+import at.jku.isse.ecco.repository.CheckoutPreview;
+import at.jku.isse.ecco.repository.Fingerprints;
 import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.repository.RepositorySubsetSink;
 import at.jku.isse.ecco.service.listener.EccoListener;
 import at.jku.isse.ecco.service.listener.ReadListener;
 import at.jku.isse.ecco.service.listener.ServerListener;
@@ -44,6 +48,8 @@ import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -128,6 +134,21 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         this.reader = reader;
     }
 
+    private boolean parallelComposition = false;
+
+    /**
+     * Checkouts compose lazily by default, so that files whose contents are in the checkout cache are not composed at all.
+     *
+     * @return True if checkouts compose the artifact tree completely and in parallel before writing it, false if it is composed lazily while it is written.
+     */
+    public boolean isParallelComposition() {
+        return this.parallelComposition;
+    }
+
+    public void setParallelComposition(boolean parallelComposition) {
+        this.parallelComposition = parallelComposition;
+    }
+
     // TODO: set current operation. update progress during operations (instead of just relaying the progress from input and output streams) and notify listeners.
     private Operation currentOperation;
     private int maxAbsoluteProgress;
@@ -193,6 +214,15 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         return this.initialized;
     }
 
+    private volatile boolean readOnly = false;
+
+    /**
+     * @return True if the repository was opened read only (see {@link #openReadOnly()}).
+     */
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
     private final MemEntityFactory memEntityFactory = new MemEntityFactory();
 
     @Inject
@@ -212,6 +242,9 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
     @Inject
     private RemoteDao remoteDao;
 
+    // statistics of the associations of the current repository version, computed on demand
+    private volatile AssociationStatistics associationStatistics = null;
+
     // # LISTENERS #####################################################################################################
 
     private final Collection<EccoListener> listeners = new ArrayList<>();
@@ -417,6 +450,23 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         }
     }
 
+    protected void checkWritable() {
+        if (this.isReadOnly()) {
+            throw new EccoException("Repository is opened read only.");
+        }
+    }
+
+    /**
+     * Runs a query on the repository. If the repository was opened read only, queries do not change any state of the service and run concurrently. Otherwise they are synchronized with all other operations.
+     */
+    private <T> T query(Supplier<T> query) {
+        if (this.readOnly)
+            return query.get();
+        synchronized (this) {
+            return query.get();
+        }
+    }
+
     protected Collection<Module> initializeService() {
         if (this.isInitialized()) {
             throw new EccoException("Repository is already open.");
@@ -479,7 +529,19 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      * Initializes the service.
      */
     public synchronized void open() {
-        LOGGER.info("OPEN()");
+        this.open(false);
+    }
+
+    /**
+     * Opens the repository read only, e.g. for serving queries. The repository is loaded once and shared with other services that open the same version of the repository read only.
+     * Changes made to the repository after opening it are not visible. Operations that change the repository fail and queries (e.g. {@link #getAssociations(Configuration)} or {@link #map(Collection)}) can run concurrently.
+     */
+    public synchronized void openReadOnly() {
+        this.open(true);
+    }
+
+    private void open(boolean readOnly) {
+        LOGGER.info(readOnly ? "OPEN_READ_ONLY()" : "OPEN()");
 
         if (!this.repositoryDirectoryExists()) {
             throw new EccoException("Repository does not exist.");
@@ -512,7 +574,11 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
         this.injector = injector;
 
-        this.transactionStrategy.open();
+        if (readOnly)
+            this.transactionStrategy.openReadOnly();
+        else
+            this.transactionStrategy.open();
+        this.readOnly = readOnly;
 
         this.repositoryDao.init();
         this.remoteDao.init();
@@ -547,6 +613,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             return;
 
         this.initialized = false;
+        this.readOnly = false;
 
         this.reader.removeListener(this);
         this.writer.removeListener(this);
@@ -556,6 +623,8 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
         this.transactionStrategy.close();
 
+        this.associationStatistics = null;
+
         this.fireStatusChangedEvent();
 
         LOGGER.info("Repository closed.");
@@ -587,6 +656,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
     public synchronized Remote addRemote(String name, String address, Remote.Type type) {
         this.checkInitialized();
+        this.checkWritable();
 
         try {
             this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
@@ -610,6 +680,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
     public synchronized void removeRemote(String name) {
         this.checkInitialized();
+        this.checkWritable();
 
         try {
             this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
@@ -661,19 +732,41 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
     }
 
 
-    public synchronized Repository getRepository() {
-        this.checkInitialized();
+    public Repository getRepository() {
+        return this.query(() -> {
+            this.checkInitialized();
 
-        try {
-            this.repositoryDao.init();
-            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
-            Repository repository = this.repositoryDao.load();
-            this.transactionStrategy.end();
-            return repository;
-        } catch (EccoException e) {
-            this.transactionStrategy.rollback();
-            throw new EccoException("Error when retrieving repository.", e);
-        }
+            try {
+                this.repositoryDao.init();
+                this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+                Repository repository = this.repositoryDao.load();
+                this.transactionStrategy.end();
+                return repository;
+            } catch (EccoException e) {
+                this.transactionStrategy.rollback();
+                throw new EccoException("Error when retrieving repository.", e);
+            }
+        });
+    }
+
+    /**
+     * Get the statistics of the associations of the repository (see {@link AssociationStatistics}).
+     * The statistics are computed lazily once per version of the repository. Only the artifacts of associations that were added or changed since the last computation are counted again.
+     *
+     * @return The statistics of the associations of the current version of the repository.
+     */
+    public AssociationStatistics getAssociationStatistics() {
+        return this.query(() -> {
+            Repository repository = this.getRepository();
+            AssociationStatistics statistics = this.associationStatistics;
+            if (statistics == null || !statistics.getVersion().equals(AssociationStatistics.computeVersion(repository))) {
+                long time = System.currentTimeMillis();
+                statistics = AssociationStatistics.compute(repository);
+                this.associationStatistics = statistics;
+                LOGGER.info(AssociationStatistics.class.getName() + ".compute(): " + (System.currentTimeMillis() - time) + "ms");
+            }
+            return statistics;
+        });
     }
 
     /**
@@ -681,15 +774,17 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      *
      * @return Collection containing all commit objects.
      */
-    public synchronized Collection<Commit> getCommits() {
-        this.checkInitialized();
+    public Collection<Commit> getCommits() {
+        return this.query(() -> {
+            this.checkInitialized();
 
-        try {
-            return getRepository().getCommits();
-        } catch (EccoException e) {
-            this.transactionStrategy.rollback();
-            throw new EccoException("Error when retrieving commits.", e);
-        }
+            try {
+                return getRepository().getCommits();
+            } catch (EccoException e) {
+                this.transactionStrategy.rollback();
+                throw new EccoException("Error when retrieving commits.", e);
+            }
+        });
     }
 
 
@@ -931,6 +1026,60 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
                             break;
                         }
+                        case "FETCH_DELTA": { // if fetch of features that changed since the last fetch, send data
+                            // retrieve fingerprint of the features the client already fetched
+                            String knownFingerprint = (String) ois.readObject();
+
+                            boolean changed;
+                            Collection<Feature> copiedFeatures;
+                            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+                            try {
+                                Repository.Op repository = this.repositoryDao.load();
+                                changed = !Fingerprints.of(repository.getFeatures()).equals(knownFingerprint);
+                                copiedFeatures = changed ? EccoUtil.deepCopyFeatures(repository.getFeatures(), this.memEntityFactory) : null;
+                            } finally {
+                                this.transactionStrategy.end();
+                            }
+
+                            // send features only if they changed, serialized once to also send their size first
+                            oos.writeObject(changed);
+                            if (changed) {
+                                ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
+                                try (ObjectOutputStream temp_oos = new ObjectOutputStream(byteOutputStream)) {
+                                    temp_oos.writeObject(copiedFeatures);
+                                }
+                                oos.writeObject(byteOutputStream.size());
+                                oos.writeObject(byteOutputStream.toByteArray());
+                            }
+                            oos.flush();
+
+                            break;
+                        }
+                        case "PULL_DELTA": { // if pull of associations that changed since the last pull, send data
+                            // retrieve deselection
+                            String deselectedFeatureRevisionsString = (String) ois.readObject();
+                            Collection<FeatureRevision> deselected = this.parseFeatureRevisionsString(deselectedFeatureRevisionsString);
+                            // retrieve fingerprints of the associations the client already pulled
+                            @SuppressWarnings("unchecked")
+                            Set<String> knownFingerprints = (Set<String>) ois.readObject();
+
+                            // compute subset repository without the known associations and stream it like in a pull
+                            oos.writeObject(ObjectStreamSubsetSink.STREAMED);
+                            Set<String> fingerprints = new HashSet<>();
+                            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+                            try {
+                                Repository.Op repository = this.repositoryDao.load();
+                                repository.subset(deselected, repository.getMaxOrder(), this.memEntityFactory, Fingerprints.unknown(knownFingerprints, fingerprints), new ObjectStreamSubsetSink(oos));
+                            } finally {
+                                this.transactionStrategy.end();
+                            }
+
+                            // send fingerprints of all selected associations, which the client knows after merging the subset
+                            oos.writeObject(fingerprints);
+                            oos.flush();
+
+                            break;
+                        }
                         case "PULL": { // if pull, send data
                             // retrieve deselection
                             //Collection<FeatureRevision> deselected = (Collection<FeatureRevision>) ois.readObject();
@@ -963,6 +1112,8 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                             break;
                         }
                         case "PUSH": { // if push, receive data
+                            this.checkWritable();
+
                             // retrieve repository
                             Repository.Op subsetRepository = (Repository.Op) ois.readObject();
 
@@ -974,6 +1125,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                             Repository.Op repository = this.repositoryDao.load();
                             repository.merge(copiedRepository);
                             this.repositoryDao.store(repository);
+                            this.writer.getCache().clear();
                             this.transactionStrategy.end();
                             break;
                         }
@@ -1028,6 +1180,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
     public synchronized void fetch(String remoteName) {
         this.checkInitialized();
+        this.checkWritable();
 
         try {
             this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
@@ -1047,28 +1200,43 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                         ObjectOutputStream oos = new ObjectOutputStream(sChannel.socket().getOutputStream());
                         ObjectInputStream ois = new ObjectInputStream(progressInputStream);
 
-                        oos.writeObject("FETCH");
-
-
-                        int size = (Integer) ois.readObject();
-                        progressInputStream.setMaxBytes(size);
-                        progressInputStream.resetProgress();
-                        progressInputStream.addListener(this);
-
-                        // retrieve features
-                        @SuppressWarnings("unchecked")
-                        Collection<Feature> features = (Collection<Feature>) ois.readObject();
-
-                        progressInputStream.removeListener(this);
-
+                        // only fetch the features if they changed since the last fetch
+                        oos.writeObject("FETCH_DELTA");
+                        oos.writeObject(Fingerprints.of(remote.getFeatures()));
+                        oos.flush();
+
+                        Collection<Feature> features = null;
+                        Object changed = readDeltaReply(ois);
+                        if (changed == null) {
+                            // the server does not know FETCH_DELTA, so fetch all features instead
+                            features = this.fetchAll(pair[0], Integer.parseInt(pair[1]));
+                        } else if ((Boolean) changed) {
+                            int size = (Integer) ois.readObject();
+                            progressInputStream.setMaxBytes(size);
+                            progressInputStream.resetProgress();
+                            progressInputStream.addListener(this);
+
+                            // retrieve features
+                            byte[] data = (byte[]) ois.readObject();
+
+                            progressInputStream.removeListener(this);
+
+                            try (ObjectInputStream dataOis = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                                @SuppressWarnings("unchecked")
+                                Collection<Feature> receivedFeatures = (Collection<Feature>) dataOis.readObject();
+                                features = receivedFeatures;
+                            }
+                        }
 
-                        // copy it using this entity factory
-                        Collection<Feature> copiedFeatures = EccoUtil.deepCopyFeatures(features, this.entityFactory);
+                        if (features != null) {
+                            // copy it using this entity factory
+                            Collection<Feature> copiedFeatures = EccoUtil.deepCopyFeatures(features, this.entityFactory);
 
-                        // store with remote
-                        remote.getFeatures().clear();
-                        remote.getFeatures().addAll(copiedFeatures);
-                        this.remoteDao.storeRemote(remote);
+                            // store with remote
+                            remote.getFeatures().clear();
+                            remote.getFeatures().addAll(copiedFeatures);
+                            this.remoteDao.storeRemote(remote);
+                        }
                     } else {
                         throw new EccoException("Error connecting to remote: " + remote.getName() + ": " + pair[0] + ":" + pair[1]);
                     }
@@ -1080,18 +1248,23 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                 // open parent repository
                 EccoService parentService = new EccoService();
                 parentService.setRepositoryDir(Paths.get(remote.getAddress()));
-                parentService.open(); // TODO: init read only! add read only mode for that (also useful for other read only services on a repository such as a read only web interface REST API service).
+                parentService.openReadOnly();
 
-                // copy features
-                Collection<Feature> copiedFeatures = EccoUtil.deepCopyFeatures(parentService.getRepository().getFeatures(), this.entityFactory);
+                // copy features only if they changed since the last fetch
+                Collection<? extends Feature> parentFeatures = parentService.getRepository().getFeatures();
+                Collection<Feature> copiedFeatures = null;
+                if (!Fingerprints.of(parentFeatures).equals(Fingerprints.of(remote.getFeatures())))
+                    copiedFeatures = EccoUtil.deepCopyFeatures(parentFeatures, this.entityFactory);
 
                 // close parent repository
                 parentService.close();
 
                 // merge into this repository
-                remote.getFeatures().clear();
-                remote.getFeatures().addAll(copiedFeatures);
-                this.remoteDao.storeRemote(remote);
+                if (copiedFeatures != null) {
+                    remote.getFeatures().clear();
+                    remote.getFeatures().addAll(copiedFeatures);
+                    this.remoteDao.storeRemote(remote);
+                }
             }
 
             this.transactionStrategy.end();
@@ -1113,7 +1286,8 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         if (this.repositoryDirectoryExists())
             throw new EccoException("A repository already exists at the given location: " + this.repositoryDir);
 
-        Repository.Op copiedRepository;
+        Repository.Op subsetRepository;
+        Set<String> fingerprints;
         try (SocketChannel sChannel = SocketChannel.open()) {
             sChannel.configureBlocking(true);
             if (sChannel.connect(new InetSocketAddress(hostname, port))) {
@@ -1122,23 +1296,32 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                 ObjectOutputStream oos = new ObjectOutputStream(sChannel.socket().getOutputStream());
                 ObjectInputStream ois = new ObjectInputStream(progressInputStream);
 
-                oos.writeObject("PULL");
+                // pull all associations (none are known yet) to also receive their fingerprints for later pulls
+                oos.writeObject("PULL_DELTA");
                 oos.writeObject(deselectedFeatureRevisionsString);
+                oos.writeObject(new HashSet<String>());
+                oos.flush();
 
 
-                int size = (Integer) ois.readObject();
-                progressInputStream.setMaxBytes(size);
-                progressInputStream.resetProgress();
-                progressInputStream.addListener(this);
-
-                // retrieve remote repository
-                Repository.Op subsetRepository = (Repository.Op) ois.readObject();
+                Object size = readDeltaReply(ois);
+                if (size == null) {
+                    // the server does not know PULL_DELTA, so pull the subset without fingerprints, which makes the next pull a full one as well
+                    subsetRepository = this.pullAll(hostname, port, deselectedFeatureRevisionsString);
+                    fingerprints = Collections.emptySet();
+                } else {
+                    progressInputStream.setMaxBytes((Integer) size);
+                    progressInputStream.resetProgress();
+                    progressInputStream.addListener(this);
 
-                progressInputStream.removeListener(this);
+                    // retrieve remote repository
+                    subsetRepository = ObjectStreamSubsetSink.readRepository(ois, (Integer) size);
 
+                    progressInputStream.removeListener(this);
 
-                // copy it using this entity factory
-                copiedRepository = subsetRepository.copy(this.entityFactory);
+                    @SuppressWarnings("unchecked")
+                    Set<String> remoteFingerprints = (Set<String>) ois.readObject();
+                    fingerprints = remoteFingerprints;
+                }
             } else {
                 throw new EccoException("Error connecting to remote: " + hostname + ":" + port);
             }
@@ -1148,7 +1331,9 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
         try {
             this.init();
-            this.open();
+
+            // copy it using this entity factory (which exists once the repository is initialized)
+            Repository.Op copiedRepository = subsetRepository.copy(this.entityFactory);
 
             this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
 
@@ -1156,9 +1341,11 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             Repository.Op repository = this.repositoryDao.load();
             repository.merge(copiedRepository);
             this.repositoryDao.store(repository);
+            this.writer.getCache().clear();
 
             // after fork add used remote as default origin remote
             Remote remote = this.entityFactory.createRemote(ORIGIN_REMOTE_NAME, hostname + ":" + port, Remote.Type.REMOTE);
+            remote.getSyncedFingerprints().addAll(fingerprints);
             this.remoteDao.storeRemote(remote);
 
             this.transactionStrategy.end();
@@ -1195,13 +1382,17 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         originService.setRepositoryDir(originRepositoryDir);
         // create subset repository
         Repository.Op subsetOriginRepository;
+        Set<String> fingerprints = new HashSet<>();
         try {
-            originService.open(); // TODO: init read only! add read only mode for that (also useful for other read only services on a repository such as a read only web interface REST API service).
+            originService.openReadOnly();
 
             originService.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
 
+            // all associations are unknown, but their fingerprints are recorded for later pulls
             Repository.Op originRepository = originService.repositoryDao.load();
-            subsetOriginRepository = originRepository.subset(originService.parseFeatureRevisionsString(deselectedFeatureRevisionsString), originRepository.getMaxOrder(), this.entityFactory);
+            RepositorySubsetSink sink = new RepositorySubsetSink();
+            originRepository.subset(originService.parseFeatureRevisionsString(deselectedFeatureRevisionsString), originRepository.getMaxOrder(), this.entityFactory, Fingerprints.unknown(Collections.emptySet(), fingerprints), sink);
+            subsetOriginRepository = sink.getRepository();
 
             originService.transactionStrategy.end();
         } catch (Exception e) {
@@ -1220,9 +1411,11 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             Repository.Op repository = this.repositoryDao.load();
             repository.merge(subsetOriginRepository);
             this.repositoryDao.store(repository);
+            this.writer.getCache().clear();
 
             // after fork add used remote as default origin remote
             Remote remote = this.entityFactory.createRemote(ORIGIN_REMOTE_NAME, originRepositoryDir.toString(), Remote.Type.LOCAL);
+            remote.getSyncedFingerprints().addAll(fingerprints);
             this.remoteDao.storeRemote(remote);
 
             this.transactionStrategy.end();
@@ -1246,6 +1439,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      */
     public synchronized void pull(String remoteName, String deselectedFeatureRevisionsString) {
         this.checkInitialized();
+        this.checkWritable();
 
         try {
             this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
@@ -1265,28 +1459,53 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                         ObjectOutputStream oos = new ObjectOutputStream(sChannel.socket().getOutputStream());
                         ObjectInputStream ois = new ObjectInputStream(progressInputStream);
 
-                        oos.writeObject("PULL");
+                        // only pull the associations that changed since the last pull. a subset is complete on its own if nothing was pulled before.
+                        boolean complete = remote.getSyncedFingerprints().isEmpty();
+                        oos.writeObject("PULL_DELTA");
                         oos.writeObject(deselectedFeatureRevisionsString);
-
-
-                        int size = (Integer) ois.readObject();
-                        progressInputStream.setMaxBytes(size);
-                        progressInputStream.resetProgress();
-                        progressInputStream.addListener(this);
-
-                        // retrieve remote repository
-                        Repository.Op subsetRepository = (Repository.Op) ois.readObject();
-
-                        progressInputStream.removeListener(this);
+                        oos.writeObject(new HashSet<>(remote.getSyncedFingerprints()));
+                        oos.flush();
+
+
+                        Repository.Op subsetRepository;
+                        Set<String> fingerprints;
+                        Object size = readDeltaReply(ois);
+                        if (size == null) {
+                            // the server does not know PULL_DELTA, so pull the whole subset without fingerprints, which makes the next pull a full one as well
+                            subsetRepository = this.pullAll(pair[0], Integer.parseInt(pair[1]), deselectedFeatureRevisionsString);
+                            fingerprints = Collections.emptySet();
+                            complete = true;
+                        } else {
+                            progressInputStream.setMaxBytes((Integer) size);
+                            progressInputStream.resetProgress();
+                            progressInputStream.addListener(this);
+
+                            // retrieve remote repository, which lacks the associations that were already pulled
+                            subsetRepository = ObjectStreamSubsetSink.readRepository(ois, (Integer) size, complete);
+
+                            progressInputStream.removeListener(this);
+
+                            @SuppressWarnings("unchecked")
+                            Set<String> remoteFingerprints = (Set<String>) ois.readObject();
+                            fingerprints = remoteFingerprints;
+                        }
 
 
                         // copy it using this entity factory
-                        Repository.Op copiedRepository = subsetRepository.copy(this.entityFactory);
+                        RepositorySubsetSink sink = new RepositorySubsetSink(complete);
+                        subsetRepository.subset(new ArrayList<>(), subsetRepository.getMaxOrder(), this.entityFactory, sink);
+                        Repository.Op copiedRepository = sink.getRepository();
 
                         // merge into this repository
                         Repository.Op repository = this.repositoryDao.load();
                         repository.merge(copiedRepository);
                         this.repositoryDao.store(repository);
+                        this.writer.getCache().clear();
+
+                        // remember the fingerprints of the remote associations for the next pull
+                        remote.getSyncedFingerprints().clear();
+                        remote.getSyncedFingerprints().addAll(fingerprints);
+                        this.remoteDao.storeRemote(remote);
                     } else {
                         throw new EccoException("Error connecting to remote: " + remote.getName() + ": " + pair[0] + ":" + pair[1]);
                     }
@@ -1298,16 +1517,19 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                 // open parent repository
                 EccoService parentService = new EccoService();
                 parentService.setRepositoryDir(Paths.get(remote.getAddress()));
-                parentService.open(); // TODO: init read only! add read only mode for that (also useful for other read only services on a repository such as a read only web interface REST API service).
+                parentService.openReadOnly();
 
-                // create subset repository
+                // create subset repository without the associations that were already pulled
                 Repository.Op subsetParentRepository;
+                Set<String> fingerprints = new HashSet<>();
                 try {
                     parentService.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
 
                     Repository.Op parentRepository = parentService.repositoryDao.load();
 //					Repository.Op parentRepository = (Repository.Op) parentService.getRepository();
-                    subsetParentRepository = parentRepository.subset(parentService.parseFeatureRevisionsString(deselectedFeatureRevisionsString), parentRepository.getMaxOrder(), this.entityFactory);
+                    RepositorySubsetSink sink = new RepositorySubsetSink(remote.getSyncedFingerprints().isEmpty());
+                    parentRepository.subset(parentService.parseFeatureRevisionsString(deselectedFeatureRevisionsString), parentRepository.getMaxOrder(), this.entityFactory, Fingerprints.unknown(remote.getSyncedFingerprints(), fingerprints), sink);
+                    subsetParentRepository = sink.getRepository();
 
                     parentService.transactionStrategy.end();
                 } catch (Exception e) {
@@ -1323,6 +1545,12 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                 Repository.Op repository = this.repositoryDao.load();
                 repository.merge(subsetParentRepository);
                 this.repositoryDao.store(repository);
+                this.writer.getCache().clear();
+
+                // remember the fingerprints of the parent associations for the next pull
+                remote.getSyncedFingerprints().clear();
+                remote.getSyncedFingerprints().addAll(fingerprints);
+                this.remoteDao.storeRemote(remote);
             }
 
             this.transactionStrategy.end();
@@ -1334,6 +1562,87 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
     }
 
 
+    /**
+     * Reads the first reply to a FETCH_DELTA or PULL_DELTA command. Servers that do not know these commands close the connection without replying.
+     *
+     * @param ois The object input stream of the connection.
+     * @return The first reply, or null if the connection was closed without a reply.
+     */
+    private static Object readDeltaReply(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        try {
+            return ois.readObject();
+        } catch (EOFException | SocketException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fetches all features from a remote using the FETCH command, which every server knows.
+     */
+    private Collection<Feature> fetchAll(String hostname, int port) throws IOException, ClassNotFoundException {
+        try (SocketChannel sChannel = SocketChannel.open()) {
+            sChannel.configureBlocking(true);
+            if (!sChannel.connect(new InetSocketAddress(hostname, port)))
+                throw new EccoException("Error connecting to remote: " + hostname + ":" + port);
+
+            ProgressInputStream progressInputStream = new ProgressInputStream(sChannel.socket().getInputStream());
+
+            ObjectOutputStream oos = new ObjectOutputStream(sChannel.socket().getOutputStream());
+            ObjectInputStream ois = new ObjectInputStream(progressInputStream);
+
+            oos.writeObject("FETCH");
+            oos.flush();
+
+
+            int size = (Integer) ois.readObject();
+            progressInputStream.setMaxBytes(size);
+            progressInputStream.resetProgress();
+            progressInputStream.addListener(this);
+
+            // retrieve features
+            @SuppressWarnings("unchecked")
+            Collection<Feature> features = (Collection<Feature>) ois.readObject();
+
+            progressInputStream.removeListener(this);
+
+            return features;
+        }
+    }
+
+    /**
+     * Pulls the whole subset of a remote using the PULL command, which every server knows.
+     */
+    private Repository.Op pullAll(String hostname, int port, String deselectedFeatureRevisionsString) throws IOException, ClassNotFoundException {
+        try (SocketChannel sChannel = SocketChannel.open()) {
+            sChannel.configureBlocking(true);
+            if (!sChannel.connect(new InetSocketAddress(hostname, port)))
+                throw new EccoException("Error connecting to remote: " + hostname + ":" + port);
+
+            ProgressInputStream progressInputStream = new ProgressInputStream(sChannel.socket().getInputStream());
+
+            ObjectOutputStream oos = new ObjectOutputStream(sChannel.socket().getOutputStream());
+            ObjectInputStream ois = new ObjectInputStream(progressInputStream);
+
+            oos.writeObject("PULL");
+            oos.writeObject(deselectedFeatureRevisionsString);
+            oos.flush();
+
+
+            int size = (Integer) ois.readObject();
+            progressInputStream.setMaxBytes(size);
+            progressInputStream.resetProgress();
+            progressInputStream.addListener(this);
+
+            // retrieve remote repository
+            Repository.Op subsetRepository = ObjectStreamSubsetSink.readRepository(ois, size);
+
+            progressInputStream.removeListener(this);
+
+            return subsetRepository;
+        }
+    }
+
+
     public synchronized void push(String remoteName) {
         this.push("", remoteName);
     }
@@ -1414,6 +1723,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                     Repository.Op parentRepository = parentService.repositoryDao.load();
                     parentRepository.merge(subsetRepository);
                     parentService.repositoryDao.store(parentRepository);
+                    parentService.writer.getCache().clear();
 
                     parentService.transactionStrategy.end();
                 } catch (Exception e) {
@@ -1467,6 +1777,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                 Repository.Op repository = this.repositoryDao.load();
                 repository.setMaxOrder(2);
                 this.repositoryDao.store(repository);
+                this.writer.getCache().clear();
 
                 this.transactionStrategy.end();
             } catch (Exception e) {
@@ -1544,6 +1855,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      */
     public synchronized Commit commit(String commitMessage, Configuration configuration) {
         this.checkInitialized();
+        this.checkWritable();
 
         checkNotNull(configuration);
 
@@ -1574,6 +1886,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             commit.setCommitMassage(commitMessage);
 
             this.repositoryDao.store(repository);
+            this.writer.getCache().clear();
 
             long endStrategyTime = System.currentTimeMillis();
             this.transactionStrategy.end();
@@ -1599,6 +1912,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      */
     public synchronized void addVariant(Configuration configuration, String name, EccoService service) {
         service.checkInitialized();
+        service.checkWritable();
 
         checkNotNull(configuration);
 
@@ -1622,6 +1936,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             //
 
             service.repositoryDao.store(repository);
+            service.writer.getCache().clear();
 
             service.transactionStrategy.end();
 
@@ -1641,6 +1956,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      */
     public synchronized void removeVariant(Configuration configuration, EccoService service) {
         service.checkInitialized();
+        service.checkWritable();
 
         checkNotNull(configuration);
 
@@ -1655,6 +1971,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             //
 
             service.repositoryDao.store(repository);
+            service.writer.getCache().clear();
 
             service.transactionStrategy.end();
 
@@ -1668,94 +1985,104 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
 
     public void updateFeatureRevision(FeatureRevision featureRevision, String featureRevisionUpdate, String id, EccoService service) {
-        service.checkInitialized();
-
-        try {
-            service.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
-
-            Repository.Op repository = service.repositoryDao.load();
+        service.updateFeatureRevision(featureRevision.getFeatureRevisionString(), featureRevisionUpdate, Collections.singleton(id));
+    }
 
-            Variant variant = service.getRepository().getVariant(id);
-            FeatureRevision[] featureRevisions = variant.getConfiguration().getFeatureRevisions();
-            FeatureRevision[] newFeatureRevisions = new FeatureRevision[featureRevisions.length];
-            int count = 0;
-            Collection<? extends Feature> features = this.getRepository().getFeatures();
-            FeatureRevision featureRevisionToUpdate = null;
-            for (Feature feature : features) {
-                if (feature.getName().equals(featureRevisionUpdate.substring(0, featureRevisionUpdate.indexOf(".")))) {
-                    for (FeatureRevision revision : feature.getRevisions()) {
-                        if (revision.getFeatureRevisionString().equals(featureRevisionUpdate)) {
-                            featureRevisionToUpdate = revision;
+    /**
+     * Replaces a feature revision with another revision of the same feature in the configurations of the given variants.
+     * The configurations of all variants are updated in one transaction (see {@link #updateConfigurations(String, Collection, Function)}).
+     *
+     * @param featureRevisionString       The feature revision to replace (e.g. "A.1").
+     * @param featureRevisionUpdateString The feature revision that replaces it (e.g. "A.2"). If it does not exist the configurations are not changed.
+     * @param variantIds                  The ids of the variants.
+     */
+    public synchronized void updateFeatureRevision(String featureRevisionString, String featureRevisionUpdateString, Collection<String> variantIds) {
+        checkNotNull(featureRevisionString);
+        checkNotNull(featureRevisionUpdateString);
+
+        this.updateConfigurations("UPDATE FEATURE REVISION", variantIds, repository -> {
+            FeatureRevision featureRevisionUpdate = null;
+            if (featureRevisionUpdateString.contains(".")) {
+                String featureName = featureRevisionUpdateString.substring(0, featureRevisionUpdateString.indexOf("."));
+                for (Feature feature : repository.getFeatures()) {
+                    if (feature.getName().equals(featureName)) {
+                        for (FeatureRevision revision : feature.getRevisions()) {
+                            if (revision.getFeatureRevisionString().equals(featureRevisionUpdateString))
+                                featureRevisionUpdate = revision;
                         }
                     }
                 }
             }
-            StringBuilder sb = new StringBuilder();
-            for (FeatureRevision fr : featureRevisions) {
-                if (fr.equals(featureRevision) && featureRevisionToUpdate != null) {
-                    newFeatureRevisions[count] = featureRevisionToUpdate;
-                    sb.append(",").append(featureRevisionUpdate);
-                } else {
-                    newFeatureRevisions[count] = fr;
-                    sb.append(",").append(fr);
-                }
-                count++;
-            }
-            String config = sb.length() > 0 ? sb.substring(1) : ""; // remove first ','
-            variant.getConfiguration().setFeatureRevisions(newFeatureRevisions);
-            Configuration newConfiguration = service.parseConfigurationString(config);
-            variant.setConfiguration(newConfiguration);
-
-            service.repositoryDao.store(repository);
+            if (featureRevisionUpdate == null)
+                return null;
 
-            service.transactionStrategy.end();
+            FeatureRevision replacement = featureRevisionUpdate;
+            return featureRevisions -> Arrays.stream(featureRevisions).map(fr -> fr.getFeatureRevisionString().equals(featureRevisionString) ? replacement : fr).distinct().toArray(FeatureRevision[]::new);
+        });
+    }
 
 
-        } catch (Exception e) {
-            service.transactionStrategy.rollback();
+    public void removeFeatureRevision(FeatureRevision featureRevision, String id, EccoService service) {
+        service.removeFeatureRevision(featureRevision.getFeatureRevisionString(), Collections.singleton(id));
+    }
 
-            throw new EccoException("Error during adding a variant.", e);
-        }
+    /**
+     * Removes a feature revision from the configurations of the given variants.
+     * The configurations of all variants are updated in one transaction (see {@link #updateConfigurations(String, Collection, Function)}).
+     *
+     * @param featureRevisionString The feature revision to remove (e.g. "A.1").
+     * @param variantIds            The ids of the variants.
+     */
+    public synchronized void removeFeatureRevision(String featureRevisionString, Collection<String> variantIds) {
+        checkNotNull(featureRevisionString);
 
+        this.updateConfigurations("REMOVE FEATURE REVISION", variantIds, repository ->
+                featureRevisions -> Arrays.stream(featureRevisions).filter(fr -> !fr.getFeatureRevisionString().equals(featureRevisionString)).toArray(FeatureRevision[]::new));
     }
 
+    /**
+     * Updates the configurations of the given variants in one transaction. The changed configurations are replaced
+     * and the repository is stored once for all variants. Progress is reported as operation progress events.
+     *
+     * @param operationString The name of the operation for progress events.
+     * @param variantIds      The ids of the variants. Ids of variants that do not exist are ignored.
+     * @param update          Returns the function that computes the new feature revisions of a configuration from the old ones, given the repository, or null if no configuration changes.
+     */
+    private void updateConfigurations(String operationString, Collection<String> variantIds, Function<Repository.Op, Function<FeatureRevision[], FeatureRevision[]>> update) {
+        this.checkInitialized();
+        this.checkWritable();
 
-    public void removeFeatureRevision(FeatureRevision featureRevision, String id, EccoService service) {
-        service.checkInitialized();
+        checkNotNull(variantIds);
 
         try {
-            service.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
+            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
 
-            Repository.Op repository = service.repositoryDao.load();
+            Repository.Op repository = this.repositoryDao.load();
 
-            Variant variant = service.getRepository().getVariant(id);
-            FeatureRevision[] featureRevisions = variant.getConfiguration().getFeatureRevisions();
-            FeatureRevision[] newFeatureRevisions = new FeatureRevision[featureRevisions.length];
-            int count = 0;
-            StringBuilder sb = new StringBuilder();
-            for (FeatureRevision fr : featureRevisions) {
-                if (!fr.equals(featureRevision)) {
-                    newFeatureRevisions[count] = fr;
-                    sb.append(",").append(fr);
+            Function<FeatureRevision[], FeatureRevision[]> configurationUpdate = update.apply(repository);
+            if (configurationUpdate != null) {
+                List<Variant> variants = variantIds.stream().map(repository::getVariant).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+
+                // replace changed configurations
+                for (int i = 0; i < variants.size(); i++) {
+                    Variant variant = variants.get(i);
+                    FeatureRevision[] newFeatureRevisions = configurationUpdate.apply(variant.getConfiguration().getFeatureRevisions());
+                    if (!Arrays.equals(variant.getConfiguration().getFeatureRevisions(), newFeatureRevisions))
+                        variant.setConfiguration(this.entityFactory.createConfiguration(newFeatureRevisions));
+                    this.fireOperationProgressEvent(operationString, (double) (i + 1) / variants.size());
                 }
-                count++;
-            }
-            String config = sb.length() > 0 ? sb.substring(1) : ""; // remove first ','
-            variant.getConfiguration().setFeatureRevisions(newFeatureRevisions);
-            Configuration newConfiguration = service.parseConfigurationString(config);
-            variant.setConfiguration(newConfiguration);
-
-            service.repositoryDao.store(repository);
-
-            service.transactionStrategy.end();
 
+                // write all changes at once
+                this.repositoryDao.store(repository);
+                this.writer.getCache().clear();
+            }
 
+            this.transactionStrategy.end();
         } catch (Exception e) {
-            service.transactionStrategy.rollback();
+            this.transactionStrategy.rollback();
 
-            throw new EccoException("Error during adding a variant.", e);
+            throw new EccoException("Error during updating variant configurations.", e);
         }
-
     }
 
     /**
@@ -1766,6 +2093,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      */
     public synchronized void updateVariant(Configuration configuration, String name, String id, EccoService service) {
         service.checkInitialized();
+        service.checkWritable();
 
         checkNotNull(configuration);
 
@@ -1780,6 +2108,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             //
 
             service.repositoryDao.store(repository);
+            service.writer.getCache().clear();
 
             service.transactionStrategy.end();
 
@@ -1802,15 +2131,18 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
     /**
      * Composes checkout with given configuration.
      * @param configuration Configuration to be composed.
+     * @param lazy Whether the artifacts are composed lazily (see {@link Repository.Op#compose(Configuration, boolean)}).
      * @return Checkout with composed artifacts.
      */
-    private synchronized Checkout compose(Configuration configuration) {
-        this.checkInitialized();
+    private Checkout compose(Configuration configuration, boolean lazy) {
+        return this.query(() -> {
+            this.checkInitialized();
 
-        checkNotNull(configuration);
+            checkNotNull(configuration);
 
-        Repository.Op repository = this.repositoryDao.load();
-        return repository.compose(configuration);
+            Repository.Op repository = this.repositoryDao.load();
+            return repository.compose(configuration, lazy);
+        });
     }
 
     /**
@@ -1828,7 +2160,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      * @param configurationString The configuration string for that associations shall be retrieved.
      * @return Set of associations.
      */
-    public synchronized Set<Association> getAssociations(String configurationString) {
+    public Set<Association> getAssociations(String configurationString) {
         return this.getAssociations(this.parseConfigurationString(configurationString));
     }
 
@@ -1837,9 +2169,34 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      * @param configuration The configuration for that associations shall be retrieved.
      * @return Set of associations.
      */
-    public synchronized Set<Association> getAssociations(Configuration configuration) {
-        Checkout checkout = compose(configuration);
-        return checkout.getSelectedAssociations();
+    public Set<Association> getAssociations(Configuration configuration) {
+        return new HashSet<>(this.preview(configuration).getSelectedAssociations());
+    }
+
+    /**
+     * Previews the checkout of a configuration without composing its artifacts (see {@link Repository.Op#preview(Configuration)}).
+     * @param configurationString The configuration string representing the configuration that shall be previewed.
+     * @return The preview with the selected associations and the missing and surplus modules.
+     */
+    public CheckoutPreview preview(String configurationString) {
+        return this.preview(this.parseConfigurationString(configurationString));
+    }
+
+    /**
+     * Previews the checkout of a configuration without composing its artifacts (see {@link Repository.Op#preview(Configuration)}).
+     * Previews are cached by the repository until it changes.
+     * @param configuration The configuration that shall be previewed.
+     * @return The preview with the selected associations and the missing and surplus modules.
+     */
+    public CheckoutPreview preview(Configuration configuration) {
+        return this.query(() -> {
+            this.checkInitialized();
+
+            checkNotNull(configuration);
+
+            Repository.Op repository = this.repositoryDao.load();
+            return repository.preview(configuration);
+        });
     }
 
     public synchronized Set<Node> compareArtifacts(String configurationString) {
@@ -1847,7 +2204,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
     }
 
     public synchronized Set<Node> compareArtifacts(Configuration configuration) {
-        Checkout checkout = compose(configuration);
+        Checkout checkout = compose(configuration, true);
         return compareArtifacts(checkout);
     }
 
@@ -1867,7 +2224,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      * @return The checkout object.
      */
     public synchronized Checkout checkout(Configuration configuration) {
-        Checkout checkout = compose(configuration);
+        Checkout checkout = compose(configuration, !this.parallelComposition);
 
         Set<Node> nodes = compareArtifacts(checkout);
         this.writer.write(this.baseDir, nodes);
@@ -1945,58 +2302,73 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      * @param paths The collection of paths (files or directories, relative to the base directory) to map to the repository.
      * @return The root node of the mapped artifact tree.
      */
-    public synchronized RootNode map(Collection<Path> paths) {
+    public RootNode map(Collection<Path> paths) {
         checkNotNull(paths);
         checkArgument(!paths.isEmpty());
 
-        Set<Node.Op> nodes = this.reader.readSpecificFiles(this.baseDir, paths.toArray(new Path[0]));
+        Set<Node.Op> nodes = this.readSpecificFiles(() -> this.reader.readSpecificFiles(this.baseDir, paths.toArray(new Path[0])));
 
-        RootNode.Op rootNode = this.entityFactory.createRootNode();
-        for (Node.Op node : nodes) {
-            rootNode.addChild(node);
-        }
+        return this.query(() -> {
+            RootNode.Op rootNode = this.entityFactory.createRootNode();
+            for (Node.Op node : nodes) {
+                rootNode.addChild(node);
+            }
 
-        try {
-            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+            try {
+                this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
 
-            Repository.Op repository = this.repositoryDao.load();
+                Repository.Op repository = this.repositoryDao.load();
 
-            repository.map(rootNode);
+                repository.map(rootNode);
 
-            this.transactionStrategy.end();
+                this.transactionStrategy.end();
 
-            return rootNode;
-        } catch (Exception e) {
-            this.transactionStrategy.rollback();
+                return rootNode;
+            } catch (Exception e) {
+                this.transactionStrategy.rollback();
 
-            throw new EccoException("Error during map.", e);
-        }
+                throw new EccoException("Error during map.", e);
+            }
+        });
     }
-    public synchronized RootNode map(Path path, InputStream content) {
+    public RootNode map(Path path, InputStream content) {
         checkNotNull(path);
 
-        Set<Node.Op> nodes = this.reader.readSpecificFiles(this.baseDir, path, content);
+        Set<Node.Op> nodes = this.readSpecificFiles(() -> this.reader.readSpecificFiles(this.baseDir, path, content));
 
-        RootNode.Op rootNode = this.entityFactory.createRootNode();
-        for (Node.Op node : nodes) {
-            rootNode.addChild(node);
-        }
+        return this.query(() -> {
+            RootNode.Op rootNode = this.entityFactory.createRootNode();
+            for (Node.Op node : nodes) {
+                rootNode.addChild(node);
+            }
 
-        try {
-            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+            try {
+                this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
 
-            Repository.Op repository = this.repositoryDao.load();
+                Repository.Op repository = this.repositoryDao.load();
 
-            repository.map(rootNode);
+                repository.map(rootNode);
 
-            this.transactionStrategy.end();
+                this.transactionStrategy.end();
 
-            return rootNode;
-        } catch (Exception e) {
-            this.transactionStrategy.rollback();
+                return rootNode;
+            } catch (Exception e) {
+                this.transactionStrategy.rollback();
 
-            throw new EccoException("Error during map.", e);
-        }
+                throw new EccoException("Error during map.", e);
+            }
+        });
+    }
+
+    /**
+     * Reads files for mapping them. The artifact readers are not thread safe, so only one query reads files at a time.
+     */
+    private Set<Node.Op> readSpecificFiles(Supplier<Set<Node.Op>> read) {
+        return this.query(() -> {
+            synchronized (this.reader) {
+                return read.get();
+            }
+        });
     }
 
 
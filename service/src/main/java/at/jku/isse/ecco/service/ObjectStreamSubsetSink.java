@@ -0,0 +1,114 @@
+package at.jku.isse.ecco.service;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.repository.RepositorySubsetSink;
+import at.jku.isse.ecco.repository.SubsetSink;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes a subset to an object output stream as it is computed, i.e. the subset repository without associations followed by one association after the other and null at the end.
+ * The stream is not reset in between, so artifacts shared by associations are written only once. The subset is read again with {@link #read(ObjectInputStream, SubsetSink)}.
+ * <p>
+ * Streaming only removes the byte array the serialized subset is otherwise buffered in. The handle table of the object stream references every object that was written until the end of the subset,
+ * so the sender still holds the whole copied subset and the receiver the whole received subset. It is used for PULL_DELTA, while PULL still sends the subset buffered as a whole.
+ */
+public class ObjectStreamSubsetSink implements SubsetSink {
+
+	/**
+	 * Sent instead of the size of a serialized repository to announce that the repository follows in pieces.
+	 */
+	public static final int STREAMED = -1;
+
+	private final ObjectOutputStream oos;
+
+	public ObjectStreamSubsetSink(ObjectOutputStream oos) {
+		checkNotNull(oos);
+
+		this.oos = oos;
+	}
+
+	@Override
+	public void begin(Repository.Op repository) {
+		this.write(repository);
+	}
+
+	@Override
+	public void accept(Association.Op association) {
+		this.write(association);
+	}
+
+	@Override
+	public void end() {
+		this.write(null);
+		try {
+			this.oos.flush();
+		} catch (IOException e) {
+			throw new EccoException("Error writing subset.", e);
+		}
+	}
+
+	private void write(Object object) {
+		try {
+			this.oos.writeObject(object);
+		} catch (IOException e) {
+			throw new EccoException("Error writing subset.", e);
+		}
+	}
+
+
+	/**
+	 * Reads a subset that was written with an {@link ObjectStreamSubsetSink} and passes it on to the given sink.
+	 *
+	 * @param ois  The object input stream.
+	 * @param sink The sink receiving the subset.
+	 */
+	public static void read(ObjectInputStream ois, SubsetSink sink) throws IOException, ClassNotFoundException {
+		checkNotNull(ois);
+		checkNotNull(sink);
+
+		sink.begin((Repository.Op) ois.readObject());
+		Association.Op association;
+		while ((association = (Association.Op) ois.readObject()) != null) {
+			sink.accept(association);
+		}
+		sink.end();
+	}
+
+	/**
+	 * Reads a repository that was either sent as a whole after its size or in pieces after {@link #STREAMED}.
+	 *
+	 * @param ois  The object input stream.
+	 * @param size The size that was read from the stream before the repository.
+	 * @return The repository.
+	 */
+	public static Repository.Op readRepository(ObjectInputStream ois, int size) throws IOException, ClassNotFoundException {
+		return readRepository(ois, size, true);
+	}
+
+	/**
+	 * Reads a repository like {@link #readRepository(ObjectInputStream, int)}.
+	 *
+	 * @param ois      The object input stream.
+	 * @param size     The size that was read from the stream before the repository.
+	 * @param complete Whether the repository is a complete subset (see {@link RepositorySubsetSink#RepositorySubsetSink(boolean)}).
+	 * @return The repository.
+	 */
+	public static Repository.Op readRepository(ObjectInputStream ois, int size, boolean complete) throws IOException, ClassNotFoundException {
+		checkNotNull(ois);
+
+		if (size != STREAMED)
+			return (Repository.Op) ois.readObject();
+
+		RepositorySubsetSink sink = new RepositorySubsetSink(complete);
+		read(ois, sink);
+		return sink.getRepository();
+	}
+
+}
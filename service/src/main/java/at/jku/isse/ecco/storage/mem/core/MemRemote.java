@@ -5,6 +5,8 @@ import at.jku.isse.ecco.feature.Feature;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 public class MemRemote implements Remote {
 
@@ -17,6 +19,8 @@ public class MemRemote implements Remote {
 
 	private Collection<Feature> features;
 
+	private Set<String> syncedFingerprints;
+
 
 	public MemRemote() {
 		this("", "", Type.LOCAL);
@@ -27,6 +31,7 @@ public class MemRemote implements Remote {
 		this.address = address;
 		this.type = type;
 		this.features = new ArrayList<>();
+		this.syncedFingerprints = new HashSet<>();
 	}
 
 
@@ -65,6 +70,13 @@ public class MemRemote implements Remote {
 		return this.features;
 	}
 
+	@Override
+	public Set<String> getSyncedFingerprints() {
+		if (this.syncedFingerprints == null) // remotes stored before fingerprints were recorded
+			this.syncedFingerprints = new HashSet<>();
+		return this.syncedFingerprints;
+	}
+
 
 	@Override
 	public String toString() {
@@ -7,6 +7,10 @@ import at.jku.isse.ecco.dao.EntityFactory;
 import at.jku.isse.ecco.feature.Configuration;
 import at.jku.isse.ecco.feature.Feature;
 import at.jku.isse.ecco.module.Module;
+import at.jku.isse.ecco.repository.AssociationDependencies;
+import at.jku.isse.ecco.repository.AssociationPathIndex;
+import at.jku.isse.ecco.repository.AssociationStatistics;
+import at.jku.isse.ecco.repository.CheckoutPreviewIndex;
 import at.jku.isse.ecco.repository.Repository;
 import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
 import at.jku.isse.ecco.storage.mem.feature.MemFeature;
@@ -28,6 +32,10 @@ public final class MemRepository implements Repository, Repository.Op {
 	private List<Map<MemModule, MemModule>> modules;
 	private Collection<Commit> commits;
 	private int maxOrder;
+	private transient AssociationPathIndex associationPathIndex;
+	private transient AssociationDependencies associationDependencies;
+	private transient AssociationStatistics.ArtifactCounts associationArtifactCounts;
+	private transient CheckoutPreviewIndex checkoutPreviewIndex;
 
 	public MemRepository() {
 		this.features = Maps.mutable.empty();
@@ -109,6 +117,7 @@ public final class MemRepository implements Repository, Repository.Op {
 			commit.setId(UUID.randomUUID().toString());
 		} while(getCommits().contains(commit));		//Just to make sure no Id is given twice
 		commits.add(commit);
+		this.checkoutPreviewIndex = null;
 	}
 
 	@Override
@@ -137,6 +146,7 @@ public final class MemRepository implements Repository, Repository.Op {
 			return null;
 		MemFeature feature = new MemFeature(id, name);
 		this.features.put(feature.getId(), feature);
+		this.checkoutPreviewIndex = null;
 		return feature;
 	}
 
@@ -144,6 +154,8 @@ public final class MemRepository implements Repository, Repository.Op {
 	@Override
 	public void addAssociation(Association.Op association) {
 		this.associations.add(association);
+		this.associationPathIndex = null;
+		this.checkoutPreviewIndex = null;
 	}
 
 	@Override
@@ -167,6 +179,38 @@ public final class MemRepository implements Repository, Repository.Op {
 	@Override
 	public void removeAssociation(Association.Op association) {
 		this.associations.remove(association);
+		this.associationPathIndex = null;
+		this.checkoutPreviewIndex = null;
+		this.getAssociationDependencies().invalidate(Collections.singleton(association));
+		this.getAssociationArtifactCounts().invalidate(Collections.singleton(association));
+	}
+
+	@Override
+	public synchronized AssociationPathIndex getAssociationPathIndex() {
+		if (this.associationPathIndex == null)
+			this.associationPathIndex = new AssociationPathIndex(this.associations);
+		return this.associationPathIndex;
+	}
+
+	@Override
+	public synchronized AssociationDependencies getAssociationDependencies() {
+		if (this.associationDependencies == null)
+			this.associationDependencies = new AssociationDependencies();
+		return this.associationDependencies;
+	}
+
+	@Override
+	public synchronized AssociationStatistics.ArtifactCounts getAssociationArtifactCounts() {
+		if (this.associationArtifactCounts == null)
+			this.associationArtifactCounts = new AssociationStatistics.ArtifactCounts();
+		return this.associationArtifactCounts;
+	}
+
+	@Override
+	public synchronized CheckoutPreviewIndex getCheckoutPreviewIndex() {
+		if (this.checkoutPreviewIndex == null)
+			this.checkoutPreviewIndex = new CheckoutPreviewIndex(this);
+		return this.checkoutPreviewIndex;
 	}
 
 
@@ -178,6 +222,7 @@ public final class MemRepository implements Repository, Repository.Op {
 	@Override
 	public void setMaxOrder(int maxOrder) {
 		this.maxOrder = maxOrder;
+		this.checkoutPreviewIndex = null;
 		for (int order = this.modules.size(); order <= this.maxOrder; order++) {
 			//this.modules.add(new HashMap<>());
 			this.modules.add(Maps.mutable.empty());
@@ -210,6 +255,7 @@ public final class MemRepository implements Repository, Repository.Op {
 		if (this.modules.get(module.getOrder()).containsKey(module))
 			return null;
 		this.modules.get(module.getOrder()).put(module, module);
+		this.checkoutPreviewIndex = null;
 		return module;
 	}
 }
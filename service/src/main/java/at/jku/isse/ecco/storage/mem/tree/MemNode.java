@@ -4,8 +4,10 @@ import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.core.Association;
 import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.util.Trees;
 import org.eclipse.collections.impl.factory.Maps;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +68,9 @@ public class MemNode implements Node, Node.Op {
 
 	@Override
 	public void setArtifact(Artifact.Op<?> artifact) {
+		// an equal artifact (e.g. a replacing artifact) does not change the structural hash
+		if (this.artifact == null || artifact == null || this.artifact.hashCode() != artifact.hashCode())
+			this.invalidateStructuralHash();
 		this.artifact = artifact;
 	}
 
@@ -98,6 +103,7 @@ public class MemNode implements Node, Node.Op {
 			throw new EccoException("An equivalent child is already contained. If multiple equivalent children are allowed use an ordered node.");
 
 		this.children.add(child);
+		this.invalidateStructuralHash();
 		child.setParent(this);
 	}
 
@@ -111,8 +117,10 @@ public class MemNode implements Node, Node.Op {
 	public void removeChild(Op child) {
 		checkNotNull(child);
 
-		if (this.children.remove(child))
+		if (this.children.remove(child)) {
+			this.invalidateStructuralHash();
 			child.setParent(null);
+		}
 		else
 			throw new EccoException("Attempted to remove child that does not exist.");
 	}
@@ -120,7 +128,84 @@ public class MemNode implements Node, Node.Op {
 
 	@Override
 	public List<Op> getChildren() {
-		return this.children;
+		if (this.childrenView == null)
+			this.childrenView = new ChildrenView();
+		return this.childrenView;
+	}
+
+
+	// structural hash
+
+	private transient List<Op> childrenView = null;
+
+	private transient boolean structuralHashValid = false;
+
+	private transient int structuralHash;
+
+	@Override
+	public int getStructuralHash() {
+		if (!this.structuralHashValid) {
+			this.structuralHash = Trees.computeStructuralHash(this);
+			this.structuralHashValid = true;
+		}
+		return this.structuralHash;
+	}
+
+	/**
+	 * Invalidates the cached structural hash of this node and its ancestors, whose hashes include it.
+	 * If the hash of this node is not valid, the hashes of its ancestors are not valid either, as they were invalidated together or not computed since.
+	 */
+	private void invalidateStructuralHash() {
+		MemNode node = this;
+		while (node != null && node.structuralHashValid) {
+			node.structuralHashValid = false;
+			node = node.parent instanceof MemNode ? (MemNode) node.parent : null;
+		}
+	}
+
+	/**
+	 * The children as returned by {@link #getChildren()}, which invalidates the structural hash when they are changed (also via iterators, which remove elements with {@link #remove(int)}).
+	 */
+	private class ChildrenView extends AbstractList<Op> {
+		@Override
+		public Op get(int index) {
+			return MemNode.this.children.get(index);
+		}
+
+		@Override
+		public int size() {
+			return MemNode.this.children.size();
+		}
+
+		@Override
+		public int indexOf(Object o) {
+			return MemNode.this.children.indexOf(o);
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return MemNode.this.children.contains(o);
+		}
+
+		@Override
+		public Op set(int index, Op element) {
+			MemNode.this.invalidateStructuralHash();
+			return MemNode.this.children.set(index, element);
+		}
+
+		@Override
+		public void add(int index, Op element) {
+			MemNode.this.invalidateStructuralHash();
+			this.modCount++;
+			MemNode.this.children.add(index, element);
+		}
+
+		@Override
+		public Op remove(int index) {
+			MemNode.this.invalidateStructuralHash();
+			this.modCount++;
+			return MemNode.this.children.remove(index);
+		}
 	}
 
 
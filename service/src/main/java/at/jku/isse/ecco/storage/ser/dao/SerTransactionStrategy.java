@@ -8,6 +8,7 @@ import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 
 import java.io.*;
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
@@ -16,6 +17,8 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -33,6 +36,9 @@ public class SerTransactionStrategy implements TransactionStrategy {
 	private static final String WRITELOCK_FILENAME = "write";
 	private static final String DB_FILE_SUFFIX = ".ser.zip";
 
+	// databases loaded by connections that are opened read only, by db file (which contains the id and therefore never changes)
+	private static final Map<Path, WeakReference<Database>> SHARED_DATABASES = new HashMap<>();
+
 	// repository directory
 	private final Path repositoryDir;
 	// file containing the current database id
@@ -54,6 +60,8 @@ public class SerTransactionStrategy implements TransactionStrategy {
 	private FileChannel writeFileChannel;
 	// write file lock
 	private FileLock writeFileLock;
+	// whether the connection was opened read only
+	private boolean readOnly;
 
 
 	@Inject
@@ -80,15 +88,37 @@ public class SerTransactionStrategy implements TransactionStrategy {
 		this.reset();
 	}
 
+	/**
+	 * Opens the connection read only. The current database is loaded once and shared with all other read only connections to the same database file.
+	 * Transactions neither take locks nor load the database again, so the connection keeps reading the state of the repository at the time it was opened.
+	 * The shared database must therefore not be changed, and read write transactions are rejected.
+	 */
+	@Override
+	public synchronized void openReadOnly() {
+		this.reset();
+		try {
+			this.loadSharedDatabase();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new EccoException("Error opening connection read only.", e);
+		}
+		this.readOnly = true;
+	}
+
+	public boolean isReadOnly() {
+		return this.readOnly;
+	}
+
 	@Override
 	public synchronized void close() {
-		if (this.transaction != null || this.transactionCounter != 0)
+		if (!this.readOnly && (this.transaction != null || this.transactionCounter != 0))
 			throw new EccoException("Error closing connection: Not all transactions have been ended.");
 		this.reset();
 	}
 
 	@Override
 	public synchronized void rollback() {
+		if (this.readOnly) // nothing has been changed
+			return;
 		if (this.transaction == null && this.transactionCounter == 0)
 			throw new EccoException("Error rolling back transaction: No transaction active.");
 		this.reset();
@@ -97,6 +127,11 @@ public class SerTransactionStrategy implements TransactionStrategy {
 
 	@Override
 	public synchronized void begin(TRANSACTION transaction) {
+		if (this.readOnly) {
+			if (transaction == TRANSACTION.READ_WRITE)
+				throw new EccoException("Cannot begin a read write transaction on a connection that was opened read only.");
+			return;
+		}
 		try {
 			if (transaction == TRANSACTION.READ_ONLY)
 				this.beginReadOnly();
@@ -114,6 +149,8 @@ public class SerTransactionStrategy implements TransactionStrategy {
 	 */
 	@Override
 	public synchronized void end() {
+		if (this.readOnly)
+			return;
 		if (this.transaction == null || this.transactionCounter <= 0)
 			throw new EccoException("There is no active transaction.");
 
@@ -220,6 +257,7 @@ public class SerTransactionStrategy implements TransactionStrategy {
 		this.transactionCounter = 0;
 		this.writeFileChannel = null;
 		this.writeFileLock = null;
+		this.readOnly = false;
 	}
 
 	private String readCurrentId() throws IOException {
@@ -244,22 +282,7 @@ public class SerTransactionStrategy implements TransactionStrategy {
 			Path dbFile = this.repositoryDir.resolve(this.id + DB_FILE_SUFFIX);
 			if (Files.exists(dbFile)) {
 				this.dbFile = dbFile;
-				try (FileChannel dbFileChannel = FileChannel.open(this.dbFile, StandardOpenOption.READ); FileLock dbFileLock = dbFileChannel.lock(0, Long.MAX_VALUE, true)) {
-					if (!dbFileLock.isValid())
-						throw new EccoException("Could not obtain shared lock on DB file.");
-
-					//this.database = (Database) this.deserialize(this.dbFile);
-					InputStream is = Channels.newInputStream(dbFileChannel);
-					ZipInputStream zis = new ZipInputStream(is);
-					ZipEntry e = null;
-					while ((e = zis.getNextEntry()) != null) {
-						if (e.getName().equals("ecco.ser")) {
-							ObjectInputStream ois = new ObjectInputStream(zis);
-							this.database = (Database) ois.readObject();
-							break;
-						}
-					}
-				}
+				this.database = this.readDatabase(dbFile);
 
 				// delete db file if we can get exclusive lock and it does not match id file
 				if (DELETE_OLD_DB_FILES) {
@@ -282,6 +305,50 @@ public class SerTransactionStrategy implements TransactionStrategy {
 	}
 
 
+	private void loadSharedDatabase() throws IOException, ClassNotFoundException {
+		if (!Files.exists(this.idFile)) {
+			this.database = new Database();
+			return;
+		}
+
+		this.id = this.readCurrentId();
+		this.dbFile = this.repositoryDir.resolve(this.id + DB_FILE_SUFFIX).toAbsolutePath().normalize();
+		if (!Files.exists(this.dbFile))
+			throw new EccoException("DB file does not exist: " + this.dbFile);
+
+		synchronized (SHARED_DATABASES) {
+			SHARED_DATABASES.values().removeIf(reference -> reference.get() == null);
+
+			WeakReference<Database> reference = SHARED_DATABASES.get(this.dbFile);
+			Database database = reference == null ? null : reference.get();
+			if (database == null) {
+				database = this.readDatabase(this.dbFile);
+				SHARED_DATABASES.put(this.dbFile, new WeakReference<>(database));
+			}
+			this.database = database;
+		}
+	}
+
+	private Database readDatabase(Path dbFile) throws IOException, ClassNotFoundException {
+		try (FileChannel dbFileChannel = FileChannel.open(dbFile, StandardOpenOption.READ); FileLock dbFileLock = dbFileChannel.lock(0, Long.MAX_VALUE, true)) {
+			if (!dbFileLock.isValid())
+				throw new EccoException("Could not obtain shared lock on DB file.");
+
+			//this.database = (Database) this.deserialize(this.dbFile);
+			InputStream is = Channels.newInputStream(dbFileChannel);
+			ZipInputStream zis = new ZipInputStream(is);
+			ZipEntry e = null;
+			while ((e = zis.getNextEntry()) != null) {
+				if (e.getName().equals("ecco.ser")) {
+					ObjectInputStream ois = new ObjectInputStream(zis);
+					return (Database) ois.readObject();
+				}
+			}
+		}
+		throw new EccoException("DB file does not contain a database: " + dbFile);
+	}
+
+
 //	private Object deserialize(Path file) throws IOException, ClassNotFoundException {
 //		try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(file))) {
 //			ZipEntry e = null;
@@ -8,7 +8,9 @@ import org.neo4j.ogm.annotation.Relationship;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @NodeEntity
 public class NeoRemote extends NeoEntity implements Remote  {
@@ -26,6 +28,9 @@ public class NeoRemote extends NeoEntity implements Remote  {
 	@Relationship("hasFeatureRm")
 	private List<Feature> features;
 
+	@Property("syncedFingerprints")
+	private Set<String> syncedFingerprints;
+
 	public NeoRemote() {
 		this("", "", Type.LOCAL);
 	}
@@ -35,6 +40,7 @@ public class NeoRemote extends NeoEntity implements Remote  {
 		this.address = address;
 		this.type = type;
 		this.features = new ArrayList<>();
+		this.syncedFingerprints = new HashSet<>();
 	}
 
 
@@ -73,6 +79,13 @@ public class NeoRemote extends NeoEntity implements Remote  {
 		return this.features;
 	}
 
+	@Override
+	public Set<String> getSyncedFingerprints() {
+		if (this.syncedFingerprints == null)
+			this.syncedFingerprints = new HashSet<>();
+		return this.syncedFingerprints;
+	}
+
 
 	@Override
 	public String toString() {
@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Configuration;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
@@ -31,9 +32,12 @@ public class AssociationController {
 
     @GET
     @Produces({MediaType.APPLICATION_JSON})
-    public AssociationModel[] getAssociations() {
+    public AssociationModel[] getAssociations(@QueryParam("feature") String featureName) {
         ContextResolver<AbstractRepository> featureRepositoryContextResolver = providers.getContextResolver(AbstractRepository.class, MediaType.WILDCARD_TYPE);
         AssociationRepository associationRepository = (AssociationRepository) featureRepositoryContextResolver.getContext(AssociationRepository.class);
+        if (featureName != null) {
+            return associationRepository.getAssociationsOfFeature(featureName);
+        }
         return associationRepository.getAssociations();
     }
 
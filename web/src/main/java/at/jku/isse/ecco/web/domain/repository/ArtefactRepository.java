@@ -2,6 +2,7 @@ package at.jku.isse.ecco.web.domain.repository;
 
 import at.jku.isse.ecco.composition.LazyCompositionRootNode;
 import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.repository.AssociationStatistics;
 import at.jku.isse.ecco.service.EccoService;
 import at.jku.isse.ecco.tree.Node;
 import at.jku.isse.ecco.web.domain.model.ArtefactGraphModel;
@@ -16,6 +17,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -32,16 +35,17 @@ public class ArtefactRepository extends AbstractRepository {
     }
 
     public ArtefactTreeModel getArtifactsByAssociation(AssociationModel[] givenAssociations) {
-        EccoService eccoService = this.application.getEccoService();
-        Collection<? extends Association> associationCollection = eccoService.getRepository().getAssociations();
+        AssociationStatistics statistics = this.application.getEccoService().getAssociationStatistics();
 
         ArtefactTreeModel artefactTreeModel = new ArtefactTreeModel();
         LazyCompositionRootNode compRootNode = new LazyCompositionRootNode();
-        for (Association association : associationCollection) {
-            for (AssociationModel walkerAssociationModel : givenAssociations) {
-                if (association.getId().equals(walkerAssociationModel.getAssociationID())) {
-                    compRootNode.addOrigNode(association.getRootNode());
-                }
+        Set<String> givenAssociationIds = new HashSet<>();
+        for (AssociationModel walkerAssociationModel : givenAssociations) {
+            givenAssociationIds.add(walkerAssociationModel.getAssociationID());
+        }
+        for (AssociationStatistics.Entry entry : statistics.getEntries()) {
+            if (givenAssociationIds.contains(entry.getAssociationId())) {
+                compRootNode.addOrigNode(entry.getAssociation().getRootNode());
             }
         }
 
@@ -0,0 +1,229 @@
+package at.jku.isse.ecco.web.rest;
+
+import at.jku.isse.ecco.adapter.dispatch.DirectoryArtifactData;
+import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
+import at.jku.isse.ecco.composition.LazyCompositionRootNode;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.repository.AssociationStatistics;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.web.rest.dto.ArtifactsGraphDTO;
+
+import java.util.*;
+
+/**
+ * Server side model of the artifacts graph of a repository, i.e. the tree composed of all associations.
+ * It is built once per repository version (see {@link #computeVersion(Repository)}) and answers queries for parts of the graph (see {@link #toDTO(int, int, int, int)}) without traversing the artifact trees again.
+ * Node ids are stable for a version, so clients can expand nodes with subsequent queries.
+ */
+public class ArtifactsGraph {
+
+	public static final int ROOT = -1;
+
+	private final String version;
+
+	private final List<GraphNode> nodes;
+
+	private final int[] rootChildren;
+
+	private ArtifactsGraph(String version, List<GraphNode> nodes, int[] rootChildren) {
+		this.version = version;
+		this.nodes = nodes;
+		this.rootChildren = rootChildren;
+	}
+
+
+	/**
+	 * Computes a version string of the repository that changes whenever its associations (and therefore its artifacts graph) change.
+	 *
+	 * @param repository The repository.
+	 * @return The version of the repository.
+	 */
+	public static String computeVersion(Repository repository) {
+		return AssociationStatistics.computeVersion(repository);
+	}
+
+	/**
+	 * Builds the artifacts graph of the given repository by traversing the composition of all associations once.
+	 *
+	 * @param repository The repository.
+	 * @param version    The version of the repository (see {@link #computeVersion(Repository)}).
+	 * @return The artifacts graph.
+	 */
+	public static ArtifactsGraph build(Repository repository, String version) {
+		LazyCompositionRootNode compRootNode = new LazyCompositionRootNode();
+		for (Association association : repository.getAssociations()) {
+			compRootNode.addOrigNode(association.getRootNode());
+		}
+
+		List<GraphNode> nodes = new ArrayList<>();
+		int[] rootChildren = addChildren(nodes, compRootNode, 1);
+		return new ArtifactsGraph(version, nodes, rootChildren);
+	}
+
+	private static int[] addChildren(List<GraphNode> nodes, Node eccoNode, int depth) {
+		int[] children = new int[eccoNode.getChildren().size()];
+		int count = 0;
+		for (Node eccoChildNode : eccoNode.getChildren()) {
+			if (eccoChildNode.getArtifact() != null)
+				children[count++] = addNode(nodes, eccoChildNode, depth);
+		}
+		return count == children.length ? children : Arrays.copyOf(children, count);
+	}
+
+	private static int addNode(List<GraphNode> nodes, Node eccoNode, int depth) {
+		String label;
+		if (eccoNode.getArtifact().getData() instanceof PluginArtifactData) {
+			label = ((PluginArtifactData) eccoNode.getArtifact().getData()).getPath().toString();
+		} else if (eccoNode.getArtifact().getData() instanceof DirectoryArtifactData) {
+			label = ((DirectoryArtifactData) eccoNode.getArtifact().getData()).getPath().toString();
+		} else {
+			label = eccoNode.toString();
+		}
+		String associationId = eccoNode.getArtifact().getContainingNode().getContainingAssociation().getId();
+
+		GraphNode graphNode = new GraphNode(label, depth, associationId);
+		int id = nodes.size();
+		nodes.add(graphNode);
+		graphNode.children = addChildren(nodes, eccoNode, depth + 1);
+		return id;
+	}
+
+
+	public String getVersion() {
+		return this.version;
+	}
+
+	public int getNumNodes() {
+		return this.nodes.size();
+	}
+
+	public boolean containsNode(int id) {
+		return id == ROOT || (id >= 0 && id < this.nodes.size());
+	}
+
+	/**
+	 * Creates the DTO of a part of the graph. Starting at the given node, the graph is descended down to the given depth. Children of nodes with at least maxChildren children are not returned individually,
+	 * but as one node per association that counts the artifacts of the association below the node (like in the original graph view).
+	 * Only the children of the start node itself can instead be requested page by page by giving an offset, in which case at most maxChildren of them are returned.
+	 * <p>
+	 * Artifact nodes have the id of the node in this graph. Group nodes have negative ids that are only unique within the DTO.
+	 *
+	 * @param startId     The id of the start node or {@link #ROOT} for the root of the graph (which itself is not returned).
+	 * @param depth       The number of levels below the start node to return. A negative depth returns all levels.
+	 * @param maxChildren The number of children from which on the children of a node are grouped.
+	 * @param offset      The index of the first child of the start node to return or a negative value for no paging.
+	 * @return The DTO.
+	 */
+	public ArtifactsGraphDTO toDTO(int startId, int depth, int maxChildren, int offset) {
+		ArtifactsGraphDTO graph = new ArtifactsGraphDTO();
+		Query query = new Query(graph, maxChildren);
+
+		int[] children = startId == ROOT ? this.rootChildren : this.nodes.get(startId).children;
+		ArtifactsGraphDTO.NodeDTO startNode = startId == ROOT ? null : query.addNode(startId, this.nodes.get(startId));
+
+		if (depth == 0) {
+			// only the start node
+		} else if (offset >= 0) {
+			int to = (int) Math.min(children.length, (long) offset + maxChildren);
+			int[] page = offset < children.length ? Arrays.copyOfRange(children, offset, to) : new int[0];
+			this.addChildren(query, startNode, page, Integer.MAX_VALUE, depth - 1);
+		} else {
+			this.addChildren(query, startNode, children, maxChildren, depth - 1);
+		}
+
+		graph.setMaxDepth(query.maxDepth);
+		graph.setMaxNumArtifacts(query.maxNumArtifacts);
+		return graph;
+	}
+
+	private void addChildren(Query query, ArtifactsGraphDTO.NodeDTO parentNode, int[] children, int maxChildren, int depth) {
+		if (children.length >= maxChildren && parentNode != null) {
+			// group children by association
+			GraphNode parent = this.nodes.get(parentNode.getId());
+			for (Map.Entry<String, Integer> entry : this.getGroupCounts(parent).entrySet()) {
+				ArtifactsGraphDTO.NodeDTO groupNode = query.addGroupNode(entry.getKey(), entry.getValue(), parent.depth + 1);
+				query.graph.addEdge(parentNode, groupNode);
+			}
+			return;
+		}
+
+		for (int childId : children) {
+			GraphNode child = this.nodes.get(childId);
+			ArtifactsGraphDTO.NodeDTO childNode = query.addNode(childId, child);
+			if (parentNode != null)
+				query.graph.addEdge(parentNode, childNode);
+			if (depth != 0)
+				this.addChildren(query, childNode, child.children, query.maxChildren, depth - 1);
+		}
+	}
+
+	private synchronized Map<String, Integer> getGroupCounts(GraphNode graphNode) {
+		if (graphNode.groupCounts == null) {
+			Map<String, Integer> groupCounts = new LinkedHashMap<>();
+			Deque<Integer> stack = new ArrayDeque<>();
+			for (int child : graphNode.children)
+				stack.push(child);
+			while (!stack.isEmpty()) {
+				GraphNode descendant = this.nodes.get(stack.pop());
+				groupCounts.merge(descendant.associationId, 1, Integer::sum);
+				for (int child : descendant.children)
+					stack.push(child);
+			}
+			graphNode.groupCounts = groupCounts;
+		}
+		return graphNode.groupCounts;
+	}
+
+
+	private static class GraphNode {
+		private final String label;
+		private final int depth;
+		private final String associationId;
+		private int[] children;
+		private Map<String, Integer> groupCounts;
+
+		private GraphNode(String label, int depth, String associationId) {
+			this.label = label;
+			this.depth = depth;
+			this.associationId = associationId;
+			this.children = null;
+			this.groupCounts = null;
+		}
+	}
+
+	private static class Query {
+		private final ArtifactsGraphDTO graph;
+		private final int maxChildren;
+		private int nextGroupId = -1;
+		private int maxDepth = 0;
+		private int maxNumArtifacts = 0;
+
+		private Query(ArtifactsGraphDTO graph, int maxChildren) {
+			this.graph = graph;
+			this.maxChildren = maxChildren;
+		}
+
+		private ArtifactsGraphDTO.NodeDTO addNode(int id, GraphNode graphNode) {
+			ArtifactsGraphDTO.NodeDTO node = this.graph.addNode(id);
+			node.setLabel(graphNode.label);
+			node.setDepth(graphNode.depth);
+			node.setAssociationId(graphNode.associationId);
+			node.setNumArtifacts(1);
+			node.setNumChildren(graphNode.children.length);
+			this.maxDepth = Math.max(this.maxDepth, graphNode.depth);
+			return node;
+		}
+
+		private ArtifactsGraphDTO.NodeDTO addGroupNode(String associationId, int count, int depth) {
+			ArtifactsGraphDTO.NodeDTO node = this.graph.addNode(this.nextGroupId--);
+			node.setLabel("[" + count + "]");
+			node.setDepth(depth);
+			node.setAssociationId(associationId);
+			node.setNumArtifacts(count);
+			this.maxNumArtifacts = Math.max(this.maxNumArtifacts, count);
+			return node;
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 package at.jku.isse.ecco.web.rest;
 
+import at.jku.isse.ecco.repository.Repository;
 import at.jku.isse.ecco.service.EccoService;
 import at.jku.isse.ecco.web.domain.model.ArtefactGraphModel;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
@@ -24,6 +25,7 @@ public class EccoApplication extends ResourceConfig {
 
 	private ArtefactGraphModel backendGraph = null;
 	private ArtefactGraphModel frontendGraph = null;
+	private ArtifactsGraph artifactsGraph = null;
 
 	public EccoApplication() {
 		packages(true, "at.jku.isse.ecco.web");
@@ -45,6 +47,23 @@ public class EccoApplication extends ResourceConfig {
 	}
 	public void close() {
 		this.eccoService.close();
+		this.artifactsGraph = null;
+	}
+
+	/**
+	 * Returns the artifacts graph of the repository. The graph is only built again when the repository changed since it was last built.
+	 *
+	 * @return The artifacts graph of the current repository version.
+	 */
+	public synchronized ArtifactsGraph getArtifactsGraph() {
+		Repository repository = this.eccoService.getRepository();
+		String version = ArtifactsGraph.computeVersion(repository);
+		if (this.artifactsGraph == null || !this.artifactsGraph.getVersion().equals(version)) {
+			long startTime = System.currentTimeMillis();
+			this.artifactsGraph = ArtifactsGraph.build(repository, version);
+			LOGGER.info("Built artifacts graph with {} nodes in {}ms", this.artifactsGraph.getNumNodes(), System.currentTimeMillis() - startTime);
+		}
+		return this.artifactsGraph;
 	}
 
 	public ArtefactGraphModel getBackendGraph() {
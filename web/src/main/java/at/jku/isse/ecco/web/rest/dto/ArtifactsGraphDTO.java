@@ -83,8 +83,12 @@ public class ArtifactsGraphDTO {
 	}
 
 	public NodeDTO addNode() {
+		return this.addNode(this.numNodes);
+	}
+
+	public NodeDTO addNode(int id) {
 		NodeDTO node = new NodeDTO();
-		node.setId(this.numNodes);
+		node.setId(id);
 		this.nodes.add(node);
 		this.numNodes++;
 		return node;
@@ -119,6 +123,7 @@ public class ArtifactsGraphDTO {
 		private int numArtifacts;
 		private int depth;
 		private String label;
+		private int numChildren;
 
 		public int getId() {
 			return id;
@@ -159,6 +164,17 @@ public class ArtifactsGraphDTO {
 		public void setLabel(String label) {
 			this.label = label;
 		}
+
+		/**
+		 * The number of children of the artifact in the graph, which may be more than the number of children in the DTO.
+		 */
+		public int getNumChildren() {
+			return numChildren;
+		}
+
+		public void setNumChildren(int numChildren) {
+			this.numChildren = numChildren;
+		}
 	}
 
 }